@@ -1,7 +1,9 @@
 package edu.yu.cs.com1320.searchengine.core;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 public interface Document extends Comparable<Document> {
@@ -38,6 +40,15 @@ public interface Document extends Comparable<Document> {
      */
     byte[] getDocumentBinaryData();
 
+    /**
+     * @return read-only view of the content of a binary document, or null if it's a text document.
+     * Unlike getDocumentBinaryData, an implementation may return this without copying the content onto the heap.
+     */
+    default ByteBuffer getDocumentBinaryView() {
+        byte[] data = this.getDocumentBinaryData();
+        return data == null ? null : ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
     /**
      * @return URI which uniquely identifies this document
      */
@@ -64,14 +75,14 @@ public interface Document extends Comparable<Document> {
     void setLastUseTime(long timeInNanoseconds);
 
     /**
-     * @return a copy of the word to count map so it can be serialized
+     * @return a read-only view of the word to count map so it can be serialized
      */
-    HashMap<String, Integer> getWordMap();
+    Map<String, Integer> getWordMap();
 
     /**
      * This must set the word to count map durlng deserialization
      *
      * @param wordMap
      */
-    void setWordMap(HashMap<String, Integer> wordMap);
+    void setWordMap(Map<String, Integer> wordMap);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package edu.yu.cs.com1320.searchengine.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns a Document into bytes for a PersistenceManager and back.
+ */
+public interface DocumentCodec {
+    /**
+     * @param doc
+     * @return the encoded document
+     * @throws IOException if the document can't be encoded
+     */
+    byte[] encode(Document doc) throws IOException;
+
+    /**
+     * @param bytes what encode returned
+     * @return the document
+     * @throws IOException if the bytes are not a valid encoding
+     */
+    Document decode(byte[] bytes) throws IOException;
+
+    /**
+     * decode from the buffer's position to its limit, without changing the buffer.
+     * The document may keep a view into the buffer instead of copying its binary content,
+     * so the buffer must not change while the document is in use.
+     * @param bytes what encode returned
+     * @return the document
+     * @throws IOException if the bytes are not a valid encoding
+     */
+    default Document decode(ByteBuffer bytes) throws IOException {
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.duplicate().get(copy);
+        return this.decode(copy);
+    }
+
+    /**
+     * @return the extension, including the dot, for files that hold one encoded document
+     */
+    String getFileExtension();
+}
@@ -6,6 +6,7 @@ import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface DocumentStore
 {
@@ -17,6 +18,16 @@ public interface DocumentStore
         TXT,BINARY
     };
 
+    /**
+     * how a ranked search orders the documents it matched
+     */
+    enum Ranking{
+        //by how many times the search's words appear in the document
+        COUNT,
+        //by Okapi BM25, which weighs rare words up and long documents down
+        BM25
+    }
+
     /**
      * set the given key-value metadata pair for the document at the given uri
      * @param uri
@@ -45,6 +56,17 @@ public interface DocumentStore
      */
     int put(InputStream input, URI url, DocumentStore.DocumentFormat format) throws IOException;
 
+    /**
+     * put many documents at once; undo() undoes the whole batch, undo(url) just the document at url.
+     * Every input is closed, whether or not the batch is put.
+     * @param inputs each document's URI and the document being put; a null InputStream is a delete, as in put
+     * @param format the format of all the documents
+     * @return each URI, in the order of inputs, with what put would have returned for it
+     * @throws IOException if there is an issue reading an input; then none of the documents are put
+     * @throws IllegalArgumentException if inputs, a URI or format is null
+     */
+    Map<URI, Integer> putAll(Map<URI, InputStream> inputs, DocumentStore.DocumentFormat format) throws IOException;
+
     /**
      * @param url the unique identifier of the document to get
      * @return the given document
@@ -57,6 +79,20 @@ public interface DocumentStore
      */
     boolean delete(URI url);
 
+    /**
+     * @param uriPrefix the start of the URIs to list, e.g. "http://host/path/"
+     * @return the URIs of all documents whose URI starts with the given prefix, in URI order. No document is read from disk.
+     * @throws IllegalArgumentException if uriPrefix is null
+     */
+    List<URI> listUrisWithPrefix(String uriPrefix);
+
+    /**
+     * @param uriPrefix the start of the URIs to stream, e.g. "http://host/path/"
+     * @return the documents whose URI starts with the given prefix, in URI order. Each document is only fetched, as by get, when the stream reaches it.
+     * @throws IllegalArgumentException if uriPrefix is null
+     */
+    Stream<Document> streamWithUriPrefix(String uriPrefix);
+
     /**
      * undo the last put or delete command
      * @throws IllegalStateException if there are no actions to be undone, i.e. the command stack is empty
@@ -79,6 +115,25 @@ public interface DocumentStore
      */
     List<Document> search(String keyword) throws IOException;
 
+    /**
+     * Same as search(keyword), but only the documents ranked offset to offset + limit - 1 are returned,
+     * and only they are brought into memory. Documents with equal counts are ordered by URI.
+     * @param keyword
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    List<Document> search(String keyword, int offset, int limit) throws IOException;
+
+    /**
+     * Same as search(keyword, offset, limit), ordered by the given ranking.
+     * BM25 is computed from word counts, document lengths and document frequencies kept in the index,
+     * so documents are only brought into memory once they are picked.
+     * @throws IllegalArgumentException if ranking is null, offset < 0 or limit < 1
+     */
+    List<Document> search(String keyword, int offset, int limit, Ranking ranking) throws IOException;
+
     /**
      * Retrieve all documents containing a word that starts with the given prefix
      * Documents are returned in sorted, descending order, sorted by the number of times the prefix appears in the document.
@@ -88,6 +143,23 @@ public interface DocumentStore
      */
     List<Document> searchByPrefix(String keywordPrefix) throws IOException;
 
+    /**
+     * Same as searchByPrefix(keywordPrefix), but only the documents ranked offset to offset + limit - 1 are returned,
+     * and only they are brought into memory. Documents with equal counts are ordered by URI.
+     * @param keywordPrefix
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    List<Document> searchByPrefix(String keywordPrefix, int offset, int limit) throws IOException;
+
+    /**
+     * Same as searchByPrefix(keywordPrefix, offset, limit), ordered by the given ranking.
+     * @throws IllegalArgumentException if ranking is null, offset < 0 or limit < 1
+     */
+    List<Document> searchByPrefix(String keywordPrefix, int offset, int limit, Ranking ranking) throws IOException;
+
     /**
      * Completely remove any trace of any document which contains the given keyword
      * Search is CASE SENSITIVE.
@@ -110,6 +182,13 @@ public interface DocumentStore
      */
     List<Document> searchByMetadata(Map<String,String> keysValues) throws IOException;
 
+    /**
+     * Same as searchByMetadata(keysValues), but only the matches offset to offset + limit - 1, in the order of their URIs,
+     * are returned, and only they are brought into memory.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    List<Document> searchByMetadata(Map<String,String> keysValues, int offset, int limit) throws IOException;
+
     /**
      * Retrieve all documents whose text contains the given keyword AND which has the given key-value pairs in its metadata
      * Documents are returned in sorted, descending order, sorted by the number of times the keyword appears in the document.
@@ -120,6 +199,13 @@ public interface DocumentStore
      */
     List<Document> searchByKeywordAndMetadata(String keyword, Map<String,String> keysValues) throws IOException;
 
+    /**
+     * Same as searchByKeywordAndMetadata(keyword, keysValues), but only the documents ranked offset to offset + limit - 1
+     * are returned, and only they are brought into memory.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    List<Document> searchByKeywordAndMetadata(String keyword, Map<String,String> keysValues, int offset, int limit) throws IOException;
+
     /**
      * Retrieve all documents that contain text which starts with the given prefix AND which has the given key-value pairs in its metadata
      * Documents are returned in sorted, descending order, sorted by the number of times the prefix appears in the document.
@@ -129,6 +215,36 @@ public interface DocumentStore
      */
     List<Document> searchByPrefixAndMetadata(String keywordPrefix, Map<String,String> keysValues) throws IOException;
 
+    /**
+     * Same as searchByPrefixAndMetadata(keywordPrefix, keysValues), but only the documents ranked offset to
+     * offset + limit - 1 are returned, and only they are brought into memory.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    List<Document> searchByPrefixAndMetadata(String keywordPrefix, Map<String,String> keysValues, int offset, int limit) throws IOException;
+
+    /**
+     * Retrieve all documents that match the query, e.g. one built with the Query methods or parsed by QueryParser.
+     * Documents are returned in sorted, descending order, sorted by how many times the query's words, prefixes and
+     * phrases appear in the document; metadata clauses and NOT don't count towards it, and ties are ordered by URI.
+     * @param query
+     * @return a List of the matches. If there are no matches, return an empty list.
+     * @throws IllegalArgumentException if query is null
+     */
+    List<Document> searchQuery(Query query) throws IOException;
+
+    /**
+     * Same as searchQuery(query), but only the documents ranked offset to offset + limit - 1 are returned,
+     * and only they are brought into memory, apart from the documents whose text has to be checked for a phrase.
+     * @throws IllegalArgumentException if query is null, offset < 0 or limit < 1
+     */
+    List<Document> searchQuery(Query query, int offset, int limit) throws IOException;
+
+    /**
+     * Same as searchQuery(query, offset, limit), ordered by the given ranking.
+     * @throws IllegalArgumentException if query or ranking is null, offset < 0 or limit < 1
+     */
+    List<Document> searchQuery(Query query, int offset, int limit, Ranking ranking) throws IOException;
+
     /**
      * Completely remove any trace of any document which has the given key-value pairs in its metadata
      * Search is CASE SENSITIVE.
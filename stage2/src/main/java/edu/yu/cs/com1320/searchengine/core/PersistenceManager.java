@@ -12,4 +12,22 @@ public interface PersistenceManager<Key,Value> {
      * @throws IOException
      */
     boolean delete(Key key) throws IOException;
+
+    /**
+     * read the stored value only to look at it: it stays on disk, and the value isn't treated as loaded
+     * @param key
+     * @return the value, as deserialize would return it
+     * @throws IOException
+     */
+    default Value peek(Key key) throws IOException {
+        return this.deserialize(key);
+    }
+
+    /**
+     * @return true if deserialize leaves the stored copy in place, so the caller should not delete it after loading.
+     * The stored copy then has to be deleted when the value is replaced or removed.
+     */
+    default boolean keepsCopyOnLoad() {
+        return false;
+    }
 }
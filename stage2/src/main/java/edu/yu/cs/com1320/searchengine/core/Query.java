@@ -0,0 +1,130 @@
+package edu.yu.cs.com1320.searchengine.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A search over the text and metadata of the documents in a DocumentStore, built out of clauses.
+ * Build one with the static methods, e.g. and(term("search"), not(metadata("Author", "Me"))),
+ * or parse one from a string with QueryParser.
+ * Words are matched the way DocumentStore.search matches a keyword: exactly, and CASE SENSITIVE.
+ */
+public sealed interface Query {
+
+    /**
+     * documents that contain the word
+     */
+    record Term(String word) implements Query {
+        public Term {
+            if (word == null || word.isBlank()) {
+                throw new IllegalArgumentException("Invalid Term");
+            }
+        }
+    }
+
+    /**
+     * documents that contain a word starting with the prefix
+     */
+    record Prefix(String prefix) implements Query {
+        public Prefix {
+            if (prefix == null || prefix.isBlank()) {
+                throw new IllegalArgumentException("Invalid Prefix");
+            }
+        }
+    }
+
+    /**
+     * documents that contain the words one right after the other, in order
+     */
+    record Phrase(List<String> words) implements Query {
+        //a phrase is matched with one bit per word in a long
+        public static final int MAX_WORDS = 64;
+
+        public Phrase {
+            if (words == null || words.isEmpty() || words.size() > MAX_WORDS) {
+                throw new IllegalArgumentException("Invalid Phrase");
+            }
+            for (String word : words) {
+                if (word == null || word.isBlank()) {
+                    throw new IllegalArgumentException("Invalid Phrase");
+                }
+            }
+            words = List.copyOf(words);
+        }
+    }
+
+    /**
+     * documents whose metadata has the value for the key
+     */
+    record Metadata(String key, String value) implements Query {
+        public Metadata {
+            if (key == null || key.isBlank() || value == null) {
+                throw new IllegalArgumentException("Invalid Metadata Clause");
+            }
+        }
+    }
+
+    /**
+     * documents that match every clause
+     */
+    record And(List<Query> clauses) implements Query {
+        public And {
+            clauses = clauseChecker(clauses);
+        }
+    }
+
+    /**
+     * documents that match at least one clause
+     */
+    record Or(List<Query> clauses) implements Query {
+        public Or {
+            clauses = clauseChecker(clauses);
+        }
+    }
+
+    /**
+     * documents that don't match the clause
+     */
+    record Not(Query clause) implements Query {
+        public Not {
+            if (clause == null) {
+                throw new IllegalArgumentException("Invalid Clause");
+            }
+        }
+    }
+
+    private static List<Query> clauseChecker(List<Query> clauses) {
+        if (clauses == null || clauses.isEmpty() || clauses.contains(null)) {
+            throw new IllegalArgumentException("Invalid Clauses");
+        }
+        return List.copyOf(clauses);
+    }
+
+    static Query term(String word) {
+        return new Term(word);
+    }
+
+    static Query prefix(String prefix) {
+        return new Prefix(prefix);
+    }
+
+    static Query phrase(String... words) {
+        return new Phrase(words == null ? null : Arrays.asList(words));
+    }
+
+    static Query metadata(String key, String value) {
+        return new Metadata(key, value);
+    }
+
+    static Query and(Query... clauses) {
+        return new And(clauses == null ? null : Arrays.asList(clauses));
+    }
+
+    static Query or(Query... clauses) {
+        return new Or(clauses == null ? null : Arrays.asList(clauses));
+    }
+
+    static Query not(Query clause) {
+        return new Not(clause);
+    }
+}
@@ -0,0 +1,259 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentCodec;
+import edu.yu.cs.com1320.searchengine.text.TermCountMap;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a Document.
+ * Layout (version 1): version byte, kind byte (text or binary), uri, metadata count then key/value pairs,
+ * and then either the text and its word count table, or the raw bytes of a binary document.
+ * Lengths and counts are unsigned varints and strings are a varint length followed by UTF-8.
+ * A metadata value is stored as length + 1 so that 0 can mean null.
+ * The word count table is sorted and front coded: each word stores how many leading bytes it shares
+ * with the word before it and only the rest of its bytes, then its count.
+ * Decoding from a ByteBuffer leaves a binary document's content in the buffer rather than copying it.
+ */
+public class BinaryDocumentCodec implements DocumentCodec {
+    private static final byte VERSION = 1;
+    private static final byte TEXT = 0, BINARY = 1;
+
+    @Override
+    public byte[] encode(Document doc) {
+        ByteBuffer data = doc.getDocumentBinaryView();
+        Output out = new Output(64 + (data == null ? doc.getDocumentTxt().length() * 2 : data.remaining()));
+        out.writeByte(VERSION);
+        out.writeByte(doc.getDocumentTxt() != null ? TEXT : BINARY);
+        out.writeString(doc.getKey().toString());
+        HashMap<String, String> metadata = doc.getMetadata();
+        out.writeVarint(metadata.size());
+        for (Map.Entry<String, String> e : metadata.entrySet()){
+            out.writeString(e.getKey());
+            if (e.getValue() == null){
+                out.writeVarint(0);
+            } else {
+                byte[] value = e.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeVarint(value.length + 1);
+                out.writeBytes(value, 0, value.length);
+            }
+        }
+        if (doc.getDocumentTxt() != null){
+            out.writeString(doc.getDocumentTxt());
+            this.writeWordCounts(out, TermCountMap.of(doc.getWordMap()));
+        } else {
+            out.writeVarint(data.remaining());
+            out.ensure(data.remaining());
+            int length = data.remaining();
+            data.get(out.buffer, out.position, length);
+            out.position += length;
+        }
+        return out.toByteArray();
+    }
+
+    private void writeWordCounts(Output out, TermCountMap wordCounts) {
+        String[] words = wordCounts.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        out.writeVarint(words.length);
+        byte[] previous = new byte[0];
+        for (String word : words){
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            int max = Math.min(previous.length, bytes.length);
+            while (shared < max && previous[shared] == bytes[shared]){
+                shared++;
+            }
+            out.writeVarint(shared);
+            out.writeVarint(bytes.length - shared);
+            out.writeBytes(bytes, shared, bytes.length - shared);
+            out.writeVarint(wordCounts.count(word));
+            previous = bytes;
+        }
+    }
+
+    @Override
+    public Document decode(byte[] bytes) throws IOException {
+        return this.decode(ByteBuffer.wrap(bytes), false);
+    }
+
+    @Override
+    public Document decode(ByteBuffer bytes) throws IOException {
+        return this.decode(bytes.slice(), true);
+    }
+
+    private Document decode(ByteBuffer bytes, boolean keepView) throws IOException {
+        Input in = new Input(bytes);
+        byte version = in.readByte();
+        if (version != VERSION){
+            throw new IOException("Unsupported document encoding version " + version);
+        }
+        byte kind = in.readByte();
+        if (kind != TEXT && kind != BINARY){
+            throw new IOException("Corrupt document encoding");
+        }
+        URI uri;
+        try {
+            uri = URI.create(in.readString());
+        } catch (IllegalArgumentException e){
+            throw new IOException("Corrupt document encoding", e);
+        }
+        int metadataCount = in.readVarint();
+        HashMap<String, String> metadata = new HashMap<>();
+        for (int i = 0; i < metadataCount; i++){
+            String key = in.readString();
+            int length = in.readVarint();
+            metadata.put(key, length == 0 ? null : in.readString(length - 1));
+        }
+        Document doc;
+        try {
+            if (kind == TEXT){
+                String text = in.readString();
+                TermCountMap wordCounts = this.readWordCounts(in);
+                //DocumentImpl rejects an empty map; null makes it recount, which also finds nothing
+                doc = new DocumentImpl(uri, text, wordCounts.isEmpty() ? null : wordCounts);
+            } else {
+                int length = in.readVarint();
+                doc = keepView ? new DocumentImpl(uri, in.readView(length)) : new DocumentImpl(uri, in.readBytes(length));
+            }
+        } catch (IllegalArgumentException e){
+            throw new IOException("Corrupt document encoding", e);
+        }
+        if (in.position != bytes.limit()){
+            throw new IOException("Corrupt document encoding");
+        }
+        doc.setMetadata(metadata);
+        doc.setLastUseTime(System.nanoTime());
+        return doc;
+    }
+
+    private TermCountMap readWordCounts(Input in) throws IOException {
+        int count = in.readVarint();
+        if (count < 0){
+            throw new IOException("Corrupt document encoding");
+        }
+        TermCountMap wordCounts = new TermCountMap(count);
+        byte[] word = new byte[32];
+        for (int i = 0; i < count; i++){
+            int shared = in.readVarint();
+            int rest = in.readVarint();
+            if (shared + rest < 0){
+                throw new IOException("Corrupt document encoding");
+            }
+            if (shared + rest > word.length){
+                word = Arrays.copyOf(word, Math.max(shared + rest, word.length * 2));
+            }
+            in.readInto(word, shared, rest);
+            wordCounts.add(new String(word, 0, shared + rest, StandardCharsets.UTF_8), in.readVarint());
+        }
+        return wordCounts;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".bin";
+    }
+
+    private static class Output {
+        private byte[] buffer;
+        private int position;
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+        private void ensure(int extra) {
+            if (this.position + extra > this.buffer.length){
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + extra));
+            }
+        }
+        private void writeByte(byte b) {
+            this.ensure(1);
+            this.buffer[this.position++] = b;
+        }
+        private void writeVarint(int value) {
+            this.ensure(5);
+            while ((value & ~0x7f) != 0){
+                this.buffer[this.position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+        private void writeBytes(byte[] bytes, int offset, int length) {
+            this.ensure(length);
+            System.arraycopy(bytes, offset, this.buffer, this.position, length);
+            this.position += length;
+        }
+        private void writeString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            this.writeVarint(bytes.length);
+            this.writeBytes(bytes, 0, bytes.length);
+        }
+        private byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+    }
+
+    private static class Input {
+        private final ByteBuffer buffer;
+        private int position;
+        private Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        private void require(int length) throws IOException {
+            if (length < 0 || length > this.buffer.limit() - this.position){
+                throw new IOException("Corrupt document encoding");
+            }
+        }
+        private byte readByte() throws IOException {
+            this.require(1);
+            return this.buffer.get(this.position++);
+        }
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7){
+                byte b = this.readByte();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0){
+                    if (value < 0){
+                        throw new IOException("Corrupt document encoding");
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt document encoding");
+        }
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            this.readInto(bytes, 0, length);
+            return bytes;
+        }
+        private ByteBuffer readView(int length) throws IOException {
+            this.require(length);
+            ByteBuffer view = this.buffer.slice(this.position, length);
+            this.position += length;
+            return view;
+        }
+        private void readInto(byte[] target, int offset, int length) throws IOException {
+            this.require(length);
+            this.buffer.get(this.position, target, offset, length);
+            this.position += length;
+        }
+        private String readString() throws IOException {
+            return this.readString(this.readVarint());
+        }
+        private String readString(int length) throws IOException {
+            if (this.buffer.hasArray()){
+                this.require(length);
+                String s = new String(this.buffer.array(), this.buffer.arrayOffset() + this.position, length, StandardCharsets.UTF_8);
+                this.position += length;
+                return s;
+            }
+            return new String(this.readBytes(length), StandardCharsets.UTF_8);
+        }
+    }
+}
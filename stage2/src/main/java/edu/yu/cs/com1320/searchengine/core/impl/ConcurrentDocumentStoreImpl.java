@@ -0,0 +1,302 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentStore;
+import edu.yu.cs.com1320.searchengine.core.Query;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.BTreeImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * A DocumentStoreImpl that any number of threads can use at once.
+ * Searches, get, getMetadata and listing URIs share a read lock and run in parallel. Their uses of documents go to a
+ * lock-free buffer that the readers themselves apply to the eviction policy now and then, instead of every read
+ * updating it. Everything else, e.g. put, delete, setMetadata and undo, takes the write lock, so changes are made one
+ * at a time and never while a read is running.
+ * A read is first tried under the read lock; if it needs a document that was moved to disk, which reading back
+ * changes the store, it is run again under the write lock.
+ * The documents returned are the store's own, so a thread changing one, e.g. with setMetadata, races threads reading it.
+ */
+public class ConcurrentDocumentStoreImpl implements DocumentStore {
+    private final DocumentStoreImpl store;
+    private final ReentrantReadWriteLock lock;
+
+    private interface Action<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public ConcurrentDocumentStoreImpl(){
+        this(null, DocumentStoreImpl.EvictionStrategy.LRU);
+    }
+
+    public ConcurrentDocumentStoreImpl(File baseDir){
+        this(baseDir, DocumentStoreImpl.EvictionStrategy.LRU);
+    }
+
+    /**
+     * The documents are indexed by a BTreeImpl, whose lookups of documents in memory don't change it.
+     * @param baseDir where documents moved out of memory are written; the working directory if null
+     * @param eviction
+     */
+    public ConcurrentDocumentStoreImpl(File baseDir, DocumentStoreImpl.EvictionStrategy eviction){
+        this.store = new DocumentStoreImpl(baseDir, eviction, new BTreeImpl<>());
+        this.store.setSharedReads(true);
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    private <T, E extends Exception> T read(Action<T, E> action) throws E {
+        this.lock.readLock().lock();
+        try {
+            return action.run();
+        } catch (DocumentStoreImpl.ExclusiveAccessNeeded e) {
+            //a document is on disk; try again below
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return this.write(action);
+    }
+
+    private <T, E extends Exception> T write(Action<T, E> action) throws E {
+        this.lock.writeLock().lock();
+        this.store.setSharedReads(false);
+        try {
+            //so the eviction policy knows about every use before anything is moved to disk
+            this.store.drainUses();
+            return action.run();
+        } finally {
+            this.store.setSharedReads(true);
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String setMetadata(URI uri, String key, String value) throws IOException {
+        return this.write(() -> this.store.setMetadata(uri, key, value));
+    }
+
+    @Override
+    public String getMetadata(URI uri, String key) throws IOException {
+        return this.read(() -> this.store.getMetadata(uri, key));
+    }
+
+    /**
+     * The input is read and its document made before the write lock is taken, so a slow stream doesn't hold up other
+     * threads, and reading stops as soon as it is larger than the maximum number of bytes. Only indexing the
+     * document is done under the lock.
+     */
+    @Override
+    public int put(InputStream input, URI url, DocumentFormat format) throws IOException {
+        if (input == null || url == null || format == null){
+            return this.write(() -> this.store.put(input, url, format));
+        }
+        DocumentStoreImpl.ReadDocument read = this.store.documentMaker(input, url, format);
+        return this.write(() -> this.store.putPutter(url, read));
+    }
+
+    /**
+     * The inputs are read and their documents made in parallel before the write lock is taken, each only up to the
+     * maximum number of bytes, and only indexing them is done under it. If one can't be read, the rest are closed
+     * without being read.
+     */
+    @Override
+    public Map<URI, Integer> putAll(Map<URI, InputStream> inputs, DocumentFormat format) throws IOException {
+        if (inputs == null || format == null){
+            throw new IllegalArgumentException("Invalid File");
+        }
+        List<URI> uris = new ArrayList<>(inputs.keySet());
+        if (uris.contains(null)){
+            throw new IllegalArgumentException("Invalid File");
+        }
+        List<DocumentStoreImpl.ReadDocument> read = this.store.batchReader(uris, inputs, format);
+        return this.write(() -> this.store.batchPutter(uris, read));
+    }
+
+    @Override
+    public Document get(URI url) throws IOException {
+        return this.read(() -> this.store.get(url));
+    }
+
+    @Override
+    public boolean delete(URI url) {
+        return this.write(() -> this.store.delete(url));
+    }
+
+    @Override
+    public List<URI> listUrisWithPrefix(String uriPrefix) {
+        return this.read(() -> this.store.listUrisWithPrefix(uriPrefix));
+    }
+
+    /**
+     * each document is fetched with get, under its own read lock, when the stream reaches it
+     */
+    @Override
+    public Stream<Document> streamWithUriPrefix(String uriPrefix) {
+        return this.listUrisWithPrefix(uriPrefix).stream().map(uri -> {
+            try {
+                return this.get(uri);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    @Override
+    public void undo() throws IllegalStateException {
+        this.write(() -> {
+            this.store.undo();
+            return null;
+        });
+    }
+
+    @Override
+    public void undo(URI url) throws IllegalStateException {
+        this.write(() -> {
+            this.store.undo(url);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Document> search(String keyword) throws IOException {
+        return this.read(() -> this.store.search(keyword));
+    }
+
+    @Override
+    public List<Document> search(String keyword, int offset, int limit) throws IOException {
+        return this.read(() -> this.store.search(keyword, offset, limit));
+    }
+
+    @Override
+    public List<Document> search(String keyword, int offset, int limit, Ranking ranking) throws IOException {
+        return this.read(() -> this.store.search(keyword, offset, limit, ranking));
+    }
+
+    @Override
+    public List<Document> searchByPrefix(String keywordPrefix) throws IOException {
+        return this.read(() -> this.store.searchByPrefix(keywordPrefix));
+    }
+
+    @Override
+    public List<Document> searchByPrefix(String keywordPrefix, int offset, int limit) throws IOException {
+        return this.read(() -> this.store.searchByPrefix(keywordPrefix, offset, limit));
+    }
+
+    @Override
+    public List<Document> searchByPrefix(String keywordPrefix, int offset, int limit, Ranking ranking) throws IOException {
+        return this.read(() -> this.store.searchByPrefix(keywordPrefix, offset, limit, ranking));
+    }
+
+    @Override
+    public Set<URI> deleteAll(String keyword) {
+        return this.write(() -> this.store.deleteAll(keyword));
+    }
+
+    @Override
+    public Set<URI> deleteAllWithPrefix(String keywordPrefix) {
+        return this.write(() -> this.store.deleteAllWithPrefix(keywordPrefix));
+    }
+
+    @Override
+    public List<Document> searchByMetadata(Map<String, String> keysValues) throws IOException {
+        return this.read(() -> this.store.searchByMetadata(keysValues));
+    }
+
+    @Override
+    public List<Document> searchByMetadata(Map<String, String> keysValues, int offset, int limit) throws IOException {
+        return this.read(() -> this.store.searchByMetadata(keysValues, offset, limit));
+    }
+
+    @Override
+    public List<Document> searchByKeywordAndMetadata(String keyword, Map<String, String> keysValues) throws IOException {
+        return this.read(() -> this.store.searchByKeywordAndMetadata(keyword, keysValues));
+    }
+
+    @Override
+    public List<Document> searchByKeywordAndMetadata(String keyword, Map<String, String> keysValues, int offset, int limit) throws IOException {
+        return this.read(() -> this.store.searchByKeywordAndMetadata(keyword, keysValues, offset, limit));
+    }
+
+    @Override
+    public List<Document> searchByPrefixAndMetadata(String keywordPrefix, Map<String, String> keysValues) throws IOException {
+        return this.read(() -> this.store.searchByPrefixAndMetadata(keywordPrefix, keysValues));
+    }
+
+    @Override
+    public List<Document> searchByPrefixAndMetadata(String keywordPrefix, Map<String, String> keysValues, int offset, int limit) throws IOException {
+        return this.read(() -> this.store.searchByPrefixAndMetadata(keywordPrefix, keysValues, offset, limit));
+    }
+
+    @Override
+    public List<Document> searchQuery(Query query) throws IOException {
+        return this.read(() -> this.store.searchQuery(query));
+    }
+
+    @Override
+    public List<Document> searchQuery(Query query, int offset, int limit) throws IOException {
+        return this.read(() -> this.store.searchQuery(query, offset, limit));
+    }
+
+    @Override
+    public List<Document> searchQuery(Query query, int offset, int limit, Ranking ranking) throws IOException {
+        return this.read(() -> this.store.searchQuery(query, offset, limit, ranking));
+    }
+
+    @Override
+    public Set<URI> deleteAllWithMetadata(Map<String, String> keysValues) throws IOException {
+        return this.write(() -> this.store.deleteAllWithMetadata(keysValues));
+    }
+
+    @Override
+    public Set<URI> deleteAllWithKeywordAndMetadata(String keyword, Map<String, String> keysValues) throws IOException {
+        return this.write(() -> this.store.deleteAllWithKeywordAndMetadata(keyword, keysValues));
+    }
+
+    @Override
+    public Set<URI> deleteAllWithPrefixAndMetadata(String keywordPrefix, Map<String, String> keysValues) throws IOException {
+        return this.write(() -> this.store.deleteAllWithPrefixAndMetadata(keywordPrefix, keysValues));
+    }
+
+    @Override
+    public void setMaxDocumentCount(int limit) {
+        this.write(() -> {
+            this.store.setMaxDocumentCount(limit);
+            return null;
+        });
+    }
+
+    @Override
+    public void setMaxDocumentBytes(int limit) {
+        this.write(() -> {
+            this.store.setMaxDocumentBytes(limit);
+            return null;
+        });
+    }
+
+    /**
+     * @see DocumentStoreImpl#setQueryCacheSize(int)
+     */
+    public void setQueryCacheSize(int size) {
+        this.write(() -> {
+            this.store.setQueryCacheSize(size);
+            return null;
+        });
+    }
+
+    public long getQueryCacheHits() {
+        return this.store.getQueryCacheHits();
+    }
+
+    public long getQueryCacheMisses() {
+        return this.store.getQueryCacheMisses();
+    }
+}
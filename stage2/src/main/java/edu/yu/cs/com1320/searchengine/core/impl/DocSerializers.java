@@ -0,0 +1,77 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import com.google.gson.*;
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.text.TermCountMap;
+import jakarta.xml.bind.DatatypeConverter;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.HashMap;
+
+/**
+ * Gson adapter that writes a Document as JSON, shared by the persistence managers
+ */
+class DocSerializers implements JsonSerializer<Document>, JsonDeserializer <Document> {
+
+    @Override
+    public Document deserialize(JsonElement j, Type t, JsonDeserializationContext c) throws JsonParseException {
+        JsonObject jsonDoc = j.getAsJsonObject();
+        URI uri = URI.create(jsonDoc.get("uri").getAsString());
+        HashMap<String, String> metadata = new HashMap<>();
+        JsonObject metaMap = jsonDoc.get("metadata map").getAsJsonObject();
+        for (String s : metaMap.keySet()) {
+            JsonObject pair = metaMap.get(s).getAsJsonObject();
+            String key = pair.get("key").getAsString();
+            String val = pair.get("value").getAsString();
+            metadata.put(key, val);
+        }
+        Document doc;
+        if (jsonDoc.has("text")){
+            String text = jsonDoc.get("text").getAsString();
+            TermCountMap wordCounts = new TermCountMap();
+            JsonObject wordMap = jsonDoc.get("word count map").getAsJsonObject();
+            for (String s : wordMap.keySet()){
+                JsonObject pair = wordMap.get(s).getAsJsonObject();
+                String key = pair.get("word").getAsString();
+                int val = pair.get("number").getAsInt();
+                wordCounts.add(key, val);
+            }
+            doc = new DocumentImpl(uri, text, wordCounts.isEmpty() ? null : wordCounts);
+        } else {
+            byte[] bytes = DatatypeConverter.parseBase64Binary(jsonDoc.get("bytes").getAsString());
+            doc = new DocumentImpl(uri, bytes);
+        }
+        doc.setMetadata(metadata);
+        doc.setLastUseTime(System.nanoTime());
+        return doc;
+    }
+
+    @Override
+    public JsonElement serialize(Document d, Type t, JsonSerializationContext c) {
+        JsonObject j = new JsonObject();
+        j.addProperty("uri", d.getKey().toASCIIString());
+        JsonObject metadata = new JsonObject();
+        for (String s : d.getMetadata().keySet()){
+            JsonObject pair = new JsonObject();
+            pair.addProperty("key", s);
+            pair.addProperty("value", d.getMetadataValue(s));
+            metadata.add("metadata pair" + s, pair);
+        }
+        j.add("metadata map", metadata);
+        if (d.getDocumentTxt() != null){
+            j.addProperty("text", d.getDocumentTxt());
+            JsonObject wordCounts = new JsonObject();
+            TermCountMap.of(d.getWordMap()).forEachCount((s, count) -> {
+                JsonObject pair = new JsonObject();
+                pair.addProperty("word", s);
+                pair.addProperty("number", count);
+                wordCounts.add("word count " + s, pair);
+            });
+            j.add("word count map", wordCounts);
+        } else {
+            j.addProperty("bytes", DatatypeConverter.printBase64Binary(d.getDocumentBinaryData()));
+        }
+        return j;
+    }
+}
@@ -1,17 +1,22 @@
 package edu.yu.cs.com1320.searchengine.core.impl;
 
 import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.text.TermCountMap;
+import edu.yu.cs.com1320.searchengine.text.Tokenizer;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 public class DocumentImpl implements Document {
     private final URI uri;
     private String text;
     private byte[] binaryData;
+    //read-only view of the binary content, e.g. into a memory-mapped file; copied into binaryData only if asked for
+    private ByteBuffer binaryView;
     private HashMap<String, String> metadata;
     private long timeOfLastUse;
-    private HashMap<String, Integer> wordCounts;
+    private TermCountMap wordCounts;
 
     //throws a java.lang.IllegalArgumentException if either argument is
     //null or empty/blank
@@ -25,34 +30,14 @@ public class DocumentImpl implements Document {
         this.binaryData = null;
         this.metadata = new HashMap<>();
         if (wordCountMap != null) {
-            this.wordCounts = (HashMap<String, Integer>) wordCountMap;
+            this.wordCounts = TermCountMap.of(wordCountMap);
         } else {
             this.wordCtMapGenerator(text);
         }
     }
 
     private void wordCtMapGenerator(String txt) {
-        this.wordCounts = new HashMap<>();
-        String temp = "";
-        for (int c = 0; c < txt.length(); c++){
-            if (Character.isLetterOrDigit(txt.charAt(c))){
-                temp += txt.charAt(c);
-                if (c != txt.length()-1){
-                    continue;
-                }
-            }
-            if ((Character.isSpaceChar(txt.charAt(c)) || Character.isWhitespace(txt.charAt(c))
-                    || c == txt.length()-1)
-                    && !temp.isEmpty()) {
-                if (!this.wordCounts.containsKey(temp)){
-                    this.wordCounts.put(temp, 1);
-                } else {
-                    int newCount = this.wordCounts.get(temp) + 1;
-                    this.wordCounts.put(temp, newCount);
-                }
-                temp = "";
-            }
-        }
+        this.wordCounts = new Tokenizer().countTerms(txt);
     }
 
     public DocumentImpl(URI uri, byte[] binaryData) {
@@ -66,6 +51,23 @@ public class DocumentImpl implements Document {
         this.wordCounts = null;
     }
 
+    /**
+     * a binary document whose content stays in the given buffer, e.g. a slice of a memory-mapped file,
+     * instead of being copied onto the heap
+     * @param uri
+     * @param binaryView the content, from its position to its limit; the buffer itself is not modified
+     */
+    public DocumentImpl(URI uri, ByteBuffer binaryView) {
+        if (uri == null || uri.toString().isBlank() || binaryView == null || !binaryView.hasRemaining()){
+            throw new IllegalArgumentException("Invalid Image Parameter(s)");
+        }
+        this.uri = uri;
+        this.text = null;
+        this.binaryView = binaryView.slice().asReadOnlyBuffer();
+        this.metadata = new HashMap<>();
+        this.wordCounts = null;
+    }
+
     /**
      * @param key   key of document metadata to store a value for
      * @param value value to store
@@ -123,9 +125,25 @@ public class DocumentImpl implements Document {
      */
     @Override
     public byte[] getDocumentBinaryData() {
+        if (this.binaryData == null && this.binaryView != null){
+            this.binaryData = new byte[this.binaryView.remaining()];
+            this.binaryView.duplicate().get(this.binaryData);
+            this.binaryView = null;
+        }
         return this.binaryData;
     }
 
+    /**
+     * @return read-only view of the content of a binary document, without copying it, or null for a text document
+     */
+    @Override
+    public ByteBuffer getDocumentBinaryView() {
+        if (this.binaryView != null){
+            return this.binaryView.duplicate();
+        }
+        return this.binaryData == null ? null : ByteBuffer.wrap(this.binaryData).asReadOnlyBuffer();
+    }
+
     /**
      * @return URI which uniquely identifies this document
      */
@@ -145,16 +163,7 @@ public class DocumentImpl implements Document {
         if (this.text == null){
             return 0;
         }
-        String checker = "";
-        for (int c = 0; c < word.length(); c++){
-            if (Character.isLetterOrDigit(word.charAt(c))){
-                checker += word.charAt(c);
-            }
-        }
-        if (this.wordCounts.containsKey(checker)){
-            return this.wordCounts.get(checker);
-        }
-        return 0;
+        return this.wordCounts.count(Tokenizer.normalize(word));
     }
 
     /**
@@ -162,7 +171,7 @@ public class DocumentImpl implements Document {
      */
     @Override
     public Set<String> getWords() {
-        if (this.binaryData == null){
+        if (this.text != null){
             return this.wordCounts.keySet();
         }
         return Collections.emptySet();
@@ -182,11 +191,11 @@ public class DocumentImpl implements Document {
     }
 
     /**
-     * @return a COPY of the word to count map so it can be serialized
+     * @return a read-only view of the word to count map, e.g. so it can be serialized; empty for a binary document
      */
     @Override
-    public HashMap<String, Integer> getWordMap() {
-        return new HashMap<>(this.wordCounts);
+    public Map<String, Integer> getWordMap() {
+        return this.wordCounts == null ? Collections.emptyMap() : this.wordCounts;
     }
 
     /**
@@ -195,13 +204,13 @@ public class DocumentImpl implements Document {
      * @param wordMap
      */
     @Override
-    public void setWordMap(HashMap<String, Integer> wordMap) {
-        if (this.binaryData != null && wordMap != null && !wordMap.isEmpty()){
+    public void setWordMap(Map<String, Integer> wordMap) {
+        if (this.text == null && wordMap != null && !wordMap.isEmpty()){
             throw new IllegalArgumentException("Binary docs have no words");
         } else if (this.text == null) {
             this.wordCounts = null;
         } else {
-            this.wordCounts = wordMap;
+            this.wordCounts = TermCountMap.of(wordMap);
         }
     }
 
@@ -209,7 +218,17 @@ public class DocumentImpl implements Document {
     public int hashCode() {
         int result = uri.hashCode();
         result = 31 * result + (text != null ? text.hashCode() : 0);
-        result = 31 * result + Arrays.hashCode(binaryData);
+        ByteBuffer view = this.getDocumentBinaryView();
+        if (view == null){
+            result = 31 * result;
+        } else {
+            //same as Arrays.hashCode(getDocumentBinaryData()) without copying a view
+            int contentHash = 1;
+            while (view.hasRemaining()){
+                contentHash = 31 * contentHash + view.get();
+            }
+            result = 31 * result + contentHash;
+        }
         return Math.abs(result);
     }
 
@@ -1,34 +1,90 @@
 package edu.yu.cs.com1320.searchengine.core.impl;
 
 import edu.yu.cs.com1320.searchengine.datastructures.impl.BTreeImpl;
-import edu.yu.cs.com1320.searchengine.datastructures.impl.MinHeapImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.ClockEvictionPolicy;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.LruEvictionPolicy;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.RadixTrieImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.ReadBuffer;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.RoaringBitmap;
 import edu.yu.cs.com1320.searchengine.datastructures.impl.StackImpl;
-import edu.yu.cs.com1320.searchengine.datastructures.impl.TrieImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.WTinyLfuEvictionPolicy;
+import edu.yu.cs.com1320.searchengine.datastructures.BTree;
+import edu.yu.cs.com1320.searchengine.datastructures.EvictionPolicy;
 import edu.yu.cs.com1320.searchengine.core.Document;
 import edu.yu.cs.com1320.searchengine.core.DocumentStore;
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
+import edu.yu.cs.com1320.searchengine.core.Query;
+import edu.yu.cs.com1320.searchengine.text.TermCountMap;
+import edu.yu.cs.com1320.searchengine.text.TermDictionary;
+import edu.yu.cs.com1320.searchengine.text.TermIdCounts;
+import edu.yu.cs.com1320.searchengine.text.Tokenizer;
 import edu.yu.cs.com1320.searchengine.undo.Command;
 import edu.yu.cs.com1320.searchengine.undo.CommandSet;
 import edu.yu.cs.com1320.searchengine.undo.Undoable;
 
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.Stream;
 
 public class DocumentStoreImpl implements DocumentStore {
-    private BTreeImpl<URI, Document> docs;
+    private BTree<URI, Document> docs;
+    private PersistenceManager<URI, Document> persistence;
     private StackImpl<Undoable> actions;
-    private TrieImpl<DocGetter> wordTrie;
-    private MinHeapImpl<DocGetter> usageHeap;
+    //every word that is in at least one document, mapped to its term id
+    private RadixTrieImpl<Integer> wordTrie;
+    private TermDictionary terms;
+    //the ids of the documents each word is in, indexed by term id; null for a word no document has any more
+    private ArrayList<RoaringBitmap> postings;
+    private EvictionPolicy<DocGetter> usageTracker;
     private HashMap<URI, DocGetter> placeholders;
+    //metadata key -> value -> the ids of the documents with that pair
+    private HashMap<String, HashMap<String, RoaringBitmap>> metadataIndex;
+    //every document in the store, indexed by its id; null for a free id
+    private ArrayList<DocGetter> dogsById;
+    //ids of deleted documents, handed out again before new ones so the ids stay dense
+    private ArrayDeque<Integer> freeIds;
+    //the ids in use, which is what a NOT clause is taken out of
+    private RoaringBitmap liveIds;
+    private QueryCache queryCache;
+    //set by ConcurrentDocumentStoreImpl while other threads may be reading the store at the same time
+    private boolean sharedReads;
+    private ReadBuffer<Use> uses;
+    //text documents in the store and their total number of words, for BM25's average document length
+    private int textDocCt;
+    private long textWordCt;
     private int maxDocCt;
-    private int maxByteCt;
+    //volatile so ConcurrentDocumentStoreImpl can check inputs against it before it takes the lock
+    private volatile int maxByteCt;
+    //running totals for the documents currently in memory
+    private int memoryDocCt;
+    private long memoryByteCt;
 
     private class DocGetter implements Comparable<DocGetter> {
         private final URI uri;
+        //the document's bit in the postings and metadata bitmaps
+        private int id;
         private boolean isInMemory;
-        private HashMap<String, Integer> wordMap;
+        //size of the document's content, counted as its input was read or else computed once when it is stored
+        private int byteCount;
+        //word counts keyed by term id, kept while the document is on disk; null for a binary document
+        private TermIdCounts termCounts;
+        //how many words the document has, for BM25
+        private int length;
         private HashMap<String, String> metadata;
         private DocGetter(URI uri){
             this.uri = uri;
@@ -41,8 +97,143 @@ public class DocumentStoreImpl implements DocumentStore {
         public int compareTo(DocGetter dog) {
             return this.getDoc().compareTo(dog.getDoc());
         }
+        //equality stays identity; hashing by URI lets frequency-based eviction remember a URI across re-puts
+        @Override
+        public int hashCode() {
+            return this.uri.hashCode();
+        }
+    }
+
+    /**
+     * A document and its score for a search, made while the search's matches are ranked.
+     */
+    private static class Posting {
+        private final DocGetter dog;
+        private final double score;
+        private Posting(DocGetter dog, double score){
+            this.dog = dog;
+            this.score = score;
+        }
+    }
+
+    /**
+     * What a search matched: the ids of the documents, and each one's score under the search's Ranking, by id.
+     * The bitmap may be one of the store's own, so it is only read.
+     */
+    private static class Matches {
+        private final RoaringBitmap docs;
+        private final IntToDoubleFunction score;
+        private Matches(RoaringBitmap docs, IntToDoubleFunction score){
+            this.docs = docs;
+            this.score = score;
+        }
+        private Matches and(RoaringBitmap filter){
+            return new Matches(this.docs.and(filter), this.score);
+        }
+    }
+
+    //BM25's term frequency saturation and document length normalization
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    private static final int DEFAULT_QUERY_CACHE_SIZE = 1024;
+
+    private enum SearchType {WORD, PREFIX, METADATA, QUERY}
+
+    /**
+     * what a search was asked for; two equal keys always have the same results until the index changes
+     */
+    private record SearchKey(SearchType type, Object argument, Map<String, String> keysValues, Ranking ranking) {}
+
+    private interface Search {
+        Matches run() throws IOException;
+    }
+
+    private record Use(DocGetter dog, Document doc, long time) {}
+
+    private static final int USE_BUFFER_SIZE = 1 << 16;
+    //chars of text decoded and tokenized at a time when a document is put
+    private static final int READ_CHUNK = 8192;
+    private static final int USE_DRAIN_THRESHOLD = 256;
+    //threads that read the inputs of putAll batches, shared by every store; reading mostly waits on the inputs
+    private static final ExecutorService BATCH_READERS = Executors.newFixedThreadPool(
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "batch-reader");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Thrown by a shared read that needs a document on disk, since reading it back changes the store.
+     * ConcurrentDocumentStoreImpl then does the read again with the store to itself.
+     */
+    static final class ExclusiveAccessNeeded extends RuntimeException {
+        private static final ExclusiveAccessNeeded INSTANCE = new ExclusiveAccessNeeded();
+        private ExclusiveAccessNeeded() {
+            super("Document is on disk", null, false, false);
+        }
     }
 
+    /**
+     * Passes an input through, counting the bytes read from it, until more than limit bytes have been read,
+     * then throws the IllegalArgumentException for a document that is too big. A limit of 0 is no limit.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private LimitedInputStream(InputStream in, int limit) {
+            super(in);
+            this.limit = limit == 0 ? Long.MAX_VALUE : limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                this.count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long n) {
+            this.count += n;
+            if (this.count > this.limit) {
+                throw new IllegalArgumentException("File is too big");
+            }
+        }
+
+        private int byteCount() {
+            return (int) Math.min(this.count, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * A document just made from its input, with the number of bytes read from the input,
+     * so its size doesn't have to be worked out again from its content.
+     */
+    record ReadDocument(Document doc, int byteCount) {}
+
     /*The two document formats supported by this document store.
       Note that TXT means plain text, i.e. a String.
 
@@ -50,26 +241,95 @@ public class DocumentStoreImpl implements DocumentStore {
         TXT, BINARY
     }*/
 
+    /**
+     * how the store picks which documents to move to disk when it is over its limits
+     */
+    public enum EvictionStrategy {
+        /** least recently used first */
+        LRU,
+        /** second chance: documents used since the last sweep are skipped once */
+        CLOCK,
+        /** small LRU window in front of a frequency-filtered segmented LRU; resists scans */
+        W_TINY_LFU
+    }
+
     public DocumentStoreImpl(){
-        this.docs = new BTreeImpl<>();
-        this.docs.setPersistenceManager(new DocumentPersistenceManager(null));
-        this.actions = new StackImpl<>();
-        this.wordTrie = new TrieImpl<>();
-        this.usageHeap = new MinHeapImpl<>();
-        this.maxDocCt = 0;
-        this.maxByteCt = 0;
-        this.placeholders = new HashMap<>();
+        this(null, EvictionStrategy.LRU);
     }
 
     public DocumentStoreImpl(File baseDir){
-        this.docs = new BTreeImpl<>();
-        this.docs.setPersistenceManager(new DocumentPersistenceManager(baseDir));
+        this(baseDir, EvictionStrategy.LRU);
+    }
+
+    public DocumentStoreImpl(File baseDir, EvictionStrategy eviction){
+        this(baseDir, eviction, new BTreeImpl<>());
+    }
+
+    /**
+     * @param baseDir where documents moved out of memory are written; the working directory if null
+     * @param eviction
+     * @param index the tree that maps URIs to documents, e.g. a BPlusTreeImpl; must be empty.
+     *              Its persistence manager is replaced with one writing to baseDir.
+     */
+    public DocumentStoreImpl(File baseDir, EvictionStrategy eviction, BTree<URI, Document> index){
+        if (eviction == null){
+            throw new IllegalArgumentException("Invalid Eviction Strategy");
+        }
+        if (index == null){
+            throw new IllegalArgumentException("Invalid Index");
+        }
+        this.docs = index;
+        this.persistence = new DocumentPersistenceManager(baseDir);
+        this.docs.setPersistenceManager(this.persistence);
         this.actions = new StackImpl<>();
-        this.wordTrie = new TrieImpl<>();
-        this.usageHeap = new MinHeapImpl<>();
+        this.wordTrie = new RadixTrieImpl<>();
+        this.terms = new TermDictionary();
+        this.postings = new ArrayList<>();
+        this.usageTracker = switch (eviction) {
+            case LRU -> new LruEvictionPolicy<>();
+            case CLOCK -> new ClockEvictionPolicy<>();
+            case W_TINY_LFU -> new WTinyLfuEvictionPolicy<>();
+        };
         this.maxDocCt = 0;
         this.maxByteCt = 0;
+        this.memoryDocCt = 0;
+        this.memoryByteCt = 0;
         this.placeholders = new HashMap<>();
+        this.metadataIndex = new HashMap<>();
+        this.dogsById = new ArrayList<>();
+        this.freeIds = new ArrayDeque<>();
+        this.liveIds = new RoaringBitmap();
+        this.queryCache = new QueryCache(DEFAULT_QUERY_CACHE_SIZE);
+        this.uses = new ReadBuffer<>(USE_BUFFER_SIZE, USE_DRAIN_THRESHOLD, this::useApplier);
+    }
+
+    /**
+     * While reads are shared, several threads may be reading the store at once, and none changing it:
+     * reads only look at documents in memory, throwing ExclusiveAccessNeeded if they need one on disk, and their uses
+     * of documents are buffered instead of going straight to the eviction policy.
+     * Only for ConcurrentDocumentStoreImpl, which switches it off around everything that changes the store.
+     */
+    void setSharedReads(boolean shared) {
+        this.sharedReads = shared;
+    }
+
+    /**
+     * apply the buffered uses of documents; nothing may change the store meanwhile
+     */
+    void drainUses() {
+        this.uses.drain();
+    }
+
+    //the store hasn't changed since the use: every change drains the buffer first
+    private void useApplier(Use use) {
+        use.doc().setLastUseTime(use.time());
+        this.usageTracker.recordAccess(use.dog());
+    }
+
+    private void sharedReadChecker(DocGetter dog) {
+        if (this.sharedReads && dog != null && !dog.isInMemory){
+            throw ExclusiveAccessNeeded.INSTANCE;
+        }
     }
 
     private void memoryChecker () throws IOException {
@@ -81,42 +341,33 @@ public class DocumentStoreImpl implements DocumentStore {
         if (this.maxByteCt == 0){
             return;
         }
-        int totalBytesUsed = 0;
-        for (DocGetter dog : this.placeholders.values()){
-            if (dog.isInMemory) {
-                totalBytesUsed += this.getDocBytes(dog.getDoc()).length;
-            }
+        while (this.memoryByteCt > this.maxByteCt) {
+            this.evictOldest();
         }
-        if (totalBytesUsed <= this.maxByteCt){
-            return;
-        }
-        do {
-            DocGetter oldest = this.usageHeap.remove();
-            oldest.isInMemory = false;
-            totalBytesUsed -= getDocBytes(oldest.getDoc()).length;
-            this.docs.moveToDisk(oldest.uri);
-        } while (totalBytesUsed > this.maxByteCt);
     }
 
     private void docChecker() throws IOException{
         if (this.maxDocCt == 0){
             return;
         }
-        int curDocCt = 0;
-        for (DocGetter dog : this.placeholders.values()){
-            if (dog.isInMemory) {
-                curDocCt++;
-            }
-        }
-        if (curDocCt <= this.maxDocCt){
-            return;
+        while (this.memoryDocCt > this.maxDocCt) {
+            this.evictOldest();
         }
-        do {
-            DocGetter oldest = this.usageHeap.remove();
-            oldest.isInMemory = false;
-            curDocCt--;
-            this.docs.moveToDisk(oldest.uri);
-        } while (curDocCt > this.maxDocCt);
+    }
+
+    private void evictOldest() throws IOException {
+        DocGetter oldest = this.usageTracker.evict();
+        this.memoryRemover(oldest);
+        this.docs.moveToDisk(oldest.uri);
+    }
+
+    /**
+     * take the document out of the in-memory totals; the caller takes it out of the usage tracker
+     */
+    private void memoryRemover(DocGetter dog) {
+        dog.isInMemory = false;
+        this.memoryDocCt--;
+        this.memoryByteCt -= dog.byteCount;
     }
 
     /**
@@ -142,40 +393,69 @@ public class DocumentStoreImpl implements DocumentStore {
         String old = doc.setMetadataValue(key, value);
         DocGetter dog = this.placeholders.get(uri);
         dog.metadata.put(key, value);
+        this.metadataRemover(dog, key, old);
+        this.metadataAdder(dog, key, value);
         this.singleDocUsageUpdater(doc);
         this.actions.push(new Command<>(uri, u2 -> {
             Document returningDoc = this.docs.get(uri);
             if (!dog.isInMemory){
                 try {
-                    this.memoryPutter(returningDoc, dog);
+                    this.memoryPutter(dog);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
             }
             returningDoc.setMetadataValue(key, old);
             dog.metadata.put(key, old);
+            this.metadataRemover(dog, key, value);
+            this.metadataAdder(dog, key, old);
         }));
         return old;
     }
 
     private void singleDocUsageUpdater(Document doc) throws IOException {
-        doc.setLastUseTime(System.nanoTime());
         URI key = doc.getKey();
         DocGetter dog = this.placeholders.get(key);
+        if (this.sharedReads){
+            this.uses.record(new Use(dog, doc, System.nanoTime()));
+            return;
+        }
+        doc.setLastUseTime(System.nanoTime());
         if (dog.isInMemory){
-            this.usageHeap.reHeapify(dog);
+            this.usageTracker.recordAccess(dog);
         } else {
-            this.memoryPutter(doc, dog);
+            this.reloadPutter(dog, doc);
         }
     }
 
-    private void memoryPutter(Document doc, DocGetter dog) throws IOException {
-        this.bytesHugeDetector(this.getDocBytes(doc));
-        this.usageHeap.insert(dog);
-        dog.isInMemory = true;
+    /**
+     * the document was just read back from disk; count it in memory again, and have its word map use the
+     * dictionary's strings instead of the ones it was decoded with. The counts by term id stayed with the
+     * DocGetter while the document was on disk, so they aren't rebuilt.
+     */
+    private void reloadPutter(DocGetter dog, Document doc) throws IOException {
+        if (dog.termCounts != null && doc.getWordMap() instanceof TermCountMap wordCounts){
+            wordCounts.internTerms(this.terms);
+        }
+        this.memoryPutter(dog);
+    }
+
+    private void memoryPutter(DocGetter dog) throws IOException {
+        this.memoryAdder(dog);
         this.memoryChecker();
     }
 
+    /**
+     * count the document in memory without moving anything to disk yet
+     */
+    private void memoryAdder(DocGetter dog) {
+        this.bytesHugeDetector(dog.byteCount);
+        this.usageTracker.add(dog);
+        dog.isInMemory = true;
+        this.memoryDocCt++;
+        this.memoryByteCt += dog.byteCount;
+    }
+
     /**
      * get the value corresponding to the given metadata key for the document at the given uri
      *
@@ -189,6 +469,7 @@ public class DocumentStoreImpl implements DocumentStore {
         if (uri == null || uri.toString().isBlank()){
             throw new IllegalArgumentException("Invalid URI");
         }
+        this.sharedReadChecker(this.placeholders.get(uri));
         Document doc = this.docs.get(uri);
         if (doc == null){
             throw new IllegalArgumentException("Invalid URI");
@@ -215,37 +496,211 @@ public class DocumentStoreImpl implements DocumentStore {
         }
         int oldHashCode;
         if (input != null) {
-            byte[] in = input.readAllBytes();
-            input.close();
-            this.bytesHugeDetector(in);
-            //Is it a text doc or a binary data doc?
-            Document newDoc;
-            if (format == DocumentFormat.TXT) {
-                newDoc = new DocumentImpl(url, new String(in), null);
-            } else {
-                newDoc = new DocumentImpl(url, in);
-            }
-            oldHashCode = putPutter(url, newDoc);
+            oldHashCode = this.putPutter(url, this.documentMaker(input, url, format));
         } else {
             oldHashCode = deleter(url);
         }
         return oldHashCode;
     }
 
-    private int putPutter (URI uri, Document newDoc) throws IOException {
-        Document old = this.storeDeleter(uri, newDoc);
-        this.storePutter(newDoc);
-        this.actions.push(new Command<>(uri, u2 -> {
-            if (this.maxByteCt == 0 || this.getDocBytes(old).length <= this.maxByteCt) {
+    /**
+     * Read the input and make its document; the text is tokenized here, so documents can be made in parallel.
+     * Reading stops with an IllegalArgumentException as soon as the input is larger than the maximum number of
+     * bytes, rather than after all of it is on the heap, and the bytes read are counted on the way, so the text
+     * isn't encoded again to find its size. Text is decoded and tokenized a chunk at a time as it is read, so it
+     * isn't scanned a second time to count its words. Each chunk is kept as a String and they are joined once at
+     * the end, so at most the text is on the heap twice, in its chunks and in the String made from them, without
+     * a buffer being copied while it grows. Nothing is written to disk until the document is put.
+     * Package-private so ConcurrentDocumentStoreImpl can make a document before it takes the lock.
+     */
+    ReadDocument documentMaker(InputStream input, URI url, DocumentFormat format) throws IOException {
+        try (LimitedInputStream in = new LimitedInputStream(input, this.maxByteCt)) {
+            //Is it a text doc or a binary data doc?
+            if (format != DocumentFormat.TXT) {
+                byte[] bytes = in.readAllBytes();
+                return new ReadDocument(new DocumentImpl(url, bytes), bytes.length);
+            }
+            List<String> text = new ArrayList<>();
+            TermCountMap counts = new TermCountMap();
+            Tokenizer tokenizer = new Tokenizer();
+            //the default charset, as new String(byte[]) and String.getBytes() use
+            Reader reader = new InputStreamReader(in);
+            char[] chunk = new char[READ_CHUNK];
+            for (int n = reader.read(chunk); n != -1; n = reader.read(chunk)) {
+                text.add(new String(chunk, 0, n));
+                tokenizer.tokenize(chunk, 0, n, counts::increment);
+            }
+            tokenizer.finish(counts::increment);
+            String txt = text.size() == 1 ? text.get(0) : String.join("", text);
+            return new ReadDocument(new DocumentImpl(url, txt, counts.isEmpty() ? null : counts), in.byteCount());
+        }
+    }
+
+    /**
+     * close the inputs of a batch that failed, some of which may never have been read, and rethrow its failure
+     */
+    private void inputsCloser(Collection<InputStream> inputs, Exception failure) throws IOException {
+        for (InputStream input : inputs) {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        throw (RuntimeException) failure;
+    }
+
+    /**
+     * Put a document already read, with its undo command. Package-private so ConcurrentDocumentStoreImpl can put
+     * a document it made before taking the lock.
+     * @throws IllegalArgumentException if the document is larger than the maximum number of bytes
+     */
+    int putPutter (URI uri, ReadDocument read) throws IOException {
+        //the limit may have been lowered since the input was read, so it's checked before anything changes
+        this.bytesHugeDetector(read.byteCount());
+        int oldByteCount = this.byteCounter(uri);
+        Document old = this.storeDeleter(uri, read.doc());
+        this.storePutter(read.doc(), read.byteCount());
+        this.actions.push(this.putUndoer(uri, old, oldByteCount));
+        return (old == null) ? 0 : old.hashCode();
+    }
+
+    /**
+     * @return how many bytes the document at uri was counted as when it was stored, 0 if there is none
+     */
+    private int byteCounter(URI uri) {
+        DocGetter dog = this.placeholders.get(uri);
+        return dog == null ? 0 : dog.byteCount;
+    }
+
+    /**
+     * @return a command that puts back old, or takes away the document at uri if old is null
+     */
+    private Command<URI> putUndoer(URI uri, Document old, int oldByteCount) {
+        return new Command<>(uri, u2 -> {
+            if (this.maxByteCt == 0 || oldByteCount <= this.maxByteCt) {
                 this.storeDeleter(u2, old);
                 try {
-                    this.storePutter(old);
+                    this.storePutter(old, oldByteCount);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
             }
-        }));
-        return (old == null) ? 0 : old.hashCode();
+        });
+    }
+
+    /**
+     * Put many documents at once. First every input is read and its text tokenized, in parallel on threads kept for
+     * reading batches; if any of them fails, the inputs not started yet are skipped, and nothing is put. Every input
+     * is closed either way, once no thread is reading it. Then every document is checked against the maximum number
+     * of bytes before any is put, the documents are indexed one after the other, and only once they all are are
+     * documents moved to disk to get back under the limits. The whole batch is one CommandSet on the undo stack.
+     *
+     * @param inputs each document's URI and the document being put; a null InputStream is a delete, as in put
+     * @param format the format of all the documents
+     * @return each URI, in the order of inputs, with what put would have returned for it
+     * @throws IOException if there is an issue reading an input; then none of the documents are put
+     * @throws IllegalArgumentException if inputs, a URI or format is null,
+     * or a document is larger than the maximum number of bytes
+     */
+    @Override
+    public Map<URI, Integer> putAll(Map<URI, InputStream> inputs, DocumentFormat format) throws IOException {
+        if (inputs == null || format == null) {
+            throw new IllegalArgumentException("Invalid File");
+        }
+        List<URI> uris = new ArrayList<>(inputs.keySet());
+        if (uris.contains(null)) {
+            throw new IllegalArgumentException("Invalid File");
+        }
+        return this.batchPutter(uris, this.batchReader(uris, inputs, format));
+    }
+
+    /**
+     * Read the inputs of a batch on BATCH_READERS, which wait on the inputs instead of the common fork-join pool;
+     * a null input is a null document. Package-private so ConcurrentDocumentStoreImpl can read a batch before it
+     * takes the lock.
+     * @return the document read for each URI, in the order of uris
+     */
+    List<ReadDocument> batchReader(List<URI> uris, Map<URI, InputStream> inputs, DocumentFormat format)
+            throws IOException {
+        //a failure is kept rather than thrown, so the batch doesn't end while other threads are still reading
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Callable<ReadDocument>> reads = new ArrayList<>(uris.size());
+        for (URI uri : uris) {
+            InputStream input = inputs.get(uri);
+            reads.add(() -> {
+                if (input == null || failure.get() != null) {
+                    return null;
+                }
+                try {
+                    return this.documentMaker(input, uri, format);
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    return null;
+                }
+            });
+        }
+        List<ReadDocument> newDocs = new ArrayList<>(uris.size());
+        try {
+            for (Future<ReadDocument> read : BATCH_READERS.invokeAll(reads)) {
+                newDocs.add(read.get());
+            }
+        } catch (InterruptedException e) {
+            //invokeAll cancelled the reads still running
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new InterruptedIOException("Interrupted while reading the batch"));
+        } catch (ExecutionException e) {
+            //only an Error gets past a read
+            throw (Error) e.getCause();
+        }
+        if (failure.get() != null) {
+            this.inputsCloser(inputs.values(), failure.get());
+        }
+        return newDocs;
+    }
+
+    /**
+     * Put the documents read for a batch, a null document being a delete, as one CommandSet.
+     * Package-private so ConcurrentDocumentStoreImpl can put a batch it read before taking the lock.
+     * @throws IllegalArgumentException if a document is larger than the maximum number of bytes; then none are put
+     */
+    Map<URI, Integer> batchPutter(List<URI> uris, List<ReadDocument> newDocs) throws IOException {
+        //the limit may have been lowered since the inputs were read, so they're all checked before anything changes
+        for (ReadDocument read : newDocs) {
+            if (read != null) {
+                this.bytesHugeDetector(read.byteCount());
+            }
+        }
+        Map<URI, Integer> oldHashCodes = new LinkedHashMap<>();
+        CommandSet<URI> puts = new CommandSet<>();
+        try {
+            for (int i = 0; i < uris.size(); i++) {
+                URI uri = uris.get(i);
+                ReadDocument read = newDocs.get(i);
+                Document newDoc = read == null ? null : read.doc();
+                int oldByteCount = this.byteCounter(uri);
+                Document old = this.storeDeleter(uri, newDoc);
+                if (newDoc != null) {
+                    this.memoryAdder(this.storeIndexer(newDoc, read.byteCount()));
+                }
+                if (old != null || newDoc != null) {
+                    puts.addCommand(this.putUndoer(uri, old, oldByteCount));
+                }
+                oldHashCodes.put(uri, old == null ? 0 : old.hashCode());
+            }
+        } finally {
+            //whatever of the batch was put can be undone, even if it stopped partway
+            if (puts.size() > 0) {
+                this.actions.push(puts);
+            }
+        }
+        this.memoryChecker();
+        return oldHashCodes;
     }
 
     private Document storeDeleter(URI uri, Document newDoc){
@@ -257,42 +712,504 @@ public class DocumentStoreImpl implements DocumentStore {
             return this.docs.put(uri, newDoc);
         }
         DocGetter dog = this.placeholders.remove(uri);
-        for (String s : old.getWords()){
-            this.wordTrie.delete(s, dog);
-        }
+        this.wordRemover(dog);
+        this.metadataUnindexer(dog);
+        this.idReleaser(dog);
         if (dog.isInMemory){
-            old.setLastUseTime(0);
-            this.usageHeap.reHeapify(dog);
-            this.usageHeap.remove();
+            this.usageTracker.remove(dog);
+            this.memoryRemover(dog);
         }
         return this.docs.put(uri, newDoc);
     }
 
-    private void storePutter(Document newDoc) throws IOException {
+    private void storePutter(Document newDoc, int byteCount) throws IOException {
         if (newDoc == null){
             return;
         }
-        DocGetter dog = new DocGetter(newDoc.getKey());
-        for (String s : newDoc.getWords()){
-            this.wordTrie.put(s, dog);
-        }
+        this.memoryPutter(this.storeIndexer(newDoc, byteCount));
+    }
+
+    /**
+     * index a document that was just put in the tree; the caller counts it in memory
+     */
+    private DocGetter storeIndexer(Document newDoc, int byteCount) {
+        DocGetter dog = this.dogMaker(newDoc, byteCount);
+        this.idAssigner(dog);
+        this.wordIndexer(dog);
+        this.metadataIndexer(dog);
         this.placeholders.put(newDoc.getKey(), dog);
         newDoc.setLastUseTime(System.nanoTime());
-        this.memoryPutter(newDoc, dog);
-        if (newDoc.getDocumentTxt() != null) {
-            dog.wordMap = newDoc.getWordMap();
+        return dog;
+    }
+
+    private DocGetter dogMaker(Document doc, int byteCount) {
+        DocGetter dog = new DocGetter(doc.getKey());
+        dog.byteCount = byteCount;
+        if (doc.getDocumentTxt() != null) {
+            dog.termCounts = TermCountMap.of(doc.getWordMap()).intern(this.terms);
+        }
+        dog.metadata = doc.getMetadata();
+        return dog;
+    }
+
+    private void idAssigner(DocGetter dog) {
+        if (this.freeIds.isEmpty()){
+            dog.id = this.dogsById.size();
+            this.dogsById.add(dog);
+        } else {
+            dog.id = this.freeIds.pop();
+            this.dogsById.set(dog.id, dog);
+        }
+        this.liveIds.add(dog.id);
+        this.queryCache.documentsChanged();
+    }
+
+    private void idReleaser(DocGetter dog) {
+        this.dogsById.set(dog.id, null);
+        this.freeIds.push(dog.id);
+        this.liveIds.remove(dog.id);
+        this.queryCache.documentsChanged();
+    }
+
+    private void wordIndexer(DocGetter dog) {
+        if (dog.termCounts == null){
+            return;
+        }
+        dog.length = 0;
+        for (int i = 0; i < dog.termCounts.size(); i++){
+            dog.length += dog.termCounts.countAt(i);
+        }
+        this.textDocCt++;
+        this.textWordCt += dog.length;
+        for (int i = 0; i < dog.termCounts.size(); i++){
+            int id = dog.termCounts.idAt(i);
+            while (this.postings.size() <= id){
+                this.postings.add(null);
+            }
+            RoaringBitmap docs = this.postings.get(id);
+            if (docs == null){
+                docs = new RoaringBitmap();
+                this.postings.set(id, docs);
+                this.wordTrie.put(this.terms.term(id), id);
+            }
+            docs.add(dog.id);
+            this.queryCache.termChanged(this.terms.term(id));
+        }
+    }
+
+    private void wordRemover(DocGetter dog) {
+        if (dog.termCounts == null){
+            return;
+        }
+        this.textDocCt--;
+        this.textWordCt -= dog.length;
+        for (int i = 0; i < dog.termCounts.size(); i++){
+            int id = dog.termCounts.idAt(i);
+            String term = this.terms.term(id);
+            RoaringBitmap docs = this.postings.get(id);
+            docs.remove(dog.id);
+            if (docs.isEmpty()){
+                //no document has the term any more, so its id goes to the next new term
+                this.postings.set(id, null);
+                this.wordTrie.delete(term, id);
+                this.terms.release(id);
+            }
+            this.queryCache.termChanged(term);
+        }
+    }
+
+    private void metadataIndexer(DocGetter dog) {
+        for (Map.Entry<String, String> entry : dog.metadata.entrySet()){
+            this.metadataAdder(dog, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void metadataUnindexer(DocGetter dog) {
+        for (Map.Entry<String, String> entry : dog.metadata.entrySet()){
+            this.metadataRemover(dog, entry.getKey(), entry.getValue());
         }
-        dog.metadata = newDoc.getMetadata();
+    }
+
+    //a null value means the document doesn't have the key, so it isn't indexed
+    private void metadataAdder(DocGetter dog, String key, String value) {
+        if (value != null){
+            this.metadataIndex.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(value, v -> new RoaringBitmap()).add(dog.id);
+            this.queryCache.pairChanged(key, value);
+        }
+    }
+
+    private void metadataRemover(DocGetter dog, String key, String value) {
+        HashMap<String, RoaringBitmap> values = value == null ? null : this.metadataIndex.get(key);
+        if (values == null){
+            return;
+        }
+        RoaringBitmap docs = values.get(value);
+        if (docs == null){
+            return;
+        }
+        docs.remove(dog.id);
+        this.queryCache.pairChanged(key, value);
+        if (docs.isEmpty()){
+            values.remove(value);
+            if (values.isEmpty()){
+                this.metadataIndex.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Looks up each pair's bitmap in the metadata index and ANDs them, smallest first,
+     * so the work is bounded by the rarest pair instead of the number of documents in the store.
+     * @return the ids of the documents that have all of the given key-value pairs
+     */
+    private RoaringBitmap metadataDocs(Map<String, String> keysValues) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(keysValues.size());
+        for (Map.Entry<String, String> entry : keysValues.entrySet()){
+            HashMap<String, RoaringBitmap> values = this.metadataIndex.get(entry.getKey());
+            RoaringBitmap docs = values == null || entry.getValue() == null ? null : values.get(entry.getValue());
+            if (docs == null){
+                return new RoaringBitmap();
+            }
+            bitmaps.add(docs);
+        }
+        bitmaps.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+        RoaringBitmap matches = bitmaps.get(0).copy();
+        for (int i = 1; i < bitmaps.size() && !matches.isEmpty(); i++){
+            matches = matches.and(bitmaps.get(i));
+        }
+        return matches;
+    }
+
+    /**
+     * @param termFrequency how many times the term appears in the document
+     * @param docFrequency how many documents have the term
+     * @return the count itself, or the term's BM25 weight in the document; everything it needs is kept in the index
+     */
+    private double termScore(Ranking ranking, int termFrequency, int docFrequency, DocGetter dog) {
+        if (ranking == Ranking.COUNT){
+            return termFrequency;
+        }
+        double idf = Math.log(1 + (this.textDocCt - docFrequency + 0.5) / (docFrequency + 0.5));
+        double averageLength = this.textDocCt == 0 ? 1 : (double) this.textWordCt / this.textDocCt;
+        double norm = BM25_K1 * (1 - BM25_B + BM25_B * dog.length / averageLength);
+        return idf * termFrequency * (BM25_K1 + 1) / (termFrequency + norm);
+    }
+
+    /**
+     * @return the documents with the word, each scored by how many times the word appears in it
+     */
+    private Matches wordMatches(String word, Ranking ranking) {
+        if (word == null){
+            throw new IllegalArgumentException("Invalid Word");
+        }
+        int id = this.terms.find(word);
+        RoaringBitmap docs = id < 0 || id >= this.postings.size() ? null : this.postings.get(id);
+        if (docs == null){
+            return new Matches(new RoaringBitmap(), doc -> 0);
+        }
+        int docFrequency = docs.cardinality();
+        return new Matches(docs, doc -> {
+            DocGetter dog = this.dogsById.get(doc);
+            return this.termScore(ranking, dog.termCounts.count(id), docFrequency, dog);
+        });
+    }
+
+    /**
+     * Walks the prefix's subtree once: the documents are the union of the words' postings, and each one's scores
+     * for the words under it are added up, so the work is in proportion to the postings, not the store.
+     * @return the documents with a word starting with prefix, each scored by all of its words with the prefix together
+     */
+    private Matches prefixMatches(String prefix, Ranking ranking) {
+        List<Integer> ids = new ArrayList<>();
+        this.wordTrie.forEachWithPrefix(prefix, ids::add);
+        RoaringBitmap docs = new RoaringBitmap();
+        HashMap<Integer, Double> totals = new HashMap<>();
+        for (int id : ids){
+            RoaringBitmap wordDocs = this.postings.get(id);
+            int docFrequency = wordDocs.cardinality();
+            docs = docs.or(wordDocs);
+            wordDocs.forEach(doc -> {
+                DocGetter dog = this.dogsById.get(doc);
+                totals.merge(doc, this.termScore(ranking, dog.termCounts.count(id), docFrequency, dog), Double::sum);
+            });
+        }
+        return new Matches(docs, doc -> totals.getOrDefault(doc, 0.0));
+    }
+
+    /**
+     * Evaluates the query against the indexes, bottom up. Within an AND the plain clauses are combined first, rarest
+     * first, and NOT clauses are taken out of the result instead of being complemented on their own.
+     * @param within if not null, the only documents the caller still wants; clauses may, but don't have to, match
+     * only these
+     */
+    private Matches evaluate(Query query, Ranking ranking, RoaringBitmap within) throws IOException {
+        if (query instanceof Query.Term term){
+            return this.wordMatches(term.word(), ranking);
+        } else if (query instanceof Query.Prefix prefix){
+            return this.prefixMatches(prefix.prefix(), ranking);
+        } else if (query instanceof Query.Phrase phrase){
+            return this.phraseMatches(phrase.words(), ranking, within);
+        } else if (query instanceof Query.Metadata metadata){
+            return new Matches(this.metadataDocs(Map.of(metadata.key(), metadata.value())), doc -> 0);
+        } else if (query instanceof Query.Not not){
+            return new Matches(this.liveIds.andNot(this.evaluate(not.clause(), ranking, null).docs), doc -> 0);
+        } else if (query instanceof Query.Or or){
+            List<Matches> parts = new ArrayList<>();
+            RoaringBitmap docs = new RoaringBitmap();
+            for (Query clause : or.clauses()){
+                Matches part = this.evaluate(clause, ranking, within);
+                parts.add(part);
+                docs = docs.or(part.docs);
+            }
+            return new Matches(docs, doc -> {
+                double total = 0;
+                for (Matches part : parts){
+                    if (part.docs.contains(doc)){
+                        total += part.score.applyAsDouble(doc);
+                    }
+                }
+                return total;
+            });
+        }
+        return this.andMatches(((Query.And) query).clauses(), ranking, within);
+    }
+
+    private Matches andMatches(List<Query> clauses, Ranking ranking, RoaringBitmap within) throws IOException {
+        List<Matches> parts = new ArrayList<>();
+        List<Query> phrases = new ArrayList<>();
+        List<Query> nots = new ArrayList<>();
+        for (Query clause : clauses){
+            if (clause instanceof Query.Not not){
+                nots.add(not.clause());
+            } else if (clause instanceof Query.Phrase){
+                //checking a phrase reads the documents' text, so only check the ones the other clauses leave
+                phrases.add(clause);
+            } else {
+                parts.add(this.evaluate(clause, ranking, within));
+            }
+        }
+        parts.sort(Comparator.comparingInt(part -> part.docs.cardinality()));
+        RoaringBitmap docs = parts.isEmpty() ? (within == null ? this.liveIds : within) : parts.get(0).docs;
+        for (int i = 1; i < parts.size() && !docs.isEmpty(); i++){
+            docs = docs.and(parts.get(i).docs);
+        }
+        for (Query phrase : phrases){
+            if (!docs.isEmpty()){
+                Matches part = this.evaluate(phrase, ranking, docs);
+                parts.add(part);
+                docs = docs.and(part.docs);
+            }
+        }
+        for (Query not : nots){
+            if (!docs.isEmpty()){
+                docs = docs.andNot(this.evaluate(not, ranking, docs).docs);
+            }
+        }
+        return new Matches(docs, doc -> {
+            double total = 0;
+            for (Matches part : parts){
+                total += part.score.applyAsDouble(doc);
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Term positions aren't indexed, so the documents with every word of the phrase are found with the postings,
+     * and then only their text is scanned for the words in a row. A candidate on disk is only peeked at: it stays
+     * on disk and doesn't push the documents in memory out, and shared reads can check it too.
+     * For BM25 the phrase is weighed as if it were one term, found in the documents that have it.
+     * @return the documents with the phrase, each scored by how many times the phrase appears in it
+     */
+    private Matches phraseMatches(List<String> words, Ranking ranking, RoaringBitmap within) throws IOException {
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        for (String word : words){
+            bitmaps.add(this.wordMatches(word, ranking).docs);
+        }
+        bitmaps.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+        RoaringBitmap candidates = within == null ? bitmaps.get(0) : within.and(bitmaps.get(0));
+        for (int i = 1; i < bitmaps.size() && !candidates.isEmpty(); i++){
+            candidates = candidates.and(bitmaps.get(i));
+        }
+        RoaringBitmap docs = new RoaringBitmap();
+        HashMap<Integer, Integer> counts = new HashMap<>();
+        Tokenizer tokenizer = new Tokenizer();
+        for (int doc : candidates.toArray()){
+            DocGetter dog = this.dogsById.get(doc);
+            Document document = dog.isInMemory ? dog.getDoc() : this.persistence.peek(dog.uri);
+            int count = phraseCount(tokenizer, document.getDocumentTxt(), words);
+            if (count > 0){
+                docs.add(doc);
+                counts.put(doc, count);
+            }
+        }
+        int docFrequency = docs.cardinality();
+        return new Matches(docs, doc -> this.termScore(ranking, counts.get(doc), docFrequency, this.dogsById.get(doc)));
+    }
+
+    /**
+     * Shift-and: bit i of state is set when the last i + 1 terms are the first i + 1 words of the phrase.
+     * @return how many times the words appear one right after the other in text, overlaps included
+     */
+    private static int phraseCount(Tokenizer tokenizer, String text, List<String> words) {
+        long done = 1L << (words.size() - 1);
+        long[] state = new long[1];
+        int[] count = new int[1];
+        tokenizer.tokenize(text, (buffer, length) -> {
+            long same = 0;
+            for (int i = 0; i < words.size(); i++){
+                if (sameTerm(words.get(i), buffer, length)){
+                    same |= 1L << i;
+                }
+            }
+            state[0] = ((state[0] << 1) | 1) & same;
+            if ((state[0] & done) != 0){
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    private static boolean sameTerm(String word, char[] buffer, int length) {
+        if (word.length() != length){
+            return false;
+        }
+        for (int i = 0; i < length; i++){
+            if (word.charAt(i) != buffer[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieve all documents that match the query, e.g. one built with the Query methods or parsed by QueryParser.
+     * Documents are returned in sorted, descending order, sorted by how many times the query's words, prefixes and
+     * phrases appear in the document; metadata clauses and NOT don't count towards it, and ties are ordered by URI.
+     * The whole query is answered from the indexes before any document is brought into memory,
+     * except for the documents whose text has to be checked for a phrase.
+     *
+     * @param query
+     * @return a List of the matches. If there are no matches, return an empty list.
+     * @throws IllegalArgumentException if query is null
+     */
+    @Override
+    public List<Document> searchQuery(Query query) throws IOException {
+        return this.searchQuery(query, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as searchQuery(query), but only the documents ranked offset to offset + limit - 1 are returned,
+     * and only they are brought into memory, apart from the documents whose text has to be checked for a phrase.
+     *
+     * @param query
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if query is null, offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchQuery(Query query, int offset, int limit) throws IOException {
+        return this.searchQuery(query, offset, limit, Ranking.COUNT);
+    }
+
+    /**
+     * Same as searchQuery(query, offset, limit), ordered by the given ranking.
+     * With BM25 each word, prefix and phrase adds its BM25 weight in the document instead of its count.
+     *
+     * @param query
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @param ranking how to order the matches
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if query or ranking is null, offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchQuery(Query query, int offset, int limit, Ranking ranking) throws IOException {
+        if (query == null){
+            throw new IllegalArgumentException("Invalid Query");
+        }
+        this.rangeChecker(offset, limit, ranking);
+        SearchKey key = new SearchKey(SearchType.QUERY, query, null, ranking);
+        return this.docListConverter(this.cachedRanking(key, offset, limit, () -> this.evaluate(query, ranking, null)));
+    }
+
+    private List<DocGetter> bitmapDogs(RoaringBitmap docs) {
+        List<DocGetter> dogs = new ArrayList<>(docs.cardinality());
+        docs.forEach(doc -> dogs.add(this.dogsById.get(doc)));
+        return dogs;
+    }
+
+    /**
+     * Fill an empty store from documents in ascending URI order, e.g. when restoring a store at startup.
+     * The index is built bottom up in one pass instead of with a put per document.
+     * A null document marks one that is already on disk with this store's persistence manager; it is read once to
+     * index its words and metadata, and stays on disk. The other documents are put in memory, in order, and the
+     * oldest are moved to disk if that goes over the limits. The import can't be undone.
+     * @param sorted URIs in strictly ascending order with their documents
+     * @throws IllegalArgumentException if sorted is null, a URI is null or out of order, a document's key isn't its URI,
+     * or a document is larger than the maximum number of bytes
+     * @throws IllegalStateException if the store isn't empty or its index isn't a BTreeImpl
+     * @throws IOException if a document on disk can't be read
+     */
+    public void bulkImport(Iterator<? extends Map.Entry<URI, Document>> sorted) throws IOException {
+        if (sorted == null){
+            throw new IllegalArgumentException("Invalid Import");
+        }
+        if (!(this.docs instanceof BTreeImpl<URI, Document> tree)){
+            throw new IllegalStateException("Bulk import needs a BTreeImpl index");
+        }
+        if (!this.placeholders.isEmpty()){
+            throw new IllegalStateException("Store is not empty");
+        }
+        List<Map.Entry<URI, Document>> entries = new ArrayList<>();
+        List<DocGetter> dogs = new ArrayList<>();
+        while (sorted.hasNext()){
+            Map.Entry<URI, Document> entry = sorted.next();
+            dogs.add(this.bulkDogMaker(entry.getKey(), entry.getValue()));
+            entries.add(entry);
+        }
+        tree.bulkLoad(entries.iterator());
+        long timeNow = System.nanoTime();
+        for (DocGetter dog : dogs){
+            this.idAssigner(dog);
+            this.wordIndexer(dog);
+            this.metadataIndexer(dog);
+            this.placeholders.put(dog.uri, dog);
+            if (dog.isInMemory){
+                this.docs.get(dog.uri).setLastUseTime(timeNow);
+                this.memoryPutter(dog);
+            }
+        }
+    }
+
+    private DocGetter bulkDogMaker(URI uri, Document doc) throws IOException {
+        if (uri == null){
+            throw new IllegalArgumentException("Invalid URI");
+        }
+        if (doc == null){
+            Document onDisk = this.persistence.deserialize(uri);
+            DocGetter dog = this.dogMaker(onDisk, this.getDocBytes(onDisk).length);
+            dog.isInMemory = false;
+            return dog;
+        }
+        if (!uri.equals(doc.getKey())){
+            throw new IllegalArgumentException("Document key doesn't match its URI");
+        }
+        DocGetter dog = this.dogMaker(doc, this.getDocBytes(doc).length);
+        this.bytesHugeDetector(dog.byteCount);
+        return dog;
     }
 
     private int deleter (URI uri){
+        int oldByteCount = this.byteCounter(uri);
         Document old = this.storeDeleter(uri, null);
         if (old != null){
             this.actions.push(new Command<URI>(uri, u2 -> {
-                if (this.maxByteCt == 0 || this.getDocBytes(old).length <= this.maxByteCt) {
+                if (this.maxByteCt == 0 || oldByteCount <= this.maxByteCt) {
                     this.docs.put(u2, old);
                     try {
-                        this.storePutter(old);
+                        this.storePutter(old, oldByteCount);
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     }
@@ -302,8 +1219,8 @@ public class DocumentStoreImpl implements DocumentStore {
         return (old == null) ? 0 : old.hashCode();
     }
 
-    private void bytesHugeDetector(byte[] in) {
-        if (this.maxByteCt != 0 && in.length > this.maxByteCt){
+    private void bytesHugeDetector(int byteCount) {
+        if (this.maxByteCt != 0 && byteCount > this.maxByteCt){
             throw new IllegalArgumentException("File is too big");
         }
     }
@@ -314,6 +1231,7 @@ public class DocumentStoreImpl implements DocumentStore {
      */
     @Override
     public Document get(URI url) throws IOException {
+        this.sharedReadChecker(this.placeholders.get(url));
         Document doc = this.docs.get(url);
         if (doc != null){
             this.singleDocUsageUpdater(doc);
@@ -334,6 +1252,74 @@ public class DocumentStoreImpl implements DocumentStore {
         return this.deleter(url) != 0;
     }
 
+    /**
+     * @param uriPrefix the start of the URIs to list, e.g. "http://host/path/"
+     * @return the URIs of all documents whose URI starts with the given prefix, in URI order. No document is read from disk.
+     * @throws IllegalArgumentException if uriPrefix is null
+     */
+    @Override
+    public List<URI> listUrisWithPrefix(String uriPrefix) {
+        if (uriPrefix == null){
+            throw new IllegalArgumentException("Prefix is null");
+        }
+        URI[] range = this.prefixRange(uriPrefix);
+        Iterator<Map.Entry<URI, Document>> entries = range == null ? this.docs.iterator() : this.docs.range(range[0], range[1]);
+        List<URI> uris = new ArrayList<>();
+        while (entries.hasNext()){
+            URI uri = entries.next().getKey();
+            if (uri.toString().startsWith(uriPrefix)){
+                uris.add(uri);
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * the URIs are listed up front, so documents put after the call are not included and documents deleted before
+     * the stream reaches them are skipped
+     * @param uriPrefix the start of the URIs to stream, e.g. "http://host/path/"
+     * @return the documents whose URI starts with the given prefix, in URI order. Each document is only fetched, as by get, when the stream reaches it.
+     * @throws IllegalArgumentException if uriPrefix is null
+     */
+    @Override
+    public Stream<Document> streamWithUriPrefix(String uriPrefix) {
+        return this.listUrisWithPrefix(uriPrefix).stream().map(uri -> {
+            try {
+                return this.get(uri);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    /**
+     * URIs are ordered by scheme, then authority, then path, so the URIs starting with "scheme://authority/path" all lie
+     * between that URI and the one whose path has its last character incremented.
+     * @return {from, to} for the index's range, with to null if it can't be built, or null if the prefix doesn't
+     * pin down a scheme, authority and path and the whole index has to be scanned
+     */
+    private URI[] prefixRange(String uriPrefix) {
+        URI from;
+        try {
+            from = new URI(uriPrefix);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        String path = from.getRawPath();
+        if (from.getScheme() == null || from.getRawAuthority() == null || path == null || path.isEmpty()
+                || from.getRawQuery() != null || from.getRawFragment() != null){
+            return null;
+        }
+        char last = uriPrefix.charAt(uriPrefix.length() - 1);
+        URI to;
+        try {
+            to = new URI(uriPrefix.substring(0, uriPrefix.length() - 1) + (char) (last + 1));
+        } catch (URISyntaxException e) {
+            to = null;
+        }
+        return new URI[]{from, to};
+    }
+
     /**
      * undo the last put or delete command
      *
@@ -416,40 +1402,213 @@ public class DocumentStoreImpl implements DocumentStore {
         return this.docListConverter(sorted);
     }
 
-    private List<DocGetter> getSorted(String keyword) {
-        List<DocGetter> sorted = this.wordTrie.getSorted(keyword, (d1, d2) -> {
-            int d1ct = this.wordCt(d1, keyword);
-            int d2ct = this.wordCt(d2, keyword);
-            if (d1ct > d2ct){
-                return -1;
-            } else if (d1ct == d2ct){
-                return 0;
-            } else {
-                return 1;
+    private List<DocGetter> getSorted(String keyword) throws IOException {
+        SearchKey key = new SearchKey(SearchType.WORD, keyword, null, Ranking.COUNT);
+        return this.cachedRanking(key, 0, Integer.MAX_VALUE, () -> this.wordMatches(keyword, Ranking.COUNT));
+    }
+
+    /**
+     * highest score first; the scores come from the index, so no document is looked at to rank them
+     */
+    private Comparator<Posting> byScore() {
+        return (p1, p2) -> {
+            if (p1.score != p2.score){
+                return p1.score > p2.score ? -1 : 1;
             }
-        });
-        return sorted;
+            return p1.dog.uri.compareTo(p2.dog.uri);
+        };
+    }
+
+    /**
+     * The matched documents ranked offset to offset + limit - 1 by score, best first.
+     * Ties are broken by URI so that consecutive pages never overlap.
+     * Unless every match is wanted, a heap holding the best offset + limit matches seen so far picks them,
+     * so only those are ever sorted.
+     */
+    private List<DocGetter> ranked(Matches matches, int offset, int limit) {
+        int n = matches.docs.cardinality();
+        int k = (int) Math.min((long) offset + limit, n);
+        if (offset >= k){
+            return new ArrayList<>();
+        }
+        Comparator<Posting> order = this.byScore();
+        List<Posting> top = new ArrayList<>(k);
+        if (k == n){
+            matches.docs.forEach(doc -> top.add(new Posting(this.dogsById.get(doc), matches.score.applyAsDouble(doc))));
+        } else {
+            //the root is the worst of the best k so far
+            PriorityQueue<Posting> heap = new PriorityQueue<>(k, order.reversed());
+            matches.docs.forEach(doc -> {
+                Posting p = new Posting(this.dogsById.get(doc), matches.score.applyAsDouble(doc));
+                if (heap.size() < k){
+                    heap.add(p);
+                } else if (order.compare(p, heap.peek()) < 0){
+                    heap.poll();
+                    heap.add(p);
+                }
+            });
+            top.addAll(heap);
+        }
+        top.sort(order);
+        List<DocGetter> dogs = new ArrayList<>(k - offset);
+        for (Posting p : top.subList(offset, k)){
+            dogs.add(p.dog);
+        }
+        return dogs;
+    }
+
+    /**
+     * The matches ranked offset to offset + limit - 1, from the query cache if it has enough of them.
+     * Otherwise the search is run, and its best offset + limit matches are ranked and cached.
+     */
+    private List<DocGetter> cachedRanking(SearchKey key, int offset, int limit, Search search) throws IOException {
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        List<URI> ranked = this.queryCache.get(key, wanted);
+        if (ranked == null){
+            Matches matches = search.run();
+            List<DocGetter> top = this.ranked(matches, 0, wanted);
+            ranked = new ArrayList<>(top.size());
+            for (DocGetter dog : top){
+                ranked.add(dog.uri);
+            }
+            this.queryCache.put(key, ranked, top.size() == matches.docs.cardinality(), this.dependencies(key));
+        }
+        int end = Math.min(wanted, ranked.size());
+        List<DocGetter> dogs = new ArrayList<>(Math.max(end - offset, 0));
+        for (int i = offset; i < end; i++){
+            dogs.add(this.placeholders.get(ranked.get(i)));
+        }
+        return dogs;
     }
 
-    private int wordCt(DocGetter dog, String word){
-        for (String s : dog.wordMap.keySet()){
-            if (word.equals(s)){
-                return dog.wordMap.get(word);
+    /**
+     * @return the words, prefixes and metadata pairs the search's results are computed from
+     */
+    private QueryCache.Dependencies dependencies(SearchKey key) {
+        QueryCache.Dependencies dependencies = new QueryCache.Dependencies();
+        switch (key.type()){
+            case WORD -> dependencies.term((String) key.argument());
+            case PREFIX -> this.prefixDependency((String) key.argument(), dependencies);
+            case QUERY -> this.queryDependencies((Query) key.argument(), dependencies);
+            default -> {}
+        }
+        if (key.keysValues() != null){
+            for (Map.Entry<String, String> entry : key.keysValues().entrySet()){
+                //no document has a null key or value, so that pair never matches anything
+                if (entry.getKey() != null && entry.getValue() != null){
+                    dependencies.pair(entry.getKey(), entry.getValue());
+                }
             }
         }
-        return 0;
+        //BM25 weights depend on how many documents there are and how long they are
+        if (key.ranking() == Ranking.BM25){
+            dependencies.everything();
+        }
+        return dependencies;
+    }
+
+    private void prefixDependency(String prefix, QueryCache.Dependencies dependencies) {
+        //a blank prefix never matches anything
+        if (!prefix.isBlank()){
+            dependencies.prefix(prefix);
+        }
+    }
+
+    /**
+     * A NOT depends on every document in the store, unless it's in an AND with a clause that isn't a NOT,
+     * which is only narrowed by it. A phrase can only change when a document with its words is put or deleted.
+     */
+    private void queryDependencies(Query query, QueryCache.Dependencies dependencies) {
+        if (query instanceof Query.Term term){
+            dependencies.term(term.word());
+        } else if (query instanceof Query.Prefix prefix){
+            this.prefixDependency(prefix.prefix(), dependencies);
+        } else if (query instanceof Query.Phrase phrase){
+            phrase.words().forEach(dependencies::term);
+        } else if (query instanceof Query.Metadata metadata){
+            dependencies.pair(metadata.key(), metadata.value());
+        } else if (query instanceof Query.Not not){
+            dependencies.everything();
+            this.queryDependencies(not.clause(), dependencies);
+        } else if (query instanceof Query.Or or){
+            or.clauses().forEach(clause -> this.queryDependencies(clause, dependencies));
+        } else {
+            List<Query> clauses = ((Query.And) query).clauses();
+            boolean narrowed = clauses.stream().anyMatch(clause -> !(clause instanceof Query.Not));
+            for (Query clause : clauses){
+                if (narrowed && clause instanceof Query.Not not){
+                    this.queryDependencies(not.clause(), dependencies);
+                } else {
+                    this.queryDependencies(clause, dependencies);
+                }
+            }
+        }
+    }
+
+    private void rangeChecker(int offset, int limit) {
+        if (offset < 0 || limit < 1){
+            throw new IllegalArgumentException("Invalid Offset or Limit");
+        }
+    }
+
+    private void rangeChecker(int offset, int limit, Ranking ranking) {
+        this.rangeChecker(offset, limit);
+        if (ranking == null){
+            throw new IllegalArgumentException("Invalid Ranking");
+        }
+    }
+
+    /**
+     * Same as search(keyword), but only the documents ranked offset to offset + limit - 1 are returned,
+     * and only they are brought into memory.
+     *
+     * @param keyword
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> search(String keyword, int offset, int limit) throws IOException {
+        return this.search(keyword, offset, limit, Ranking.COUNT);
+    }
+
+    /**
+     * Same as search(keyword, offset, limit), ordered by the given ranking.
+     *
+     * @param keyword
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @param ranking how to order the matches
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if ranking is null, offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> search(String keyword, int offset, int limit, Ranking ranking) throws IOException {
+        this.rangeChecker(offset, limit, ranking);
+        SearchKey key = new SearchKey(SearchType.WORD, keyword, null, ranking);
+        return this.docListConverter(this.cachedRanking(key, offset, limit, () -> this.wordMatches(keyword, ranking)));
     }
 
     private List<Document> docListConverter(List<DocGetter> sorted) throws IOException {
         List<Document> documents = new ArrayList<>();
         long timeNow = System.nanoTime();
+        if (this.sharedReads){
+            sorted.forEach(this::sharedReadChecker);
+            for (DocGetter dog : sorted){
+                Document doc = dog.getDoc();
+                this.uses.record(new Use(dog, doc, timeNow));
+                documents.add(doc);
+            }
+            return documents;
+        }
         for (DocGetter dog : sorted){
             Document doc = (dog.getDoc());
             doc.setLastUseTime(timeNow);
             if (dog.isInMemory){
-                this.usageHeap.reHeapify(dog);
+                this.usageTracker.recordAccess(dog);
             } else {
-                this.memoryPutter(doc, dog);
+                this.reloadPutter(dog, doc);
             }
             documents.add(doc);
         }
@@ -470,30 +1629,42 @@ public class DocumentStoreImpl implements DocumentStore {
         return this.docListConverter(sorted);
     }
 
-    private List<DocGetter> getPrefixSorted(String keywordPrefix) {
-        List<DocGetter> sorted = this.wordTrie.getAllWithPrefixSorted(keywordPrefix, (d1, d2) -> {
-            int d1ct = this.prefixWordCt(d1, keywordPrefix);
-            int d2ct = this.prefixWordCt(d2, keywordPrefix);
-            if (d1ct > d2ct){
-                return -1;
-            } else if (d1ct == d2ct){
-                return 0;
-            } else {
-                return 1;
-            }
-        });
-        return sorted;
+    private List<DocGetter> getPrefixSorted(String keywordPrefix) throws IOException {
+        SearchKey key = new SearchKey(SearchType.PREFIX, keywordPrefix, null, Ranking.COUNT);
+        return this.cachedRanking(key, 0, Integer.MAX_VALUE, () -> this.prefixMatches(keywordPrefix, Ranking.COUNT));
     }
 
-    private int prefixWordCt(DocGetter dog, String prefix){
-        int total = 0;
-        int len = prefix.length();
-        for (String s : dog.wordMap.keySet()){
-            if (s.length() >= len && prefix.equals(s.substring(0, len))){
-                total += dog.wordMap.get(s);
-            }
-        }
-        return total;
+    /**
+     * Same as searchByPrefix(keywordPrefix), but only the documents ranked offset to offset + limit - 1 are returned,
+     * and only they are brought into memory.
+     *
+     * @param keywordPrefix
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchByPrefix(String keywordPrefix, int offset, int limit) throws IOException {
+        return this.searchByPrefix(keywordPrefix, offset, limit, Ranking.COUNT);
+    }
+
+    /**
+     * Same as searchByPrefix(keywordPrefix, offset, limit), ordered by the given ranking.
+     * With BM25 a document's score is the sum of the BM25 weights of its words with the prefix.
+     *
+     * @param keywordPrefix
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @param ranking how to order the matches
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if ranking is null, offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchByPrefix(String keywordPrefix, int offset, int limit, Ranking ranking) throws IOException {
+        this.rangeChecker(offset, limit, ranking);
+        SearchKey key = new SearchKey(SearchType.PREFIX, keywordPrefix, null, ranking);
+        return this.docListConverter(this.cachedRanking(key, offset, limit, () -> this.prefixMatches(keywordPrefix, ranking)));
     }
 
     /**
@@ -505,12 +1676,12 @@ public class DocumentStoreImpl implements DocumentStore {
      */
     @Override
     public Set<URI> deleteAll(String keyword) {
-        Set<DocGetter> deletedDocs = this.wordTrie.deleteAll(keyword);
+        List<DocGetter> deletedDocs = this.bitmapDogs(this.wordMatches(keyword, Ranking.COUNT).docs);
         Set<URI> returningURIs = deleteSet(deletedDocs);
         return returningURIs;
     }
 
-    private Set<URI> deleteSet(Set<DocGetter> deleteDocs) {
+    private Set<URI> deleteSet(Collection<DocGetter> deleteDocs) {
         Set<URI> returningURIs = new HashSet<>();
         if (!deleteDocs.isEmpty()){
             CommandSet<URI> deletes = new CommandSet<>();
@@ -525,13 +1696,14 @@ public class DocumentStoreImpl implements DocumentStore {
     }
 
     private void deleteSetDeleter(URI url, CommandSet<URI> deletes) {
+        int oldByteCount = this.byteCounter(url);
         Document old = this.storeDeleter(url, null);
         //old can't be null
         deletes.addCommand (new Command<URI>(url, u2 -> {
-            if (this.maxByteCt == 0 || this.getDocBytes(old).length <= this.maxByteCt) {
+            if (this.maxByteCt == 0 || oldByteCount <= this.maxByteCt) {
                 this.docs.put(u2, old);
                 try {
-                    this.storePutter(old);
+                    this.storePutter(old, oldByteCount);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
@@ -548,7 +1720,7 @@ public class DocumentStoreImpl implements DocumentStore {
      */
     @Override
     public Set<URI> deleteAllWithPrefix(String keywordPrefix) {
-        Set<DocGetter> deletedDocs = this.wordTrie.deleteAllWithPrefix(keywordPrefix);
+        List<DocGetter> deletedDocs = this.bitmapDogs(this.prefixMatches(keywordPrefix, Ranking.COUNT).docs);
         Set<URI> returningURIs = deleteSet(deletedDocs);
         return returningURIs;
     }
@@ -564,24 +1736,30 @@ public class DocumentStoreImpl implements DocumentStore {
         } else if (keysValues.isEmpty()) {
             return Collections.emptyList();
         }
-        List<DocGetter> allMetaDogs = new ArrayList<>(this.placeholders.values());
-        this.hasMetadata(allMetaDogs, keysValues);
-        return this.docListConverter(allMetaDogs);
-    }
-
-    private void hasMetadata(Collection<DocGetter> allDogs, Map<String, String> keysValues) {
-        List<DocGetter> cats = new ArrayList<>(allDogs);
-        for (DocGetter d : cats) {
-            for (Map.Entry<String, String> entry : keysValues.entrySet()) {
-                String key = entry.getKey();
-                String value = entry.getValue();
-                String dogMeta = d.metadata.get(key);
-                if (dogMeta == null || !dogMeta.equals(value)) {
-                    allDogs.remove(d);
-                    break;
-                }
-            }
+        SearchKey key = new SearchKey(SearchType.METADATA, null, new HashMap<>(keysValues), Ranking.COUNT);
+        return this.docListConverter(this.cachedRanking(key, 0, Integer.MAX_VALUE, () -> new Matches(this.metadataDocs(keysValues), doc -> 0)));
+    }
+
+    /**
+     * Same as searchByMetadata(keysValues), but only the matches offset to offset + limit - 1, in the order of their URIs,
+     * are returned, and only they are brought into memory.
+     *
+     * @param keysValues metadata key-value pairs to search for
+     * @param offset how many of the matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchByMetadata(Map<String, String> keysValues, int offset, int limit) throws IOException {
+        this.rangeChecker(offset, limit);
+        if (keysValues == null) {
+            throw new IllegalArgumentException("Invalid Metadata Request");
+        } else if (keysValues.isEmpty()) {
+            return Collections.emptyList();
         }
+        SearchKey key = new SearchKey(SearchType.METADATA, null, new HashMap<>(keysValues), Ranking.COUNT);
+        return this.docListConverter(this.cachedRanking(key, offset, limit, () -> new Matches(this.metadataDocs(keysValues), doc -> 0)));
     }
 
     /**
@@ -600,9 +1778,31 @@ public class DocumentStoreImpl implements DocumentStore {
         } else if (keysValues.isEmpty()) {
             return Collections.emptyList();
         }
-        List<DocGetter> sorted = new ArrayList<>(this.getSorted(keyword));
-        this.hasMetadata(sorted, keysValues);
-        return this.docListConverter(sorted);
+        SearchKey key = new SearchKey(SearchType.WORD, keyword, new HashMap<>(keysValues), Ranking.COUNT);
+        return this.docListConverter(this.cachedRanking(key, 0, Integer.MAX_VALUE, () -> this.wordMatches(keyword, Ranking.COUNT).and(this.metadataDocs(keysValues))));
+    }
+
+    /**
+     * Same as searchByKeywordAndMetadata(keyword, keysValues), but only the documents ranked offset to offset + limit - 1
+     * are returned, and only they are brought into memory.
+     *
+     * @param keyword
+     * @param keysValues
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchByKeywordAndMetadata(String keyword, Map<String, String> keysValues, int offset, int limit) throws IOException {
+        this.rangeChecker(offset, limit);
+        if (keysValues == null) {
+            throw new IllegalArgumentException("Invalid Metadata Request");
+        } else if (keysValues.isEmpty()) {
+            return Collections.emptyList();
+        }
+        SearchKey key = new SearchKey(SearchType.WORD, keyword, new HashMap<>(keysValues), Ranking.COUNT);
+        return this.docListConverter(this.cachedRanking(key, offset, limit, () -> this.wordMatches(keyword, Ranking.COUNT).and(this.metadataDocs(keysValues))));
     }
 
     /**
@@ -621,9 +1821,31 @@ public class DocumentStoreImpl implements DocumentStore {
         } else if (keysValues.isEmpty()) {
             return Collections.emptyList();
         }
-        List<DocGetter> sorted = new ArrayList<>(this.getPrefixSorted(keywordPrefix));
-        this.hasMetadata(sorted, keysValues);
-        return this.docListConverter(sorted);
+        SearchKey key = new SearchKey(SearchType.PREFIX, keywordPrefix, new HashMap<>(keysValues), Ranking.COUNT);
+        return this.docListConverter(this.cachedRanking(key, 0, Integer.MAX_VALUE, () -> this.prefixMatches(keywordPrefix, Ranking.COUNT).and(this.metadataDocs(keysValues))));
+    }
+
+    /**
+     * Same as searchByPrefixAndMetadata(keywordPrefix, keysValues), but only the documents ranked offset to
+     * offset + limit - 1 are returned, and only they are brought into memory.
+     *
+     * @param keywordPrefix
+     * @param keysValues
+     * @param offset how many of the best matches to skip
+     * @param limit the most documents to return
+     * @return a List of the matches in that range. If there are none, return an empty list.
+     * @throws IllegalArgumentException if offset < 0 or limit < 1
+     */
+    @Override
+    public List<Document> searchByPrefixAndMetadata(String keywordPrefix, Map<String, String> keysValues, int offset, int limit) throws IOException {
+        this.rangeChecker(offset, limit);
+        if (keysValues == null) {
+            throw new IllegalArgumentException("Invalid Metadata Request");
+        } else if (keysValues.isEmpty()) {
+            return Collections.emptyList();
+        }
+        SearchKey key = new SearchKey(SearchType.PREFIX, keywordPrefix, new HashMap<>(keysValues), Ranking.COUNT);
+        return this.docListConverter(this.cachedRanking(key, offset, limit, () -> this.prefixMatches(keywordPrefix, Ranking.COUNT).and(this.metadataDocs(keysValues))));
     }
 
     /**
@@ -640,8 +1862,7 @@ public class DocumentStoreImpl implements DocumentStore {
         } else if (keysValues.isEmpty()) {
             return Collections.emptySet();
         }
-        Set<DocGetter> allMetaDogs = new HashSet<>(this.placeholders.values());
-        this.hasMetadata(allMetaDogs, keysValues);
+        List<DocGetter> allMetaDogs = this.bitmapDogs(this.metadataDocs(keysValues));
         Set<URI> returningURIs = deleteSet(allMetaDogs);
         return returningURIs;
     }
@@ -661,8 +1882,7 @@ public class DocumentStoreImpl implements DocumentStore {
         } else if (keysValues.isEmpty()) {
             return Collections.emptySet();
         }
-        Set<DocGetter> allMetaDogs = new HashSet<>(this.getSorted(keyword));
-        this.hasMetadata(allMetaDogs, keysValues);
+        List<DocGetter> allMetaDogs = this.bitmapDogs(this.wordMatches(keyword, Ranking.COUNT).docs.and(this.metadataDocs(keysValues)));
         Set<URI> returningURIs = deleteSet(allMetaDogs);
         return returningURIs;
     }
@@ -682,8 +1902,7 @@ public class DocumentStoreImpl implements DocumentStore {
         } else if (keysValues.isEmpty()) {
             return Collections.emptySet();
         }
-        Set<DocGetter> allMetaDogs = new HashSet<>(this.getPrefixSorted(keywordPrefix));
-        this.hasMetadata(allMetaDogs, keysValues);
+        List<DocGetter> allMetaDogs = this.bitmapDogs(this.prefixMatches(keywordPrefix, Ranking.COUNT).docs.and(this.metadataDocs(keysValues)));
         Set<URI> returningURIs = deleteSet(allMetaDogs);
         return returningURIs;
     }
@@ -722,6 +1941,50 @@ public class DocumentStoreImpl implements DocumentStore {
         }
     }
 
+    /**
+     * change where documents are written when they are moved out of memory, e.g. to a SegmentPersistenceManager
+     *
+     * @param pm
+     * @throws IllegalArgumentException if pm is null
+     * @throws IllegalStateException if documents have already been moved to disk with the current manager
+     */
+    public void setPersistenceManager(PersistenceManager<URI, Document> pm) {
+        if (pm == null){
+            throw new IllegalArgumentException("Invalid Persistence Manager");
+        }
+        if (this.memoryDocCt != this.placeholders.size()){
+            throw new IllegalStateException("Documents are already on disk");
+        }
+        this.persistence = pm;
+        this.docs.setPersistenceManager(pm);
+    }
+
+    /**
+     * set how many search results are cached; the least recently used are dropped first.
+     * A cached result is dropped as soon as a put, delete, setMetadata or undo changes a word or metadata pair it
+     * depends on, so searches always see the current documents.
+     *
+     * @param size 0 turns the cache off
+     * @throws IllegalArgumentException if size < 0
+     */
+    public void setQueryCacheSize(int size) {
+        this.queryCache.setCapacity(size);
+    }
+
+    /**
+     * @return how many searches were answered from the query cache
+     */
+    public long getQueryCacheHits() {
+        return this.queryCache.getHits();
+    }
+
+    /**
+     * @return how many searches had to be run against the index
+     */
+    public long getQueryCacheMisses() {
+        return this.queryCache.getMisses();
+    }
+
     private void numberChecker(int limit) {
         if (limit < 1){
             throw new IllegalArgumentException("Invalid number");
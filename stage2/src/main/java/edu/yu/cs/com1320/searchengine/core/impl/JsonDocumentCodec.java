@@ -0,0 +1,40 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Human readable JSON, with binary payloads in Base64. Larger and slower than BinaryDocumentCodec, but easy to inspect.
+ */
+public class JsonDocumentCodec implements DocumentCodec {
+    private final Gson gson;
+
+    public JsonDocumentCodec(){
+        this.gson = new GsonBuilder().registerTypeHierarchyAdapter(Document.class, new DocSerializers()).create();
+    }
+
+    @Override
+    public byte[] encode(Document doc) {
+        return this.gson.toJson(doc).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Document decode(byte[] bytes) throws IOException {
+        try {
+            return this.gson.fromJson(new String(bytes, StandardCharsets.UTF_8), Document.class);
+        } catch (JsonParseException | IllegalStateException e){
+            throw new IOException("Invalid document JSON", e);
+        }
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".json";
+    }
+}
@@ -0,0 +1,218 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Bounded, least recently used cache of ranked search results for DocumentStoreImpl.
+ * Each entry remembers what its result was computed from: exact words, word prefixes, metadata pairs, and whether
+ * it depends on every document in the store, as NOT clauses and BM25 scores do. The store reports each word and
+ * metadata pair whose documents change, and each put or delete, and exactly the entries depending on it are dropped.
+ * Synchronized, since searches sharing a ConcurrentDocumentStoreImpl use it at the same time.
+ */
+class QueryCache {
+
+    /**
+     * what a search read from the index, filled in while the search is evaluated
+     */
+    static class Dependencies {
+        private final Set<String> terms = new HashSet<>();
+        private final Set<String> prefixes = new HashSet<>();
+        private final Set<Map.Entry<String, String>> pairs = new HashSet<>();
+        private boolean everything;
+
+        void term(String term) {
+            this.terms.add(term);
+        }
+
+        void prefix(String prefix) {
+            this.prefixes.add(prefix);
+        }
+
+        void pair(String key, String value) {
+            this.pairs.add(Map.entry(key, value));
+        }
+
+        void everything() {
+            this.everything = true;
+        }
+    }
+
+    private static class Entry {
+        private final List<URI> ranked;
+        //true if ranked holds every match, not just the best ones
+        private final boolean complete;
+        private final Dependencies dependencies;
+        private Entry(List<URI> ranked, boolean complete, Dependencies dependencies) {
+            this.ranked = ranked;
+            this.complete = complete;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final LinkedHashMap<Object, Entry> entries;
+    private final HashMap<String, Set<Object>> byTerm;
+    private final HashMap<String, Set<Object>> byPrefix;
+    private final HashMap<Map.Entry<String, String>, Set<Object>> byPair;
+    private final Set<Object> byEverything;
+    //length of the cached prefixes -> how many there are, so a changed word is only checked against lengths in use
+    private final TreeMap<Integer, Integer> prefixLengths;
+    private int capacity;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity the most results to keep; 0 turns the cache off
+     * @throws IllegalArgumentException if capacity < 0
+     */
+    QueryCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.byTerm = new HashMap<>();
+        this.byPrefix = new HashMap<>();
+        this.byPair = new HashMap<>();
+        this.byEverything = new HashSet<>();
+        this.prefixLengths = new TreeMap<>();
+        this.setCapacity(capacity);
+    }
+
+    synchronized void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid Cache Size");
+        }
+        this.capacity = capacity;
+        while (this.entries.size() > capacity) {
+            this.remove(this.entries.keySet().iterator().next());
+        }
+    }
+
+    synchronized int getCapacity() {
+        return this.capacity;
+    }
+
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    synchronized long getHits() {
+        return this.hits;
+    }
+
+    synchronized long getMisses() {
+        return this.misses;
+    }
+
+    synchronized boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    /**
+     * @param key
+     * @param wanted how many of the best results are needed
+     * @return the cached ranking, which has at least wanted results unless it has all of them; null on a miss
+     */
+    synchronized List<URI> get(Object key, int wanted) {
+        Entry entry = this.entries.get(key);
+        if (entry != null && (entry.complete || entry.ranked.size() >= wanted)) {
+            this.hits++;
+            return entry.ranked;
+        }
+        this.misses++;
+        return null;
+    }
+
+    /**
+     * @param key
+     * @param ranked the best results, in order
+     * @param complete true if ranked holds every match
+     * @param dependencies what the results were computed from
+     */
+    synchronized void put(Object key, List<URI> ranked, boolean complete, Dependencies dependencies) {
+        if (this.capacity == 0) {
+            return;
+        }
+        this.remove(key);
+        this.entries.put(key, new Entry(List.copyOf(ranked), complete, dependencies));
+        for (String term : dependencies.terms) {
+            this.byTerm.computeIfAbsent(term, t -> new HashSet<>()).add(key);
+        }
+        for (String prefix : dependencies.prefixes) {
+            this.byPrefix.computeIfAbsent(prefix, p -> new HashSet<>()).add(key);
+            this.prefixLengths.merge(prefix.length(), 1, Integer::sum);
+        }
+        for (Map.Entry<String, String> pair : dependencies.pairs) {
+            this.byPair.computeIfAbsent(pair, p -> new HashSet<>()).add(key);
+        }
+        if (dependencies.everything) {
+            this.byEverything.add(key);
+        }
+        if (this.entries.size() > this.capacity) {
+            this.remove(this.entries.keySet().iterator().next());
+        }
+    }
+
+    private void remove(Object key) {
+        Entry entry = this.entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        Dependencies dependencies = entry.dependencies;
+        for (String term : dependencies.terms) {
+            unlink(this.byTerm, term, key);
+        }
+        for (String prefix : dependencies.prefixes) {
+            unlink(this.byPrefix, prefix, key);
+            this.prefixLengths.merge(prefix.length(), -1, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        for (Map.Entry<String, String> pair : dependencies.pairs) {
+            unlink(this.byPair, pair, key);
+        }
+        this.byEverything.remove(key);
+    }
+
+    private static <T> void unlink(HashMap<T, Set<Object>> index, T dependency, Object key) {
+        Set<Object> keys = index.get(dependency);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(dependency);
+        }
+    }
+
+    private void removeAll(Set<Object> keys) {
+        if (keys != null) {
+            for (Object key : new ArrayList<>(keys)) {
+                this.remove(key);
+            }
+        }
+    }
+
+    /**
+     * the set of documents with the word changed
+     * @param term
+     */
+    synchronized void termChanged(String term) {
+        if (this.entries.isEmpty()) {
+            return;
+        }
+        this.removeAll(this.byTerm.get(term));
+        for (int length : new ArrayList<>(this.prefixLengths.headMap(term.length(), true).keySet())) {
+            this.removeAll(this.byPrefix.get(term.substring(0, length)));
+        }
+    }
+
+    /**
+     * the set of documents with the metadata pair changed
+     * @param key
+     * @param value
+     */
+    synchronized void pairChanged(String key, String value) {
+        if (!this.entries.isEmpty()) {
+            this.removeAll(this.byPair.get(Map.entry(key, value)));
+        }
+    }
+
+    /**
+     * a document was added to or removed from the store
+     */
+    synchronized void documentsChanged() {
+        this.removeAll(this.byEverything);
+    }
+}
@@ -0,0 +1,211 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Query;
+import edu.yu.cs.com1320.searchengine.text.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns a query string into a Query.
+ * <pre>
+ *   word          documents that contain the word
+ *   pre*          documents with a word starting with pre
+ *   "some words"  documents with the words one right after the other
+ *   key:value     documents whose metadata has the value for the key; key:"a value" if the value has spaces
+ *   a b, a AND b  documents matching both
+ *   a OR b        documents matching either
+ *   NOT a, -a     documents not matching a
+ *   ( ... )       grouping
+ * </pre>
+ * NOT binds tightest, then AND, then OR. AND, OR and NOT are only operators in upper case.
+ * Words are cleaned up the way document text is, so characters that aren't letters or digits are dropped.
+ */
+public class QueryParser {
+    private enum Type {WORD, PREFIX, QUOTED, METADATA, AND, OR, NOT, OPEN, CLOSE}
+
+    private static class Token {
+        private final Type type;
+        private final String text;
+        //the metadata value; text is the key
+        private final String value;
+        private Token(Type type, String text, String value) {
+            this.type = type;
+            this.text = text;
+            this.value = value;
+        }
+    }
+
+    private final String input;
+    private int pos;
+    private Token next;
+
+    private QueryParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * @param query
+     * @return the parsed query
+     * @throws IllegalArgumentException if query is null or blank, or isn't a valid query
+     */
+    public static Query parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Invalid Query");
+        }
+        QueryParser parser = new QueryParser(query);
+        Query parsed = parser.or();
+        if (parser.peek() != null) {
+            throw parser.error("Unexpected " + parser.peek().text);
+        }
+        return parsed;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid Query: " + message + " at " + this.pos + " in \"" + this.input + "\"");
+    }
+
+    private Query or() {
+        List<Query> clauses = new ArrayList<>();
+        clauses.add(this.and());
+        while (this.peek() != null && this.peek().type == Type.OR) {
+            this.take();
+            clauses.add(this.and());
+        }
+        return clauses.size() == 1 ? clauses.get(0) : new Query.Or(clauses);
+    }
+
+    private Query and() {
+        List<Query> clauses = new ArrayList<>();
+        clauses.add(this.unary());
+        while (this.peek() != null && this.peek().type != Type.OR && this.peek().type != Type.CLOSE) {
+            if (this.peek().type == Type.AND) {
+                this.take();
+            }
+            clauses.add(this.unary());
+        }
+        return clauses.size() == 1 ? clauses.get(0) : new Query.And(clauses);
+    }
+
+    private Query unary() {
+        Token token = this.take();
+        if (token == null) {
+            throw this.error("Missing clause");
+        }
+        switch (token.type) {
+            case NOT:
+                return new Query.Not(this.unary());
+            case OPEN:
+                Query group = this.or();
+                Token close = this.take();
+                if (close == null || close.type != Type.CLOSE) {
+                    throw this.error("Missing )");
+                }
+                return group;
+            case WORD:
+                return new Query.Term(this.term(token.text));
+            case PREFIX:
+                return new Query.Prefix(this.term(token.text));
+            case QUOTED:
+                List<String> words = new ArrayList<>();
+                new Tokenizer().tokenize(token.text, (buffer, length) -> words.add(new String(buffer, 0, length)));
+                if (words.isEmpty()) {
+                    throw this.error("Empty phrase");
+                }
+                if (words.size() > Query.Phrase.MAX_WORDS) {
+                    throw this.error("Phrase longer than " + Query.Phrase.MAX_WORDS + " words");
+                }
+                return words.size() == 1 ? new Query.Term(words.get(0)) : new Query.Phrase(words);
+            case METADATA:
+                return new Query.Metadata(token.text, token.value);
+            default:
+                throw this.error("Unexpected " + token.text);
+        }
+    }
+
+    private String term(String word) {
+        String term = Tokenizer.normalize(word);
+        if (term.isEmpty()) {
+            throw this.error("No letters or digits in " + word);
+        }
+        return term;
+    }
+
+    private Token peek() {
+        if (this.next == null) {
+            this.next = this.lex();
+        }
+        return this.next;
+    }
+
+    private Token take() {
+        Token token = this.peek();
+        this.next = null;
+        return token;
+    }
+
+    private Token lex() {
+        while (this.pos < this.input.length() && Character.isWhitespace(this.input.charAt(this.pos))) {
+            this.pos++;
+        }
+        if (this.pos == this.input.length()) {
+            return null;
+        }
+        char c = this.input.charAt(this.pos);
+        if (c == '(' || c == ')') {
+            this.pos++;
+            return new Token(c == '(' ? Type.OPEN : Type.CLOSE, String.valueOf(c), null);
+        }
+        if (c == '"') {
+            return new Token(Type.QUOTED, this.quoted(), null);
+        }
+        if (c == '-' && this.pos + 1 < this.input.length() && !this.ends(this.input.charAt(this.pos + 1))) {
+            this.pos++;
+            return new Token(Type.NOT, "-", null);
+        }
+        int start = this.pos;
+        while (this.pos < this.input.length() && !this.ends(this.input.charAt(this.pos))) {
+            this.pos++;
+        }
+        String word = this.input.substring(start, this.pos);
+        int colon = word.indexOf(':');
+        if (colon > 0) {
+            String key = word.substring(0, colon);
+            if (colon < word.length() - 1) {
+                return new Token(Type.METADATA, key, word.substring(colon + 1));
+            }
+            if (this.pos < this.input.length() && this.input.charAt(this.pos) == '"') {
+                return new Token(Type.METADATA, key, this.quoted());
+            }
+            throw this.error("Missing metadata value for " + key);
+        }
+        switch (word) {
+            case "AND":
+                return new Token(Type.AND, word, null);
+            case "OR":
+                return new Token(Type.OR, word, null);
+            case "NOT":
+                return new Token(Type.NOT, word, null);
+            default:
+                if (word.length() > 1 && word.endsWith("*")) {
+                    return new Token(Type.PREFIX, word.substring(0, word.length() - 1), null);
+                }
+                return new Token(Type.WORD, word, null);
+        }
+    }
+
+    private boolean ends(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == '"';
+    }
+
+    //the text between the quote at pos and the next one
+    private String quoted() {
+        int close = this.input.indexOf('"', this.pos + 1);
+        if (close < 0) {
+            throw this.error("Missing closing quote");
+        }
+        String text = this.input.substring(this.pos + 1, close);
+        this.pos = close + 1;
+        return text;
+    }
+}
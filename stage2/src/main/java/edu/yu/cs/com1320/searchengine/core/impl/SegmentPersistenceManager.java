@@ -0,0 +1,520 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentCodec;
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps evicted documents in a few append-only segment files instead of one file per document.
+ * Every serialize or delete appends a record to the active segment, and an in-memory index maps each URI to
+ * the record that currently holds it, so a read is one positioned read and nothing is ever rewritten in place.
+ * Once the active segment passes segmentBytes a new one is started. Records that were overwritten or deleted
+ * are dead space; when enough of a sealed segment is dead, a background thread copies its live records to the
+ * active segment and deletes the file.
+ * Opening a directory that already has segments replays them in order to rebuild the index, cutting off
+ * a record that was only partly written.
+ * Record layout: length (int), crc32 of the rest (int), type (byte), uri length (int), uri (utf-8), encoded document.
+ * A directory must always be opened with the codec it was written with.
+ * In memory-mapped mode full segments, which never grow again, are read through a read-only mapping made once,
+ * so a binary document that is loaded keeps a view into the mapping instead of a copy on the heap (with a codec that
+ * supports that, like BinaryDocumentCodec). The active segment is read with positioned reads until it is full.
+ * A compacted segment whose mapping documents may still be viewing is only deleted once the mapping is unreachable.
+ * Loading also leaves the record in place (keepsCopyOnLoad), and serializing the same, unchanged document again
+ * writes nothing, which makes evicting a document that was only read free.
+ */
+public class SegmentPersistenceManager implements PersistenceManager<URI, Document>, Closeable {
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final byte PUT = 1, DELETE = 2;
+    //length and crc
+    private static final int HEADER = 8;
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    //deletes a compacted segment's file once nothing can be viewing its mapping
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final File directory;
+    private final long segmentBytes;
+    private final double compactionThreshold;
+    private final DocumentCodec codec;
+    private final HashMap<URI, Location> index;
+    private final TreeMap<Integer, Segment> segments;
+    private Segment active;
+    private final ExecutorService compactor;
+    private boolean compactionPending;
+    private boolean closed;
+    private final boolean memoryMapped;
+    //documents handed out by deserialize in memory-mapped mode, with their metadata at the time
+    private final HashMap<URI, Loaded> loaded;
+    private long bytesWritten;
+    //files of compacted segments that are waiting to be deleted, by id; they still count as older segments
+    private final TreeMap<Integer, File> retired;
+    //ids in retired whose mappings are gone, so their files can be deleted
+    private final Set<Integer> unmapped;
+
+    private static class Segment {
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private long size;
+        private long deadBytes;
+        private MappedByteBuffer map;
+        private Segment(int id, File file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = this.channel.size();
+        }
+        private double deadFraction() {
+            return this.size == 0 ? 0 : (double) this.deadBytes / this.size;
+        }
+    }
+
+    private record Location(Segment segment, long offset, int length) {}
+
+    private record Record(byte type, URI uri, long offset, int length, ByteBuffer payload) {}
+
+    private record Loaded(Document doc, HashMap<String, String> metadata) {}
+
+    public SegmentPersistenceManager(File baseDir) throws IOException {
+        this(baseDir, new JsonDocumentCodec());
+    }
+
+    public SegmentPersistenceManager(File baseDir, DocumentCodec codec) throws IOException {
+        this(baseDir, codec, DEFAULT_SEGMENT_BYTES, DEFAULT_COMPACTION_THRESHOLD, false);
+    }
+
+    public SegmentPersistenceManager(File baseDir, DocumentCodec codec, long segmentBytes, double compactionThreshold) throws IOException {
+        this(baseDir, codec, segmentBytes, compactionThreshold, false);
+    }
+
+    /**
+     * @param baseDir where the segment files go; the working directory if null
+     * @param codec how each document is written
+     * @param segmentBytes size at which the active segment is sealed and a new one started
+     * @param compactionThreshold fraction of a sealed segment that must be dead before it is compacted
+     * @param memoryMapped read through memory mappings and keep records in place when they are loaded
+     * @throws IOException if existing segments cannot be read
+     */
+    public SegmentPersistenceManager(File baseDir, DocumentCodec codec, long segmentBytes, double compactionThreshold,
+                                     boolean memoryMapped) throws IOException {
+        if (codec == null){
+            throw new IllegalArgumentException("Invalid Codec");
+        }
+        if (segmentBytes <= 0 || (memoryMapped && segmentBytes > Integer.MAX_VALUE / 2)){
+            throw new IllegalArgumentException("Invalid Segment Size");
+        }
+        if (compactionThreshold <= 0 || compactionThreshold > 1){
+            throw new IllegalArgumentException("Invalid Compaction Threshold");
+        }
+        this.directory = baseDir != null ? baseDir : new File(System.getProperty("user.dir"));
+        this.directory.mkdirs();
+        this.segmentBytes = segmentBytes;
+        this.compactionThreshold = compactionThreshold;
+        this.codec = codec;
+        this.memoryMapped = memoryMapped;
+        this.loaded = new HashMap<>();
+        this.retired = new TreeMap<>();
+        this.unmapped = new HashSet<>();
+        this.index = new HashMap<>();
+        this.segments = new TreeMap<>();
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "segment-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.recover();
+    }
+
+    @Override
+    public synchronized void serialize(URI uri, Document val) throws IOException {
+        if (uri == null || val == null){
+            throw new IllegalArgumentException("Invalid Key or Value");
+        }
+        this.checkOpen();
+        Loaded previous = this.loaded.remove(uri);
+        if (previous != null && previous.doc() == val && previous.metadata().equals(val.getMetadata())
+                && this.index.containsKey(uri)){
+            //the record it was loaded from is still current
+            return;
+        }
+        Location location = this.append(PUT, uri, ByteBuffer.wrap(this.codec.encode(val)));
+        this.replaced(this.index.put(uri, location));
+    }
+
+    @Override
+    public synchronized Document deserialize(URI uri) throws IOException {
+        Document doc = this.peek(uri);
+        if (this.memoryMapped){
+            this.loaded.put(uri, new Loaded(doc, doc.getMetadata()));
+        }
+        return doc;
+    }
+
+    /**
+     * read the document without remembering it as loaded, so serializing it later writes it again
+     */
+    @Override
+    public synchronized Document peek(URI uri) throws IOException {
+        this.checkOpen();
+        Location location = this.index.get(uri);
+        if (location == null){
+            throw new FileNotFoundException("No document on disk for " + uri);
+        }
+        //the index only points at records that were checked when written or recovered
+        Record record = this.read(location.segment(), location.offset(), false, this.mappable(location.segment()));
+        return this.codec.decode(record.payload());
+    }
+
+    /**
+     * delete the record stored on disk that corresponds to the given URI
+     *
+     * @return true or false to indicate if deletion occured or not
+     * @throws IOException
+     */
+    @Override
+    public synchronized boolean delete(URI uri) throws IOException {
+        this.checkOpen();
+        this.loaded.remove(uri);
+        Location old = this.index.remove(uri);
+        if (old == null){
+            return false;
+        }
+        //the tombstone keeps an older segment's record from coming back on recovery; it is dead as soon as it is written
+        Location tombstone = this.append(DELETE, uri, ByteBuffer.allocate(0));
+        tombstone.segment().deadBytes += tombstone.length();
+        this.replaced(old);
+        return true;
+    }
+
+    /**
+     * compact every sealed segment that is over the threshold now, rather than waiting for the background thread
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        this.checkOpen();
+        this.compactionPending = false;
+        for (Segment s : new ArrayList<>(this.segments.values())){
+            if (s != this.active && s.deadFraction() >= this.compactionThreshold){
+                this.compact(s);
+            }
+        }
+    }
+
+    /**
+     * @return how many segment files are on disk
+     */
+    public synchronized int segmentCount() {
+        return this.segments.size();
+    }
+
+    /**
+     * @return how many documents are on disk
+     */
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    /**
+     * @return true in memory-mapped mode: a loaded document's record stays on disk until it is deleted or replaced
+     */
+    @Override
+    public boolean keepsCopyOnLoad() {
+        return this.memoryMapped;
+    }
+
+    /**
+     * @return total bytes appended to segments since this manager was opened, including compaction
+     */
+    public synchronized long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    /**
+     * stop background compaction and close the segment files; the manager can't be used afterwards
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this){
+            if (this.closed){
+                return;
+            }
+            this.closed = true;
+            this.loaded.clear();
+            this.retiredDeleter();
+            for (Segment s : this.segments.values()){
+                s.channel.force(false);
+                s.channel.close();
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (this.closed){
+            throw new IllegalStateException("Persistence Manager is closed");
+        }
+    }
+
+    /**
+     * the record at old no longer holds anything; schedule compaction if its segment crossed the threshold
+     */
+    private void replaced(Location old) {
+        if (old == null){
+            return;
+        }
+        Segment s = old.segment();
+        s.deadBytes += old.length();
+        if (s != this.active && !this.compactionPending && s.deadFraction() >= this.compactionThreshold){
+            this.compactionPending = true;
+            this.compactor.execute(() -> {
+                try {
+                    synchronized (this){
+                        if (!this.closed){
+                            this.compact();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    private Location append(byte type, URI uri, ByteBuffer payload) throws IOException {
+        byte[] uriBytes = uri.toString().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 4 + uriBytes.length + payload.remaining();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + bodyLength);
+        buffer.putInt(bodyLength);
+        buffer.putInt(0);
+        buffer.put(type).putInt(uriBytes.length).put(uriBytes).put(payload.duplicate());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER, bodyLength);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return this.appendRecord(buffer);
+    }
+
+    private Location appendRecord(ByteBuffer record) throws IOException {
+        if (this.active.size >= this.segmentBytes){
+            this.active = this.newSegment();
+        }
+        Segment s = this.active;
+        long offset = s.size;
+        int length = record.remaining();
+        long position = offset;
+        while (record.hasRemaining()){
+            position += s.channel.write(record, position);
+        }
+        s.size += length;
+        this.bytesWritten += length;
+        return new Location(s, offset, length);
+    }
+
+    /**
+     * @param verify check the record's crc
+     * @param map read through the segment's mapping, making it if there isn't one yet; only for a segment that won't grow
+     * @return the record at offset, or null if there is no complete, intact record there
+     */
+    private Record read(Segment s, long offset, boolean verify, boolean map) throws IOException {
+        if (offset + HEADER > s.size){
+            return null;
+        }
+        ByteBuffer header = map ? this.mapped(s).slice((int) offset, HEADER) : ByteBuffer.allocate(HEADER);
+        if (!map){
+            this.readFully(s, header, offset);
+        }
+        int bodyLength = header.getInt(0);
+        if (bodyLength < 5 || offset + HEADER + bodyLength > s.size){
+            return null;
+        }
+        ByteBuffer body;
+        if (map){
+            body = this.mapped(s).slice((int) offset + HEADER, bodyLength);
+        } else {
+            body = ByteBuffer.allocate(bodyLength);
+            this.readFully(s, body, offset + HEADER);
+            body.flip();
+        }
+        if (verify){
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != header.getInt(4)){
+                return null;
+            }
+        }
+        byte type = body.get(0);
+        int uriLength = body.getInt(1);
+        if (uriLength < 0 || 5 + uriLength > bodyLength){
+            return null;
+        }
+        byte[] uriBytes = new byte[uriLength];
+        body.get(5, uriBytes);
+        URI uri;
+        try {
+            uri = URI.create(new String(uriBytes, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e){
+            return null;
+        }
+        ByteBuffer payload = body.slice(5 + uriLength, bodyLength - 5 - uriLength);
+        return new Record(type, uri, offset, HEADER + bodyLength, payload);
+    }
+
+    /**
+     * @return true if loads from the segment should be views into its mapping: it is full or sealed, so it won't grow
+     */
+    private boolean mappable(Segment s) {
+        return this.memoryMapped && (s != this.active || s.size >= this.segmentBytes);
+    }
+
+    /**
+     * @return a read-only mapping of the whole segment, made the first time it is asked for
+     */
+    private MappedByteBuffer mapped(Segment s) throws IOException {
+        if (s.map == null){
+            s.map = s.channel.map(FileChannel.MapMode.READ_ONLY, 0, s.size);
+        }
+        return s.map;
+    }
+
+    private void readFully(Segment s, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()){
+            int n = s.channel.read(buffer, position);
+            if (n < 0){
+                throw new IOException("Unexpected end of segment " + s.file.getName());
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * copy the live records of a sealed segment to the active one and delete its file
+     */
+    private void compact(Segment s) throws IOException {
+        boolean oldest = this.segments.firstKey() == s.id && (this.retired.isEmpty() || this.retired.firstKey() > s.id);
+        long offset = 0;
+        Record record;
+        //a segment that isn't mapped yet is read without mapping it, so its file can be deleted right away
+        boolean map = s.map != null;
+        while ((record = this.read(s, offset, true, map)) != null){
+            offset += record.length();
+            Location current = this.index.get(record.uri());
+            if (record.type() == PUT && current != null && current.segment() == s && current.offset() == record.offset()){
+                Location moved = this.append(PUT, record.uri(), record.payload());
+                this.index.put(record.uri(), moved);
+            } else if (record.type() == DELETE && !oldest && current == null){
+                //an older segment may still hold a put for this uri, so the tombstone has to survive
+                Location moved = this.append(DELETE, record.uri(), ByteBuffer.allocate(0));
+                moved.segment().deadBytes += moved.length();
+            }
+        }
+        this.segments.remove(s.id);
+        s.channel.close();
+        if (s.map == null){
+            Files.deleteIfExists(s.file.toPath());
+        } else {
+            //documents may still hold views into the mapping, which stays valid after the channel is closed, and
+            //some systems won't delete a mapped file, so the file is kept until the mapping can't be reached
+            this.retired.put(s.id, s.file);
+            int id = s.id;
+            CLEANER.register(s.map, () -> this.unmapped(id));
+            s.map = null;
+        }
+        this.retiredDeleter();
+    }
+
+    private synchronized void unmapped(int id) {
+        this.unmapped.add(id);
+        if (!this.closed){
+            this.retiredDeleter();
+        }
+    }
+
+    /**
+     * delete the retired files nothing is viewing any more; one the system still won't delete is tried again later
+     */
+    private void retiredDeleter() {
+        for (Iterator<Integer> ids = this.unmapped.iterator(); ids.hasNext(); ){
+            int id = ids.next();
+            File file = this.retired.get(id);
+            if (file == null || file.delete() || !file.exists()){
+                this.retired.remove(id);
+                ids.remove();
+            }
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        int id = this.segments.isEmpty() ? 1 : this.segments.lastKey() + 1;
+        Segment s = new Segment(id, new File(this.directory, String.format("%s%06d%s", PREFIX, id, SUFFIX)));
+        this.segments.put(id, s);
+        return s;
+    }
+
+    /**
+     * replay existing segments oldest first to rebuild the index
+     */
+    private void recover() throws IOException {
+        File[] files = this.directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files != null){
+            for (File f : files){
+                String number = f.getName().substring(PREFIX.length(), f.getName().length() - SUFFIX.length());
+                try {
+                    int id = Integer.parseInt(number);
+                    this.segments.put(id, new Segment(id, f));
+                } catch (NumberFormatException e){
+                    //not one of ours
+                }
+            }
+        }
+        for (Segment s : this.segments.values()){
+            long offset = 0;
+            Record record;
+            while ((record = this.read(s, offset, true, false)) != null){
+                offset += record.length();
+                if (record.type() == PUT){
+                    Location old = this.index.put(record.uri(), new Location(s, record.offset(), record.length()));
+                    if (old != null){
+                        old.segment().deadBytes += old.length();
+                    }
+                } else {
+                    s.deadBytes += record.length();
+                    Location old = this.index.remove(record.uri());
+                    if (old != null){
+                        old.segment().deadBytes += old.length();
+                    }
+                }
+            }
+            if (offset < s.size){
+                //a write that was cut off part way through
+                s.channel.truncate(offset);
+                s.size = offset;
+            }
+        }
+        this.active = this.segments.isEmpty() ? this.newSegment() : this.segments.lastEntry().getValue();
+    }
+}
@@ -3,10 +3,30 @@ package edu.yu.cs.com1320.searchengine.datastructures;
 import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
 
-public interface BTree<Key extends Comparable<Key>, Value> {
+public interface BTree<Key extends Comparable<Key>, Value> extends Iterable<Map.Entry<Key, Value>> {
     Value get(Key k);
     Value put(Key k, Value v);
     void moveToDisk(Key k) throws IOException;
     void setPersistenceManager(PersistenceManager<Key,Value> pm);
-}
\ No newline at end of file
+
+    /**
+     * entries whose keys are >= fromKey and < toKey, in key order. A null bound leaves that end of the range open.
+     * A value that was moved to disk is only read back, as by get, when getValue is called on its entry.
+     * The tree must not be modified while the iterator is in use.
+     * @param fromKey lowest key to include, or null
+     * @param toKey first key not to include, or null
+     * @return iterator over the entries in the range
+     */
+    Iterator<Map.Entry<Key, Value>> range(Key fromKey, Key toKey);
+
+    /**
+     * @return iterator over all entries in key order, see range
+     */
+    @Override
+    default Iterator<Map.Entry<Key, Value>> iterator() {
+        return this.range(null, null);
+    }
+}
@@ -0,0 +1,43 @@
+package edu.yu.cs.com1320.searchengine.datastructures;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Decides which in-memory element should be moved out of memory next.
+ * The policy only tracks elements; moving them to disk is up to the caller.
+ * @param <E>
+ */
+public interface EvictionPolicy<E> {
+    /**
+     * start tracking an element that was just brought into memory
+     * @param element
+     * @throws IllegalArgumentException if the element is already tracked
+     */
+    void add(E element);
+
+    /**
+     * the element was used again while in memory
+     * @param element
+     * @throws NoSuchElementException if the element is not tracked
+     */
+    void recordAccess(E element);
+
+    /**
+     * stop tracking an element that left memory for some reason other than eviction, e.g. it was deleted
+     * @param element
+     * @throws NoSuchElementException if the element is not tracked
+     */
+    void remove(E element);
+
+    /**
+     * choose the element to move out of memory and stop tracking it
+     * @return the chosen element
+     * @throws NoSuchElementException if nothing is tracked
+     */
+    E evict();
+
+    /**
+     * @return how many elements are currently tracked
+     */
+    int size();
+}
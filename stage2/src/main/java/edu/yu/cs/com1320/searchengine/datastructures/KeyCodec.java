@@ -0,0 +1,12 @@
+package edu.yu.cs.com1320.searchengine.datastructures;
+
+/**
+ * Turns keys into bytes so that a tree can store them in pages on disk.
+ * decode(encode(k)) must compare equal to k.
+ * @param <Key>
+ */
+public interface KeyCodec<Key> {
+    byte[] encode(Key key);
+
+    Key decode(byte[] bytes);
+}
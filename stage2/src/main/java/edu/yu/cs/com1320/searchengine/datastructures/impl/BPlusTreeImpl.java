@@ -0,0 +1,595 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
+import edu.yu.cs.com1320.searchengine.datastructures.BTree;
+import edu.yu.cs.com1320.searchengine.datastructures.KeyCodec;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * B+tree whose nodes are fixed-size pages in a single file, so the tree structure and the keys live on disk
+ * and only the pages in the buffer pool are on the heap.
+ * Internal pages hold separator keys and child page numbers; leaf pages hold the keys themselves and are linked
+ * left to right. A page splits when it has more than fanOut keys or its keys no longer fit in pageSize bytes.
+ * The buffer pool keeps the most recently used pages in memory and writes a changed page back when it is pushed out.
+ * Pages keep their keys encoded; a search only decodes the keys its binary search lands on.
+ * Values are not stored in pages: a value is either in memory or was moved to disk through the persistence manager,
+ * exactly as in BTreeImpl. Deleting a key removes it from its leaf without merging pages.
+ * Page 0 is a header: magic, page size, fan-out, root page, height, page count, key count.
+ * Values still in memory are not saved by close; move them to disk first if the file will be reopened.
+ * Not thread safe.
+ * @param <Key>
+ * @param <Value>
+ */
+public class BPlusTreeImpl<Key extends Comparable<Key>, Value> implements BTree<Key, Value>, Closeable {
+    private static final int MAGIC = 0x42505431;
+    private static final byte LEAF = 1, INTERNAL = 2;
+    //type, key count, next leaf
+    private static final int NODE_HEADER = 1 + 2 + 4;
+    public static final int DEFAULT_FAN_OUT = 256;
+    public static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+    public static final int DEFAULT_POOL_PAGES = 1024;
+
+    private final FileChannel channel;
+    private final KeyCodec<Key> keyCodec;
+    private final int fanOut;
+    private final int pageSize;
+    private final int maxKeyBytes;
+    private final LinkedHashMap<Integer, Node> pool;
+    private final HashMap<Key, Value> resident;
+    private PersistenceManager<Key, Value> yogi;
+    private int root;
+    private int height;
+    private int pageCount;
+    private long size;
+    private boolean closed;
+
+    private class Node {
+        private final int id;
+        private final boolean leaf;
+        private final ArrayList<byte[]> keys;
+        //internal pages: keys.size() + 1 children, child i holds keys >= keys[i - 1] and < keys[i]
+        private int[] children;
+        //leaf pages: page number of the next leaf, or -1
+        private int next;
+        //encoded size of this page's contents
+        private int bytes;
+        private boolean dirty;
+        private Node(int id, boolean leaf) {
+            this.id = id;
+            this.leaf = leaf;
+            this.keys = new ArrayList<>();
+            this.children = leaf ? null : new int[fanOut + 2];
+            this.next = -1;
+            this.bytes = NODE_HEADER + (leaf ? 0 : 4);
+        }
+        private int entryBytes(int keyLength) {
+            return 2 + keyLength + (this.leaf ? 0 : 4);
+        }
+        private boolean overflowing() {
+            return this.keys.size() > fanOut || this.bytes > pageSize;
+        }
+    }
+
+    public BPlusTreeImpl(File file, KeyCodec<Key> keyCodec) throws IOException {
+        this(file, keyCodec, DEFAULT_FAN_OUT, DEFAULT_PAGE_SIZE, DEFAULT_POOL_PAGES);
+    }
+
+    /**
+     * open the tree in file, or start a new one if the file is empty or doesn't exist.
+     * An existing file keeps the fan-out and page size it was created with.
+     * @param file
+     * @param keyCodec
+     * @param fanOut most keys in one page
+     * @param pageSize bytes per page; a key may take at most about a quarter of a page
+     * @param poolPages how many pages the buffer pool keeps in memory
+     * @throws IOException
+     */
+    public BPlusTreeImpl(File file, KeyCodec<Key> keyCodec, int fanOut, int pageSize, int poolPages) throws IOException {
+        if (file == null || keyCodec == null){
+            throw new IllegalArgumentException("Invalid File or Key Codec");
+        }
+        if (fanOut < 3 || fanOut > Short.MAX_VALUE || pageSize < 256 || poolPages < 8){
+            throw new IllegalArgumentException("Invalid Tree Parameters");
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.keyCodec = keyCodec;
+        this.resident = new HashMap<>();
+        if (this.channel.size() > 0){
+            ByteBuffer header = ByteBuffer.allocate(32);
+            this.readFully(header, 0);
+            if (header.getInt(0) != MAGIC){
+                this.channel.close();
+                throw new IOException("Not a B+tree file: " + file);
+            }
+            pageSize = header.getInt(4);
+            fanOut = header.getInt(8);
+            this.root = header.getInt(12);
+            this.height = header.getInt(16);
+            this.pageCount = header.getInt(20);
+            this.size = header.getLong(24);
+        }
+        this.fanOut = fanOut;
+        this.pageSize = pageSize;
+        //an overflowing page can then always be split into two pages that fit
+        this.maxKeyBytes = (pageSize - NODE_HEADER - 4) / 4 - 6;
+        int capacity = poolPages;
+        this.pool = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+                if (this.size() <= capacity){
+                    return false;
+                }
+                if (eldest.getValue().dirty){
+                    try {
+                        BPlusTreeImpl.this.write(eldest.getValue());
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return true;
+            }
+        };
+        if (this.pageCount == 0){
+            this.pageCount = 1;
+            this.root = this.allocate(true).id;
+            this.height = 0;
+        }
+    }
+
+    /**
+     * @param key the key whose value should be returned
+     * @return the value that is stored in the tree for key, or null if there is no such key in the tree
+     */
+    @Override
+    public Value get(Key key) {
+        if (key == null) {
+            throw new IllegalArgumentException("argument to get() is null");
+        }
+        this.checkOpen();
+        byte[] encoded = this.keyCodec.encode(key);
+        Node leaf = this.findLeaf(key, encoded, null, null);
+        if (this.search(leaf, key, encoded) < 0){
+            return null;
+        }
+        Value val = this.resident.get(key);
+        if (val != null){
+            return val;
+        }
+        if (this.yogi == null){
+            throw new IllegalStateException("No Persistence Manager");
+        }
+        try {
+            val = this.yogi.deserialize(key);
+            if (!this.yogi.keepsCopyOnLoad()){
+                this.yogi.delete(key);
+            }
+        } catch (FileNotFoundException e){
+            // entry does not exist anymore
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.resident.put(key, val);
+        return val;
+    }
+
+    /**
+     * @return the old value, or null if there was none; a null val deletes the key
+     */
+    @Override
+    public Value put(Key key, Value val) {
+        if (key == null) {
+            throw new IllegalArgumentException("argument key to put() is null");
+        }
+        this.checkOpen();
+        byte[] encoded = this.keyCodec.encode(key);
+        if (encoded.length > this.maxKeyBytes){
+            throw new IllegalArgumentException("Key is too large for a page");
+        }
+        Node[] path = (Node[]) new BPlusTreeImpl.Node[this.height + 1];
+        int[] slots = new int[this.height + 1];
+        Node leaf = this.findLeaf(key, encoded, path, slots);
+        int pos = this.search(leaf, key, encoded);
+        if (pos >= 0){
+            Value old = this.replaceOrDelete(key, val);
+            if (val == null){
+                leaf.keys.remove(pos);
+                leaf.bytes -= leaf.entryBytes(encoded.length);
+                this.size--;
+                this.dirty(leaf);
+            }
+            return old;
+        }
+        if (val == null){
+            return null;
+        }
+        leaf.keys.add(-(pos + 1), encoded);
+        leaf.bytes += leaf.entryBytes(encoded.length);
+        this.resident.put(key, val);
+        this.size++;
+        this.dirty(leaf);
+        this.splitUp(path, slots);
+        return null;
+    }
+
+    private Value replaceOrDelete(Key key, Value val) {
+        Value old = this.resident.get(key);
+        if (old == null){
+            if (this.yogi == null){
+                throw new IllegalStateException("No Persistence Manager");
+            }
+            // the old value is on disk
+            try {
+                old = this.yogi.deserialize(key);
+                this.yogi.delete(key);
+            } catch (FileNotFoundException e){
+                old = null;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else if (this.yogi != null && this.yogi.keepsCopyOnLoad()){
+            // the copy left on disk when the value was loaded is stale now
+            try {
+                this.yogi.delete(key);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (val == null){
+            this.resident.remove(key);
+        } else {
+            this.resident.put(key, val);
+        }
+        return old;
+    }
+
+    @Override
+    public void moveToDisk(Key k) throws IOException {
+        if (k == null) {
+            throw new IllegalArgumentException("Argument to moveToDisk() is null");
+        }
+        this.checkOpen();
+        byte[] encoded = this.keyCodec.encode(k);
+        Node leaf = this.findLeaf(k, encoded, null, null);
+        if (this.search(leaf, k, encoded) < 0){
+            throw new IllegalArgumentException("Entry does not exist for this key");
+        }
+        Value val = this.resident.get(k);
+        if (val == null){
+            return;
+        }
+        if (this.yogi == null){
+            throw new IllegalStateException("No Persistence Manager");
+        }
+        this.yogi.serialize(k, val);
+        this.resident.remove(k);
+    }
+
+    /**
+     * walks the linked leaves from the leaf holding fromKey, reading pages only as the iterator reaches them
+     */
+    @Override
+    public Iterator<Map.Entry<Key, Value>> range(Key fromKey, Key toKey) {
+        this.checkOpen();
+        Node leaf;
+        int pos;
+        if (fromKey == null){
+            leaf = this.node(this.root);
+            for (int level = this.height; level > 0; level--){
+                leaf = this.node(leaf.children[0]);
+            }
+            pos = 0;
+        } else {
+            byte[] encoded = this.keyCodec.encode(fromKey);
+            leaf = this.findLeaf(fromKey, encoded, null, null);
+            pos = this.search(leaf, fromKey, encoded);
+            pos = pos >= 0 ? pos : -(pos + 1);
+        }
+        return new LeafIterator(leaf, pos, toKey);
+    }
+
+    private class LeafIterator implements Iterator<Map.Entry<Key, Value>> {
+        private final Key toKey;
+        private Node leaf;
+        private int pos;
+        private Key nextKey;
+
+        private LeafIterator(Node leaf, int pos, Key toKey) {
+            this.leaf = leaf;
+            this.pos = pos;
+            this.toKey = toKey;
+            this.advance();
+        }
+
+        /**
+         * decode the key at pos into nextKey, moving on to the following leaves as they run out; null at the end
+         */
+        private void advance() {
+            this.nextKey = null;
+            while (this.pos >= this.leaf.keys.size()){
+                if (this.leaf.next < 0){
+                    return;
+                }
+                this.leaf = node(this.leaf.next);
+                this.pos = 0;
+            }
+            Key key = keyCodec.decode(this.leaf.keys.get(this.pos++));
+            if (this.toKey == null || key.compareTo(this.toKey) < 0){
+                this.nextKey = key;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextKey != null;
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            if (this.nextKey == null){
+                throw new NoSuchElementException();
+            }
+            checkOpen();
+            Map.Entry<Key, Value> entry = new LazyEntry<>(BPlusTreeImpl.this, this.nextKey);
+            this.advance();
+            return entry;
+        }
+    }
+
+    @Override
+    public void setPersistenceManager(PersistenceManager<Key, Value> pm) {
+        this.yogi = pm;
+    }
+
+    /**
+     * @return how many keys are in the tree, whether their values are in memory or on disk
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * write every changed page and the header to the file
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        this.checkOpen();
+        for (Node n : this.pool.values()){
+            if (n.dirty){
+                this.write(n);
+            }
+        }
+        ByteBuffer header = ByteBuffer.allocate(32);
+        header.putInt(MAGIC).putInt(this.pageSize).putInt(this.fanOut).putInt(this.root)
+                .putInt(this.height).putInt(this.pageCount).putLong(this.size);
+        header.flip();
+        this.writeFully(header, 0);
+        this.channel.force(false);
+    }
+
+    /**
+     * flush and close the file; the tree can't be used afterwards
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed){
+            return;
+        }
+        this.flush();
+        this.closed = true;
+        this.pool.clear();
+        this.resident.clear();
+        this.channel.close();
+    }
+
+    private void checkOpen() {
+        if (this.closed){
+            throw new IllegalStateException("Tree is closed");
+        }
+    }
+
+    /**
+     * walk from the root to the leaf where key belongs, recording the pages and child slots on the way if asked
+     */
+    private Node findLeaf(Key key, byte[] encoded, Node[] path, int[] slots) {
+        Node n = this.node(this.root);
+        for (int level = this.height; level > 0; level--){
+            int pos = this.search(n, key, encoded);
+            //keys equal to a separator live in the child to its right
+            int slot = pos >= 0 ? pos + 1 : -(pos + 1);
+            if (path != null){
+                path[level] = n;
+                slots[level] = slot;
+            }
+            n = this.node(n.children[slot]);
+        }
+        if (path != null){
+            path[0] = n;
+        }
+        return n;
+    }
+
+    /**
+     * binary search of the page's keys, decoding only the keys it compares against
+     * @return the index of key, or (-(insertion point) - 1) as in Collections.binarySearch
+     */
+    private int search(Node n, Key key, byte[] encoded) {
+        int low = 0;
+        int high = n.keys.size() - 1;
+        while (low <= high){
+            int mid = (low + high) >>> 1;
+            byte[] stored = n.keys.get(mid);
+            int cmp = Arrays.equals(stored, encoded) ? 0 : this.keyCodec.decode(stored).compareTo(key);
+            if (cmp < 0){
+                low = mid + 1;
+            } else if (cmp > 0){
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * split the leaf at the bottom of path if it overflows, and each parent that overflows because of that
+     */
+    private void splitUp(Node[] path, int[] slots) {
+        for (int level = 0; path[level].overflowing(); level++){
+            Node n = path[level];
+            Node right = this.allocate(n.leaf);
+            byte[] separator = this.split(n, right);
+            if (level == this.height){
+                Node newRoot = this.allocate(false);
+                newRoot.keys.add(separator);
+                newRoot.children[0] = n.id;
+                newRoot.children[1] = right.id;
+                newRoot.bytes += newRoot.entryBytes(separator.length);
+                this.root = newRoot.id;
+                this.height++;
+                return;
+            }
+            Node parent = path[level + 1];
+            int slot = slots[level + 1];
+            parent.keys.add(slot, separator);
+            System.arraycopy(parent.children, slot + 1, parent.children, slot + 2, parent.keys.size() - slot - 1);
+            parent.children[slot + 1] = right.id;
+            parent.bytes += parent.entryBytes(separator.length);
+            this.dirty(parent);
+        }
+    }
+
+    /**
+     * move the upper part of n into the empty page right, splitting where the bytes are about even
+     * @return the separator to add to the parent
+     */
+    private byte[] split(Node n, Node right) {
+        int count = n.keys.size();
+        int[] lengths = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++){
+            lengths[i] = n.entryBytes(n.keys.get(i).length);
+            total += lengths[i];
+        }
+        //leaves keep at least one key on each side; internal pages also give one key to the parent
+        int at = 1;
+        int leftBytes = lengths[0];
+        int last = n.leaf ? count - 1 : count - 2;
+        while (at < last && leftBytes + lengths[at] <= total / 2){
+            leftBytes += lengths[at++];
+        }
+        byte[] separator = n.keys.get(at);
+        int from = n.leaf ? at : at + 1;
+        right.keys.addAll(n.keys.subList(from, count));
+        for (int i = from; i < count; i++){
+            right.bytes += lengths[i];
+        }
+        if (n.leaf){
+            right.next = n.next;
+            n.next = right.id;
+        } else {
+            System.arraycopy(n.children, at + 1, right.children, 0, count - at);
+        }
+        n.keys.subList(at, count).clear();
+        n.bytes = NODE_HEADER + (n.leaf ? 0 : 4) + leftBytes;
+        this.dirty(n);
+        this.dirty(right);
+        return separator;
+    }
+
+    private Node allocate(boolean leaf) {
+        Node n = new Node(this.pageCount++, leaf);
+        this.dirty(n);
+        return n;
+    }
+
+    /**
+     * the page was changed; (re)insert it in the pool so it gets written back
+     */
+    private void dirty(Node n) {
+        n.dirty = true;
+        this.pool.put(n.id, n);
+    }
+
+    private Node node(int id) {
+        Node n = this.pool.get(id);
+        if (n != null){
+            return n;
+        }
+        try {
+            n = this.read(id);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.pool.put(id, n);
+        return n;
+    }
+
+    private Node read(int id) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(this.pageSize);
+        this.readFully(page, (long) id * this.pageSize);
+        page.flip();
+        boolean leaf = page.get() == LEAF;
+        Node n = new Node(id, leaf);
+        int count = page.getShort();
+        n.next = page.getInt();
+        if (!leaf){
+            n.children = new int[Math.max(this.fanOut + 2, count + 2)];
+            n.children[0] = page.getInt();
+        }
+        for (int i = 0; i < count; i++){
+            byte[] key = new byte[page.getShort()];
+            page.get(key);
+            n.keys.add(key);
+            if (!leaf){
+                n.children[i + 1] = page.getInt();
+            }
+        }
+        n.bytes = page.position();
+        return n;
+    }
+
+    private void write(Node n) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(this.pageSize);
+        page.put(n.leaf ? LEAF : INTERNAL).putShort((short) n.keys.size()).putInt(n.next);
+        if (!n.leaf){
+            page.putInt(n.children[0]);
+        }
+        for (int i = 0; i < n.keys.size(); i++){
+            byte[] key = n.keys.get(i);
+            page.putShort((short) key.length).put(key);
+            if (!n.leaf){
+                page.putInt(n.children[i + 1]);
+            }
+        }
+        page.rewind();
+        this.writeFully(page, (long) n.id * this.pageSize);
+        n.dirty = false;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()){
+            int n = this.channel.read(buffer, position);
+            if (n < 0){
+                //a page that was allocated but never written; the rest is zeros
+                break;
+            }
+            position += n;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()){
+            position += this.channel.write(buffer, position);
+        }
+    }
+}
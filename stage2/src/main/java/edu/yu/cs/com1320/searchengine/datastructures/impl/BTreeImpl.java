@@ -5,6 +5,10 @@ import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public class BTreeImpl<Key extends Comparable<Key>, Value> implements BTree<Key, Value> {
     
@@ -36,15 +40,22 @@ public class BTreeImpl<Key extends Comparable<Key>, Value> implements BTree<Key,
             return null;
         }
         if (entry.val == null){
+            if (!entry.onDisk){
+                // entry was deleted
+                return null;
+            }
             if (this.yogi == null){
                 throw new IllegalStateException("No Persistence Manager");
             }
-            // checks if entries with null values are on disk
             try {
                 entry.val = this.yogi.deserialize(key);
-                this.yogi.delete(key);
+                entry.onDisk = false;
+                if (!this.yogi.keepsCopyOnLoad()){
+                    this.yogi.delete(key);
+                }
             } catch (FileNotFoundException e){
                 // entry does not exist anymore
+                entry.onDisk = false;
                 return null;
             } catch (IOException e) {
                 throw new RuntimeException(e);
@@ -123,21 +134,34 @@ public class BTreeImpl<Key extends Comparable<Key>, Value> implements BTree<Key,
     }
 
     private Value replaceOrDelete(Key key, Value val, Entry<Key, Value> alreadyThere) {
+        if (alreadyThere.val == null && !alreadyThere.onDisk){
+            // entry was deleted
+            alreadyThere.val = val;
+            return null;
+        }
         if (alreadyThere.val == null){
             if (this.yogi == null){
                 throw new IllegalStateException("No Persistence Manager");
             }
-            // checks if entries with null values are on disk
             try {
                 alreadyThere.val = this.yogi.deserialize(key);
+                alreadyThere.onDisk = false;
                 this.yogi.delete(key);
             } catch (FileNotFoundException e){
+                alreadyThere.onDisk = false;
                 // entry does not exist anymore
                 alreadyThere.val = val;
                 return null;
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+        } else if (this.yogi != null && this.yogi.keepsCopyOnLoad()){
+            // the copy left on disk when the value was loaded is stale now
+            try {
+                this.yogi.delete(key);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
         }
         Value temp = alreadyThere.val;
         alreadyThere.val = val;
@@ -255,7 +279,102 @@ public class BTreeImpl<Key extends Comparable<Key>, Value> implements BTree<Key,
         if (this.yogi == null){
             throw new IllegalStateException("No Persistence Manager");
         }
-        this.yogi.serialize(k, this.put(k, null));
+        this.yogi.serialize(k, entry.val);
+        entry.val = null;
+        entry.onDisk = true;
+    }
+
+    @Override
+    public Iterator<Map.Entry<Key, Value>> range(Key fromKey, Key toKey) {
+        List<Map.Entry<Key, Value>> inRange = new ArrayList<>();
+        this.collect(this.root, this.height, fromKey, toKey, inRange);
+        return inRange.iterator();
+    }
+
+    /**
+     * adds an entry for every live key of the subtree that falls in [fromKey, toKey), in order.
+     * Only keys are gathered, so nothing is read from disk here.
+     */
+    private void collect(Node currentNode, int height, Key fromKey, Key toKey, List<Map.Entry<Key, Value>> inRange) {
+        Entry<?, ?>[] entries = currentNode.entries;
+        for (int i = 0; i < currentNode.entryCount; i++) {
+            Entry<Key, Value> entry = (Entry<Key, Value>) entries[i];
+            if (!entry.isSentinel && toKey != null && !less(entry.key, toKey)) {
+                return;
+            }
+            if (height == 0) {
+                if (!entry.isSentinel && (entry.val != null || entry.onDisk) && (fromKey == null || !less(entry.key, fromKey))) {
+                    inRange.add(new LazyEntry<>(this, entry.key));
+                }
+            }
+            // the child holds keys below the next entry's key, so it can be skipped when that is <= fromKey
+            else if (i + 1 == currentNode.entryCount || fromKey == null || less(fromKey, entries[i + 1].key)) {
+                this.collect(entry.child, height - 1, fromKey, toKey, inRange);
+            }
+        }
+    }
+
+    /**
+     * replace the contents of this tree, which must not hold any keys, with a tree built bottom up from entries in
+     * ascending key order. Each level is cut into nodes of up to MAX - 1 entries, the most a node holds without
+     * splitting, so n entries load in O(n) time instead of n root-to-leaf puts.
+     * A null value marks a key whose value is already on disk with the persistence manager; get reads it back.
+     * @param sorted entries in strictly ascending key order
+     * @throws IllegalArgumentException if sorted is null, or a key is null or not greater than the one before it
+     * @throws IllegalStateException if the tree already holds keys
+     */
+    public void bulkLoad(Iterator<? extends Map.Entry<Key, Value>> sorted) {
+        if (sorted == null) {
+            throw new IllegalArgumentException("argument to bulkLoad() is null");
+        }
+        if (this.iterator().hasNext()) {
+            throw new IllegalStateException("Tree is not empty");
+        }
+        List<Entry<Key, Value>> level = new ArrayList<>();
+        level.add(new Entry<>(null, null, null));
+        Key previous = null;
+        while (sorted.hasNext()) {
+            Map.Entry<Key, Value> next = sorted.next();
+            Key key = next.getKey();
+            if (key == null || (previous != null && !less(previous, key))) {
+                throw new IllegalArgumentException("Keys must be non-null and in strictly ascending order");
+            }
+            Entry<Key, Value> entry = new Entry<>(key, next.getValue(), null);
+            entry.onDisk = entry.val == null;
+            level.add(entry);
+            previous = key;
+        }
+        List<Node> nodes = this.pack(level);
+        int newHeight = 0;
+        while (nodes.size() > 1) {
+            level = new ArrayList<>(nodes.size());
+            for (Node n : nodes) {
+                //the leftmost node starts with the sentinel, so its parent entry is a sentinel too
+                level.add(new Entry<>((Key) n.entries[0].key, null, n));
+            }
+            nodes = this.pack(level);
+            newHeight++;
+        }
+        this.root = nodes.get(0);
+        this.height = newHeight;
+    }
+
+    /**
+     * cut one level's entries into as few nodes as possible, spreading them evenly
+     */
+    private List<Node> pack(List<Entry<Key, Value>> entries) {
+        int count = (entries.size() + MAX - 2) / (MAX - 1);
+        List<Node> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = (int) ((long) entries.size() * i / count);
+            int to = (int) ((long) entries.size() * (i + 1) / count);
+            Node n = new Node(to - from);
+            for (int j = from; j < to; j++) {
+                n.entries[j - from] = entries.get(j);
+            }
+            nodes.add(n);
+        }
+        return nodes;
     }
 
     @Override
@@ -285,6 +404,8 @@ public class BTreeImpl<Key extends Comparable<Key>, Value> implements BTree<Key,
         private Value val;
         private Node child;
         private boolean isSentinel;
+        //the value was moved to disk; a null val with this unset means the key was deleted
+        private boolean onDisk;
 
         private Entry(Key key, Value val, Node child) {
             if (key != null) {
@@ -0,0 +1,117 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.EvictionPolicy;
+
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * CLOCK (second chance) eviction.
+ * Elements sit in a circular array with a referenced bit. An access only sets the bit, so it costs O(1) and
+ * never reorders anything; the hand clears bits as it sweeps and evicts the first element whose bit is clear.
+ * New elements start with the bit clear, so a one-off scan is evicted before anything that was used twice.
+ * @param <E>
+ */
+public class ClockEvictionPolicy<E> implements EvictionPolicy<E> {
+    private Object[] slots;
+    private boolean[] referenced;
+    private HashMap<E, Integer> positions;
+    //indexes of empty slots below slotsUsed
+    private int[] free;
+    private int freeCount;
+    private int slotsUsed;
+    private int hand;
+
+    public ClockEvictionPolicy(){
+        this.slots = new Object[8];
+        this.referenced = new boolean[8];
+        this.free = new int[8];
+        this.positions = new HashMap<>();
+    }
+
+    @Override
+    public void add(E element) {
+        if (this.positions.containsKey(element)){
+            throw new IllegalArgumentException("Element is already tracked");
+        }
+        int slot;
+        if (this.freeCount > 0){
+            slot = this.free[--this.freeCount];
+        } else {
+            if (this.slotsUsed == this.slots.length){
+                this.doubleArraySize();
+            }
+            slot = this.slotsUsed++;
+        }
+        this.slots[slot] = element;
+        this.referenced[slot] = false;
+        this.positions.put(element, slot);
+    }
+
+    @Override
+    public void recordAccess(E element) {
+        this.referenced[this.slotOf(element)] = true;
+    }
+
+    @Override
+    public void remove(E element) {
+        this.clear(this.slotOf(element));
+    }
+
+    @Override
+    public E evict() {
+        if (this.positions.isEmpty()){
+            throw new NoSuchElementException("Nothing to evict");
+        }
+        //terminates within two sweeps: the first clears every bit it passes
+        while (true) {
+            if (this.hand >= this.slotsUsed){
+                this.hand = 0;
+            }
+            int slot = this.hand++;
+            if (this.slots[slot] == null){
+                continue;
+            }
+            if (this.referenced[slot]){
+                this.referenced[slot] = false;
+                continue;
+            }
+            E victim = (E) this.slots[slot];
+            this.clear(slot);
+            return victim;
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.positions.size();
+    }
+
+    private int slotOf(E element) {
+        Integer slot = this.positions.get(element);
+        if (slot == null){
+            throw new NoSuchElementException("Element is not tracked");
+        }
+        return slot;
+    }
+
+    private void clear(int slot) {
+        this.positions.remove((E) this.slots[slot]);
+        this.slots[slot] = null;
+        this.referenced[slot] = false;
+        this.free[this.freeCount++] = slot;
+    }
+
+    private void doubleArraySize() {
+        int length = this.slots.length * 2;
+        Object[] newSlots = new Object[length];
+        boolean[] newReferenced = new boolean[length];
+        int[] newFree = new int[length];
+        System.arraycopy(this.slots, 0, newSlots, 0, this.slots.length);
+        System.arraycopy(this.referenced, 0, newReferenced, 0, this.referenced.length);
+        System.arraycopy(this.free, 0, newFree, 0, this.freeCount);
+        this.slots = newSlots;
+        this.referenced = newReferenced;
+        this.free = newFree;
+    }
+}
@@ -0,0 +1,110 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.MinHeap;
+
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * MinHeap that remembers where every element sits in the array.
+ * The position map is updated on every swap, so finding an element is a hash lookup
+ * and reHeapify and removal of an arbitrary element are O(log n).
+ * An element may only be in the heap once.
+ * @param <E>
+ */
+public class IndexedMinHeapImpl<E extends Comparable<E>> extends MinHeap<E> {
+    private HashMap<E, Integer> positions;
+
+    public IndexedMinHeapImpl(){
+        this.elements = (E[]) new Comparable[8];
+        this.positions = new HashMap<>();
+    }
+
+    @Override
+    public void reHeapify(E element) {
+        int loc = this.getArrayIndex(element);
+        this.upHeap(loc);
+        this.downHeap(this.positions.get(element));
+    }
+
+    @Override
+    protected int getArrayIndex(E element) {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        Integer loc = this.positions.get(element);
+        if (loc == null){
+            throw new NoSuchElementException("Searched element is not in the heap");
+        }
+        return loc;
+    }
+
+    @Override
+    protected void doubleArraySize() {
+        E[] temp = (E[]) new Comparable[this.elements.length*2-1];
+        for (int i = 1; i < this.elements.length; i++){
+            temp[i] = this.elements[i];
+        }
+        this.elements = temp;
+    }
+
+    @Override
+    protected void swap(int i, int j) {
+        super.swap(i, j);
+        this.positions.put(this.elements[i], i);
+        this.positions.put(this.elements[j], j);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the element is already in the heap
+     */
+    @Override
+    public void insert(E x) {
+        if (this.positions.containsKey(x)){
+            throw new IllegalArgumentException("Element is already in the heap");
+        }
+        if (this.count >= this.elements.length - 1) {
+            this.doubleArraySize();
+        }
+        this.elements[++this.count] = x;
+        this.positions.put(x, this.count);
+        this.upHeap(this.count);
+    }
+
+    @Override
+    public E remove() {
+        E min = super.remove();
+        this.positions.remove(min);
+        return min;
+    }
+
+    /**
+     * remove the given element from wherever it is in the heap
+     * @param element
+     * @throws NoSuchElementException if the element is not in the heap
+     */
+    public void remove(E element) {
+        int loc = this.getArrayIndex(element);
+        int last = this.count;
+        if (loc != last){
+            this.swap(loc, last);
+        }
+        this.elements[last] = null;
+        this.count--;
+        this.positions.remove(element);
+        if (loc <= this.count){
+            //the element moved into the hole may belong above or below it
+            E moved = this.elements[loc];
+            this.upHeap(loc);
+            this.downHeap(this.positions.get(moved));
+        }
+    }
+
+    public boolean contains(E element) {
+        return this.positions.containsKey(element);
+    }
+
+    public int size() {
+        return this.count;
+    }
+}
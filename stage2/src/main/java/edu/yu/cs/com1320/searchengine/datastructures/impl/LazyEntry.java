@@ -0,0 +1,45 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.BTree;
+
+import java.util.Map;
+
+/**
+ * entry handed out by BTree iteration: the value is fetched through the tree's get, and so read back from disk if
+ * it was moved there, the first time getValue is called
+ */
+class LazyEntry<Key extends Comparable<Key>, Value> implements Map.Entry<Key, Value> {
+    private final BTree<Key, Value> tree;
+    private final Key key;
+    private Value value;
+    private boolean loaded;
+
+    LazyEntry(BTree<Key, Value> tree, Key key) {
+        this.tree = tree;
+        this.key = key;
+    }
+
+    @Override
+    public Key getKey() {
+        return this.key;
+    }
+
+    @Override
+    public Value getValue() {
+        if (!this.loaded){
+            this.value = this.tree.get(this.key);
+            this.loaded = true;
+        }
+        return this.value;
+    }
+
+    @Override
+    public Value setValue(Value value) {
+        throw new UnsupportedOperationException("use BTree.put");
+    }
+
+    @Override
+    public String toString() {
+        return this.key + "=" + (this.loaded ? this.value : "...");
+    }
+}
@@ -0,0 +1,42 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.EvictionPolicy;
+
+/**
+ * Strict least recently used eviction.
+ * Elements order themselves by last use (for documents, Document.compareTo compares last use times),
+ * and the caller updates that time before calling recordAccess.
+ * @param <E>
+ */
+public class LruEvictionPolicy<E extends Comparable<E>> implements EvictionPolicy<E> {
+    private IndexedMinHeapImpl<E> heap;
+
+    public LruEvictionPolicy(){
+        this.heap = new IndexedMinHeapImpl<>();
+    }
+
+    @Override
+    public void add(E element) {
+        this.heap.insert(element);
+    }
+
+    @Override
+    public void recordAccess(E element) {
+        this.heap.reHeapify(element);
+    }
+
+    @Override
+    public void remove(E element) {
+        this.heap.remove(element);
+    }
+
+    @Override
+    public E evict() {
+        return this.heap.remove();
+    }
+
+    @Override
+    public int size() {
+        return this.heap.size();
+    }
+}
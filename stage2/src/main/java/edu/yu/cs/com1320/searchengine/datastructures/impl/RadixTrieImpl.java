@@ -0,0 +1,518 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.Trie;
+import edu.yu.cs.com1320.searchengine.text.Tokenizer;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Path-compressed (radix) trie.
+ * Every edge carries a label of one or more characters, so a chain of single-child nodes is stored as one node.
+ * Children are kept in a sorted array keyed by the first character of their label instead of a 256-slot table,
+ * and a node that only holds one value stores it directly instead of allocating a set.
+ * @param <Value>
+ */
+public class RadixTrieImpl<Value> implements Trie<Value> {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+    private Node<Value> root;
+
+    private static class Node<Value> {
+        //label of the edge leading into this node
+        private char[] label;
+        //null, a single Value, or a ValueSet once there are 2 or more
+        private Object vals;
+        //first character of each child's label, sorted
+        private char[] firsts = NO_CHARS;
+        private Node<?>[] children = NO_CHILDREN;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private boolean hasValues() {
+            return this.vals != null;
+        }
+
+        private boolean addValue(Value val) {
+            if (this.vals == null) {
+                this.vals = val;
+                return true;
+            }
+            if (this.vals instanceof ValueSet<?> set) {
+                return ((ValueSet<Value>) set).add(val);
+            }
+            if (this.vals.equals(val)) {
+                return false;
+            }
+            ValueSet<Value> set = new ValueSet<>();
+            set.add((Value) this.vals);
+            set.add(val);
+            this.vals = set;
+            return true;
+        }
+
+        private Value removeValue(Value val) {
+            if (this.vals == null) {
+                return null;
+            }
+            if (this.vals instanceof ValueSet<?> set) {
+                Value deleted = null;
+                for (Object v : set) {
+                    if (v.equals(val)) {
+                        deleted = (Value) v;
+                        break;
+                    }
+                }
+                if (deleted != null) {
+                    set.remove(deleted);
+                    if (set.size() == 1) {
+                        this.vals = set.iterator().next();
+                    }
+                }
+                return deleted;
+            }
+            if (this.vals.equals(val)) {
+                Value deleted = (Value) this.vals;
+                this.vals = null;
+                return deleted;
+            }
+            return null;
+        }
+
+        private Set<Value> values() {
+            if (this.vals == null) {
+                return Collections.emptySet();
+            }
+            if (this.vals instanceof ValueSet<?> set) {
+                return Collections.unmodifiableSet((ValueSet<Value>) set);
+            }
+            return Collections.singleton((Value) this.vals);
+        }
+
+        private void forEachValue(Consumer<? super Value> action) {
+            if (this.vals instanceof ValueSet<?> set) {
+                ((ValueSet<Value>) set).forEach(action);
+            } else if (this.vals != null) {
+                action.accept((Value) this.vals);
+            }
+        }
+
+        private void addValuesTo(Collection<Value> target) {
+            if (this.vals instanceof ValueSet<?> set) {
+                target.addAll((ValueSet<Value>) set);
+            } else if (this.vals != null) {
+                target.add((Value) this.vals);
+            }
+        }
+
+        private int childIndex(char c) {
+            return Arrays.binarySearch(this.firsts, c);
+        }
+
+        private Node<Value> child(char c) {
+            int i = this.childIndex(c);
+            return i < 0 ? null : (Node<Value>) this.children[i];
+        }
+
+        private void putChild(Node<Value> child) {
+            char c = child.label[0];
+            int i = this.childIndex(c);
+            if (i >= 0) {
+                this.children[i] = child;
+                return;
+            }
+            //insertion point is encoded as -(i + 1)
+            i = -(i + 1);
+            char[] newFirsts = new char[this.firsts.length + 1];
+            Node<?>[] newChildren = new Node<?>[this.children.length + 1];
+            System.arraycopy(this.firsts, 0, newFirsts, 0, i);
+            System.arraycopy(this.children, 0, newChildren, 0, i);
+            newFirsts[i] = c;
+            newChildren[i] = child;
+            System.arraycopy(this.firsts, i, newFirsts, i + 1, this.firsts.length - i);
+            System.arraycopy(this.children, i, newChildren, i + 1, this.children.length - i);
+            this.firsts = newFirsts;
+            this.children = newChildren;
+        }
+
+        private void removeChild(char c) {
+            int i = this.childIndex(c);
+            if (i < 0) {
+                return;
+            }
+            if (this.firsts.length == 1) {
+                this.firsts = NO_CHARS;
+                this.children = NO_CHILDREN;
+                return;
+            }
+            char[] newFirsts = new char[this.firsts.length - 1];
+            Node<?>[] newChildren = new Node<?>[this.children.length - 1];
+            System.arraycopy(this.firsts, 0, newFirsts, 0, i);
+            System.arraycopy(this.children, 0, newChildren, 0, i);
+            System.arraycopy(this.firsts, i + 1, newFirsts, i, this.firsts.length - i - 1);
+            System.arraycopy(this.children, i + 1, newChildren, i, this.children.length - i - 1);
+            this.firsts = newFirsts;
+            this.children = newChildren;
+        }
+    }
+
+    //only used once a node holds more than one value
+    private static class ValueSet<Value> extends HashSet<Value> {
+        private ValueSet() {
+            super(4);
+        }
+    }
+
+    public RadixTrieImpl() {
+        this.root = new Node<>(NO_CHARS);
+    }
+
+    private boolean validWord(String key){
+        if (key == null){
+            throw new IllegalArgumentException("Invalid Word");
+        }
+        return !key.isBlank();
+    }
+
+    /**
+     * add the given value at the given key
+     *
+     * @param key
+     * @param val
+     */
+    @Override
+    public void put(String key, Value val) {
+        if (validWord(key) && val != null) {
+            String term = Tokenizer.normalize(key);
+            if (!term.isEmpty()) {
+                this.put(this.root, term, 0, val);
+            }
+        }
+    }
+
+    private void put(Node<Value> x, String key, int i, Value val) {
+        while (i < key.length()) {
+            Node<Value> child = x.child(key.charAt(i));
+            if (child == null) {
+                //no edge starts with this character, hang the rest of the key off x
+                Node<Value> leaf = new Node<>(key.substring(i).toCharArray());
+                leaf.addValue(val);
+                x.putChild(leaf);
+                return;
+            }
+            int matched = this.matchLength(child.label, key, i);
+            if (matched < child.label.length) {
+                //the key leaves the edge part way through, split it
+                child = this.split(x, child, matched);
+            }
+            x = child;
+            i += matched;
+        }
+        x.addValue(val);
+    }
+
+    /**
+     * split the edge into child so that the first `at` characters become their own node
+     * @return the new node in the middle of the old edge
+     */
+    private Node<Value> split(Node<Value> parent, Node<Value> child, int at) {
+        Node<Value> middle = new Node<>(Arrays.copyOfRange(child.label, 0, at));
+        child.label = Arrays.copyOfRange(child.label, at, child.label.length);
+        middle.putChild(child);
+        parent.putChild(middle);
+        return middle;
+    }
+
+    /**
+     * @return how many characters of the label match the key starting at index i
+     */
+    private int matchLength(char[] label, String key, int i) {
+        int max = Math.min(label.length, key.length() - i);
+        int j = 0;
+        while (j < max && label[j] == key.charAt(i + j)) {
+            j++;
+        }
+        return j;
+    }
+
+    /**
+     * get all exact matches for the given key.
+     * Search is CASE SENSITIVE.
+     *
+     * @param key
+     * @return a Set of matching Values. Empty set if no matches.
+     */
+    @Override
+    public Set<Value> get(String key) {
+        if (!validWord(key)){
+            return Collections.emptySet();
+        }
+        Node<Value> x = this.getNode(key);
+        if (x == null) {
+            return Collections.emptySet();
+        }
+        return x.values();
+    }
+
+    /**
+     * @return the node whose path spells exactly the given key, or null
+     */
+    private Node<Value> getNode(String key) {
+        Node<Value> x = this.root;
+        int i = 0;
+        while (i < key.length()) {
+            Node<Value> child = x.child(key.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int matched = this.matchLength(child.label, key, i);
+            if (matched < child.label.length) {
+                return null;
+            }
+            x = child;
+            i += matched;
+        }
+        return x;
+    }
+
+    /**
+     * @return the highest node whose path starts with the given prefix, or null if no stored word has that prefix
+     */
+    private Node<Value> getPrefixNode(String prefix) {
+        Node<Value> x = this.root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node<Value> child = x.child(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int matched = this.matchLength(child.label, prefix, i);
+            if (i + matched == prefix.length()) {
+                //the prefix ends on or inside this edge
+                return child;
+            }
+            if (matched < child.label.length) {
+                return null;
+            }
+            x = child;
+            i += matched;
+        }
+        return x;
+    }
+
+    /**
+     * Get all exact matches for the given key, sorted in descending order, where "descending" is defined by the comparator.
+     * NOTE FOR COM1320 PROJECT: FOR PURPOSES OF A *KEYWORD* SEARCH, THE COMPARATOR SHOULD DEFINE ORDER AS HOW MANY TIMES THE KEYWORD APPEARS IN THE DOCUMENT.
+     * Search is CASE SENSITIVE.
+     *
+     * @param key
+     * @param comparator used to sort values
+     * @return a List of matching Values. Empty List if no matches.
+     */
+    @Override
+    public List<Value> getSorted(String key, Comparator<Value> comparator) {
+        if (comparator == null){
+            throw new IllegalArgumentException("Invalid Comparator");
+        }
+        if (!validWord(key)){
+            return Collections.emptyList();
+        }
+        Node<Value> x = this.getNode(key);
+        if (x == null || !x.hasValues()){
+            return Collections.emptyList();
+        }
+        ArrayList<Value> docs = new ArrayList<>();
+        x.addValuesTo(docs);
+        docs.sort(comparator);
+        return docs;
+    }
+
+    /**
+     * get all matches which contain a String with the given prefix, sorted in descending order, where "descending" is defined by the comparator.
+     * NOTE FOR COM1320 PROJECT: FOR PURPOSES OF A *KEYWORD* SEARCH, THE COMPARATOR SHOULD DEFINE ORDER AS HOW MANY TIMES THE KEYWORD APPEARS IN THE DOCUMENT.
+     * For example, if the key is "Too", you would return any value that contains "Tool", "Too", "Tooth", "Toodle", etc.
+     * Search is CASE SENSITIVE.
+     *
+     * @param prefix
+     * @param comparator used to sort values
+     * @return a List of all matching Values containing the given prefix, in descending order. Empty List if no matches.
+     */
+    @Override
+    public List<Value> getAllWithPrefixSorted(String prefix, Comparator<Value> comparator) {
+        if (!validWord(prefix)){
+            return Collections.emptyList();
+        }
+        if (comparator == null){
+            throw new IllegalArgumentException("Invalid Comparator");
+        }
+        Node<Value> x = this.getPrefixNode(prefix);
+        if (x == null) {
+            return Collections.emptyList();
+        }
+        HashSet<Value> values = new HashSet<>();
+        this.getPrefixValues(x, values);
+        ArrayList<Value> docs = new ArrayList<>(values);
+        docs.sort(comparator);
+        return docs;
+    }
+
+    /**
+     * Call action with every value stored under a String with the given prefix, in one walk of the prefix's subtree
+     * and without collecting or sorting the values first. A value stored under several matching keys is passed once per key.
+     * Search is CASE SENSITIVE.
+     *
+     * @param prefix
+     * @param action
+     */
+    public void forEachWithPrefix(String prefix, Consumer<? super Value> action) {
+        if (!validWord(prefix)){
+            return;
+        }
+        if (action == null){
+            throw new IllegalArgumentException("Invalid Action");
+        }
+        Node<Value> x = this.getPrefixNode(prefix);
+        if (x != null) {
+            this.forEachValue(x, action);
+        }
+    }
+
+    private void forEachValue(Node<Value> x, Consumer<? super Value> action) {
+        x.forEachValue(action);
+        for (Node<?> child : x.children) {
+            this.forEachValue((Node<Value>) child, action);
+        }
+    }
+
+    private void getPrefixValues(Node<Value> x, Collection<Value> values) {
+        x.addValuesTo(values);
+        for (Node<?> child : x.children) {
+            this.getPrefixValues((Node<Value>) child, values);
+        }
+    }
+
+    /**
+     * Delete the subtree rooted at the last character of the prefix.
+     * Search is CASE SENSITIVE.
+     *
+     * @param prefix
+     * @return a Set of all Values that were deleted.
+     */
+    @Override
+    public Set<Value> deleteAllWithPrefix(String prefix) {
+        if (!validWord(prefix)){
+            return Collections.emptySet();
+        }
+        Node<Value> x = this.getPrefixNode(prefix);
+        if (x == null || x == this.root) {
+            return Collections.emptySet();
+        }
+        HashSet<Value> lostValues = new HashSet<>();
+        this.getPrefixValues(x, lostValues);
+        this.detach(prefix, x);
+        return lostValues;
+    }
+
+    /**
+     * Delete all values from the node of the given key (do not remove the values from other nodes in the Trie)
+     *
+     * @param key
+     * @return a Set of all Values that were deleted.
+     */
+    @Override
+    public Set<Value> deleteAll(String key) {
+        if (!validWord(key)){
+            return Collections.emptySet();
+        }
+        Node<Value> x = this.getNode(key);
+        if (x == null || !x.hasValues()) {
+            return Collections.emptySet();
+        }
+        HashSet<Value> lostValues = new HashSet<>();
+        x.addValuesTo(lostValues);
+        x.vals = null;
+        this.cleanUp(key, x);
+        return lostValues;
+    }
+
+    /**
+     * Remove the given value from the node of the given key (do not remove the value from other nodes in the Trie)
+     *
+     * @param key
+     * @param val
+     * @return the value which was deleted. If the key did not contain the given value, return null.
+     */
+    @Override
+    public Value delete(String key, Value val) {
+        if (!validWord(key) || val == null){
+            return null;
+        }
+        Node<Value> x = this.getNode(key);
+        if (x == null) {
+            return null;
+        }
+        Value deleted = x.removeValue(val);
+        if (deleted != null && !x.hasValues()) {
+            this.cleanUp(key, x);
+        }
+        return deleted;
+    }
+
+    /**
+     * x just lost its last value: remove it if it is a leaf, or fold it into its only child
+     */
+    private void cleanUp(String key, Node<Value> x) {
+        if (x == this.root) {
+            return;
+        }
+        if (x.children.length == 0) {
+            this.detach(key, x);
+        } else if (x.children.length == 1) {
+            this.merge(x);
+        }
+    }
+
+    /**
+     * unlink the node reached by walking the given key (which may end part way through the node's edge),
+     * then fold the parent into its remaining child if the parent became a pass-through node
+     */
+    private void detach(String key, Node<Value> target) {
+        Node<Value> parent = this.root;
+        Node<Value> grandparent = null;
+        int i = 0;
+        while (true) {
+            Node<Value> child = parent.child(key.charAt(i));
+            if (child == target) {
+                parent.removeChild(target.label[0]);
+                break;
+            }
+            grandparent = parent;
+            parent = child;
+            i += child.label.length;
+        }
+        if (grandparent == null || parent.hasValues()) {
+            return;
+        }
+        if (parent.children.length == 0) {
+            grandparent.removeChild(parent.label[0]);
+        } else if (parent.children.length == 1) {
+            this.merge(parent);
+        }
+    }
+
+    /**
+     * absorb the only child of x into x, concatenating the edge labels
+     */
+    private void merge(Node<Value> x) {
+        Node<Value> child = (Node<Value>) x.children[0];
+        char[] label = new char[x.label.length + child.label.length];
+        System.arraycopy(x.label, 0, label, 0, x.label.length);
+        System.arraycopy(child.label, 0, label, x.label.length, child.label.length);
+        x.label = label;
+        x.vals = child.vals;
+        x.firsts = child.firsts;
+        x.children = child.children;
+    }
+}
@@ -0,0 +1,116 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free buffer of events, e.g. uses of cached elements, recorded by many threads and applied to something that
+ * isn't thread safe, e.g. an EvictionPolicy, by one thread at a time.
+ * Recording never blocks. Once drainThreshold events are waiting, the thread recording one applies them all if no
+ * other thread is already doing so; if the buffer still fills up to capacity, further events are dropped until it
+ * is drained, since they are only hints.
+ * The caller makes sure nothing else touches what the events are applied to while they may be drained.
+ * @param <E>
+ */
+public class ReadBuffer<E> {
+    private final ConcurrentLinkedQueue<E> events;
+    //not the queue's size, which is linear to count
+    private final AtomicInteger size;
+    private final ReentrantLock drainLock;
+    private final Consumer<? super E> sink;
+    private final int capacity;
+    private final int drainThreshold;
+    private final LongAdder dropped;
+
+    /**
+     * @param capacity the most events waiting at once
+     * @param drainThreshold how many events are waiting before the recording thread applies them
+     * @param sink applies one event
+     * @throws IllegalArgumentException if sink is null, drainThreshold < 1 or capacity < drainThreshold
+     */
+    public ReadBuffer(int capacity, int drainThreshold, Consumer<? super E> sink) {
+        if (sink == null || drainThreshold < 1 || capacity < drainThreshold) {
+            throw new IllegalArgumentException("Invalid Buffer");
+        }
+        this.events = new ConcurrentLinkedQueue<>();
+        this.size = new AtomicInteger();
+        this.drainLock = new ReentrantLock();
+        this.sink = sink;
+        this.capacity = capacity;
+        this.drainThreshold = drainThreshold;
+        this.dropped = new LongAdder();
+    }
+
+    /**
+     * @param event
+     * @throws IllegalArgumentException if event is null
+     */
+    public void record(E event) {
+        if (event == null) {
+            throw new IllegalArgumentException("Invalid Event");
+        }
+        int waiting = this.size.incrementAndGet();
+        if (waiting > this.capacity) {
+            this.size.decrementAndGet();
+            this.dropped.increment();
+        } else {
+            this.events.offer(event);
+        }
+        if (waiting >= this.drainThreshold) {
+            this.tryDrain();
+        }
+    }
+
+    /**
+     * apply the waiting events, unless another thread already is
+     * @return false if another thread is draining
+     */
+    public boolean tryDrain() {
+        if (!this.drainLock.tryLock()) {
+            return false;
+        }
+        try {
+            this.drainer();
+        } finally {
+            this.drainLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * apply the waiting events, after any other thread applying them is done
+     */
+    public void drain() {
+        this.drainLock.lock();
+        try {
+            this.drainer();
+        } finally {
+            this.drainLock.unlock();
+        }
+    }
+
+    private void drainer() {
+        E event;
+        while ((event = this.events.poll()) != null) {
+            this.size.decrementAndGet();
+            this.sink.accept(event);
+        }
+    }
+
+    /**
+     * @return how many events are waiting to be applied
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * @return how many events were dropped because the buffer was full
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+}
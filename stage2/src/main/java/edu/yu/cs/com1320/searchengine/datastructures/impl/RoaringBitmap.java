@@ -0,0 +1,505 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints, laid out like a roaring bitmap: the high 16 bits of a value pick a container,
+ * and the container holds the low 16 bits either as a sorted char array, while it has at most 4096 of them,
+ * or as a 65536-bit bitmap once it has more. So a sparse set costs about 2 bytes a value and a dense one 1 bit.
+ * and, or and andNot go container by container, and between two bitmap containers they are word-level bit operations.
+ * Not thread safe.
+ */
+public class RoaringBitmap {
+    //past this many values an array container takes more room than a bitmap container
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+    //high 16 bits of the values in each container, sorted
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public RoaringBitmap() {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+    }
+
+    /**
+     * @param values
+     * @return a bitmap holding the given values
+     * @throws IllegalArgumentException if a value is negative
+     */
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private abstract static class Container {
+        abstract int cardinality();
+        abstract boolean contains(char low);
+        //these return the container now holding the values, which is a new one if the representation had to change
+        abstract Container add(char low);
+        abstract Container remove(char low);
+        //these return a new container and leave both operands alone
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        abstract Container copy();
+        abstract void forEach(int high, IntConsumer action);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int n;
+
+        private ArrayContainer(int capacity) {
+            this.values = new char[capacity];
+        }
+
+        @Override
+        int cardinality() {
+            return this.n;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(this.values, 0, this.n, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(this.values, 0, this.n, low);
+            if (i >= 0) {
+                return this;
+            }
+            if (this.n == ARRAY_MAX) {
+                return this.toBitmap().add(low);
+            }
+            i = -i - 1;
+            if (this.n == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.min(ARRAY_MAX, Math.max(4, this.n * 2)));
+            }
+            System.arraycopy(this.values, i, this.values, i + 1, this.n - i);
+            this.values[i] = low;
+            this.n++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int i = Arrays.binarySearch(this.values, 0, this.n, low);
+            if (i >= 0) {
+                System.arraycopy(this.values, i + 1, this.values, i, this.n - i - 1);
+                this.n--;
+            }
+            return this;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer(new long[WORDS]);
+            for (int j = 0; j < this.n; j++) {
+                bitmap.set(this.values[j]);
+            }
+            return bitmap;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer result = new ArrayContainer(this.n);
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < this.n && j < array.n) {
+                    if (this.values[i] < array.values[j]) {
+                        i++;
+                    } else if (this.values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result.values[result.n++] = this.values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < this.n; i++) {
+                    if (other.contains(this.values[i])) {
+                        result.values[result.n++] = this.values[i];
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                return bitmap.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (this.n + array.n > ARRAY_MAX) {
+                BitmapContainer bitmap = this.toBitmap();
+                for (int j = 0; j < array.n; j++) {
+                    bitmap.set(array.values[j]);
+                }
+                return bitmap.shrink();
+            }
+            ArrayContainer result = new ArrayContainer(this.n + array.n);
+            int i = 0;
+            int j = 0;
+            while (i < this.n || j < array.n) {
+                if (j == array.n || (i < this.n && this.values[i] < array.values[j])) {
+                    result.values[result.n++] = this.values[i++];
+                } else if (i == this.n || array.values[j] < this.values[i]) {
+                    result.values[result.n++] = array.values[j++];
+                } else {
+                    result.values[result.n++] = this.values[i++];
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            ArrayContainer result = new ArrayContainer(this.n);
+            for (int i = 0; i < this.n; i++) {
+                if (!other.contains(this.values[i])) {
+                    result.values[result.n++] = this.values[i];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer(0);
+            copy.values = Arrays.copyOf(this.values, this.n);
+            copy.n = this.n;
+            return copy;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int j = 0; j < this.n; j++) {
+                action.accept(high | this.values[j]);
+            }
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int n;
+
+        private BitmapContainer(long[] words) {
+            this.words = words;
+            for (long word : words) {
+                this.n += Long.bitCount(word);
+            }
+        }
+
+        @Override
+        int cardinality() {
+            return this.n;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (this.words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        private void set(char low) {
+            long word = this.words[low >>> 6];
+            long set = word | (1L << low);
+            if (set != word) {
+                this.words[low >>> 6] = set;
+                this.n++;
+            }
+        }
+
+        @Override
+        Container add(char low) {
+            this.set(low);
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long word = this.words[low >>> 6];
+            long cleared = word & ~(1L << low);
+            if (cleared != word) {
+                this.words[low >>> 6] = cleared;
+                this.n--;
+            }
+            return this.shrink();
+        }
+
+        private Container shrink() {
+            if (this.n > ARRAY_MAX) {
+                return this;
+            }
+            ArrayContainer array = new ArrayContainer(this.n);
+            this.forEach(0, value -> array.values[array.n++] = (char) value);
+            return array;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = this.words[i] & otherWords[i];
+            }
+            return new BitmapContainer(result).shrink();
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof ArrayContainer array) {
+                BitmapContainer result = (BitmapContainer) this.copy();
+                for (int j = 0; j < array.n; j++) {
+                    result.set(array.values[j]);
+                }
+                return result;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = this.words[i] | otherWords[i];
+            }
+            return new BitmapContainer(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = this.words.clone();
+            if (other instanceof ArrayContainer array) {
+                for (int j = 0; j < array.n; j++) {
+                    char low = array.values[j];
+                    result[low >>> 6] &= ~(1L << low);
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] &= ~otherWords[i];
+                }
+            }
+            return new BitmapContainer(result).shrink();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(this.words.clone());
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = this.words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    private int index(char key) {
+        return Arrays.binarySearch(this.keys, 0, this.size, key);
+    }
+
+    private static void valueChecker(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid Value");
+        }
+    }
+
+    /**
+     * @param value
+     * @throws IllegalArgumentException if value is negative
+     */
+    public void add(int value) {
+        valueChecker(value);
+        char key = (char) (value >>> 16);
+        int i = this.index(key);
+        if (i >= 0) {
+            this.containers[i] = this.containers[i].add((char) value);
+            return;
+        }
+        i = -i - 1;
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.containers = Arrays.copyOf(this.containers, this.size * 2);
+        }
+        System.arraycopy(this.keys, i, this.keys, i + 1, this.size - i);
+        System.arraycopy(this.containers, i, this.containers, i + 1, this.size - i);
+        this.keys[i] = key;
+        this.containers[i] = new ArrayContainer(4).add((char) value);
+        this.size++;
+    }
+
+    /**
+     * @param value
+     */
+    public void remove(int value) {
+        if (value < 0) {
+            return;
+        }
+        int i = this.index((char) (value >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Container c = this.containers[i].remove((char) value);
+        if (c.cardinality() > 0) {
+            this.containers[i] = c;
+            return;
+        }
+        System.arraycopy(this.keys, i + 1, this.keys, i, this.size - i - 1);
+        System.arraycopy(this.containers, i + 1, this.containers, i, this.size - i - 1);
+        this.size--;
+        this.containers[this.size] = null;
+    }
+
+    /**
+     * @param value
+     * @return true if the bitmap holds value
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = this.index((char) (value >>> 16));
+        return i >= 0 && this.containers[i].contains((char) value);
+    }
+
+    /**
+     * @return how many values the bitmap holds
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < this.size; i++) {
+            total += this.containers[i].cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        //containers that become empty are dropped
+        return this.size == 0;
+    }
+
+    private void append(char key, Container c) {
+        if (c.cardinality() == 0) {
+            return;
+        }
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.containers = Arrays.copyOf(this.containers, this.size * 2);
+        }
+        this.keys[this.size] = key;
+        this.containers[this.size] = c;
+        this.size++;
+    }
+
+    /**
+     * @param other
+     * @return a new bitmap with the values in both this and other
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < this.size && j < other.size) {
+            if (this.keys[i] < other.keys[j]) {
+                i++;
+            } else if (this.keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(this.keys[i], this.containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param other
+     * @return a new bitmap with the values in this, other, or both
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < this.size || j < other.size) {
+            if (j == other.size || (i < this.size && this.keys[i] < other.keys[j])) {
+                result.append(this.keys[i], this.containers[i].copy());
+                i++;
+            } else if (i == this.size || other.keys[j] < this.keys[i]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(this.keys[i], this.containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param other
+     * @return a new bitmap with the values in this that aren't in other
+     */
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < this.size; i++) {
+            while (j < other.size && other.keys[j] < this.keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == this.keys[i]) {
+                result.append(this.keys[i], this.containers[i].andNot(other.containers[j]));
+            } else {
+                result.append(this.keys[i], this.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a bitmap with the same values that shares nothing with this one
+     */
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        for (int i = 0; i < this.size; i++) {
+            copy.append(this.keys[i], this.containers[i].copy());
+        }
+        return copy;
+    }
+
+    /**
+     * call action with every value, in ascending order
+     * @param action
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < this.size; i++) {
+            this.containers[i].forEach(this.keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * @return the values in ascending order
+     */
+    public int[] toArray() {
+        int[] values = new int[this.cardinality()];
+        int[] n = new int[1];
+        this.forEach(value -> values[n[0]++] = value);
+        return values;
+    }
+}
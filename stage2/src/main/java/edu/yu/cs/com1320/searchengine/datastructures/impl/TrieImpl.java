@@ -1,6 +1,7 @@
 package edu.yu.cs.com1320.searchengine.datastructures.impl;
 
 import edu.yu.cs.com1320.searchengine.datastructures.Trie;
+import edu.yu.cs.com1320.searchengine.text.Tokenizer;
 
 import java.util.*;
 
@@ -29,13 +30,7 @@ public class TrieImpl<Value> implements Trie<Value> {
     @Override
     public void put(String key, Value val) {
         if (validWord(key) && val != null) {
-            String checker = "";
-            for (int c = 0; c < key.length(); c++){
-                if (Character.isLetterOrDigit(key.charAt(c))){
-                    checker += key.charAt(c);
-                }
-            }
-            this.root = put(this.root, checker, val, 0);
+            this.root = put(this.root, Tokenizer.normalize(key), val, 0);
         }
     }
 
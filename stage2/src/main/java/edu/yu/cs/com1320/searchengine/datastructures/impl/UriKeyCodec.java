@@ -0,0 +1,21 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.KeyCodec;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * URIs as the UTF-8 bytes of their string form
+ */
+public class UriKeyCodec implements KeyCodec<URI> {
+    @Override
+    public byte[] encode(URI key) {
+        return key.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public URI decode(byte[] bytes) {
+        return URI.create(new String(bytes, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,235 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.datastructures.EvictionPolicy;
+
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * W-TinyLFU eviction.
+ * New elements enter a small LRU window. The rest of memory is a segmented LRU: elements that were used again
+ * sit in the protected segment, the others in probation. Elements pushed out of the window join the end of
+ * probation as candidates, and on eviction the newest candidate only stays if it has been used more often than
+ * probation's oldest element, which is what keeps a scan of cold elements from flushing the frequently used ones.
+ * Use counts are approximate and come from a count-min sketch that is halved periodically so old popularity fades.
+ * Because the store sets limits rather than a fixed capacity, segment sizes are fractions of what is tracked.
+ * @param <E>
+ */
+public class WTinyLfuEvictionPolicy<E> implements EvictionPolicy<E> {
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+    //window gets 1% of tracked elements, protected up to 80% of the rest
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private HashMap<E, Node<E>> nodes;
+    private Segment<E>[] segments;
+    private FrequencySketch sketch;
+
+    private static class Node<E> {
+        private final E element;
+        private int segment;
+        private Node<E> prev;
+        private Node<E> next;
+        private Node(E element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * doubly linked list, least recently used at the head
+     */
+    private static class Segment<E> {
+        private final Node<E> sentinel;
+        private int size;
+        private Segment() {
+            this.sentinel = new Node<>(null);
+            this.sentinel.prev = this.sentinel;
+            this.sentinel.next = this.sentinel;
+        }
+        private void addLast(Node<E> x) {
+            x.prev = this.sentinel.prev;
+            x.next = this.sentinel;
+            this.sentinel.prev.next = x;
+            this.sentinel.prev = x;
+            this.size++;
+        }
+        private void unlink(Node<E> x) {
+            x.prev.next = x.next;
+            x.next.prev = x.prev;
+            x.prev = null;
+            x.next = null;
+            this.size--;
+        }
+        private Node<E> first() {
+            return this.size == 0 ? null : this.sentinel.next;
+        }
+    }
+
+    public WTinyLfuEvictionPolicy(){
+        this.nodes = new HashMap<>();
+        this.segments = new Segment[]{new Segment<E>(), new Segment<E>(), new Segment<E>()};
+        this.sketch = new FrequencySketch();
+    }
+
+    @Override
+    public void add(E element) {
+        if (this.nodes.containsKey(element)){
+            throw new IllegalArgumentException("Element is already tracked");
+        }
+        Node<E> x = new Node<>(element);
+        this.nodes.put(element, x);
+        this.moveTo(x, WINDOW);
+        this.sketch.ensureCapacity(this.nodes.size());
+        this.sketch.increment(element.hashCode());
+        int windowMax = Math.max(1, this.nodes.size() * WINDOW_PERCENT / 100);
+        while (this.segments[WINDOW].size > windowMax){
+            Node<E> candidate = this.segments[WINDOW].first();
+            this.segments[WINDOW].unlink(candidate);
+            this.moveTo(candidate, PROBATION);
+        }
+    }
+
+    @Override
+    public void recordAccess(E element) {
+        Node<E> x = this.nodeOf(element);
+        this.sketch.increment(element.hashCode());
+        this.segments[x.segment].unlink(x);
+        if (x.segment == WINDOW){
+            this.moveTo(x, WINDOW);
+            return;
+        }
+        //a second use in the main space promotes to protected
+        this.moveTo(x, PROTECTED);
+        int mainSize = this.segments[PROBATION].size + this.segments[PROTECTED].size;
+        while (this.segments[PROTECTED].size > Math.max(1, mainSize * PROTECTED_PERCENT / 100)){
+            Node<E> demoted = this.segments[PROTECTED].first();
+            this.segments[PROTECTED].unlink(demoted);
+            this.moveTo(demoted, PROBATION);
+        }
+    }
+
+    @Override
+    public void remove(E element) {
+        Node<E> x = this.nodeOf(element);
+        this.segments[x.segment].unlink(x);
+        this.nodes.remove(element);
+    }
+
+    @Override
+    public E evict() {
+        if (this.nodes.isEmpty()){
+            throw new NoSuchElementException("Nothing to evict");
+        }
+        Node<E> victim = this.segments[PROBATION].first();
+        Node<E> candidate = this.segments[PROBATION].size > 1 ? this.segments[PROBATION].sentinel.prev : null;
+        if (victim == null){
+            victim = this.segments[PROTECTED].first();
+        }
+        if (victim == null){
+            victim = this.segments[WINDOW].first();
+        } else if (candidate != null && this.sketch.frequency(candidate.element.hashCode())
+                <= this.sketch.frequency(victim.element.hashCode())){
+            //the newest arrival has not been used more than the oldest resident, so it does not get admitted
+            victim = candidate;
+        }
+        this.segments[victim.segment].unlink(victim);
+        this.nodes.remove(victim.element);
+        return victim.element;
+    }
+
+    @Override
+    public int size() {
+        return this.nodes.size();
+    }
+
+    private void moveTo(Node<E> x, int segment) {
+        x.segment = segment;
+        this.segments[segment].addLast(x);
+    }
+
+    private Node<E> nodeOf(E element) {
+        Node<E> x = this.nodes.get(element);
+        if (x == null){
+            throw new NoSuchElementException("Element is not tracked");
+        }
+        return x;
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, 16 to a long, with 4 hash functions.
+     * After sampleSize increments every counter is halved.
+     */
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private long[] table;
+        private int sampleSize;
+        private int additions;
+
+        private FrequencySketch() {
+            this.table = new long[16];
+            this.sampleSize = 160;
+        }
+
+        /**
+         * grow with the number of tracked elements; growing forgets the old counts
+         */
+        private void ensureCapacity(int size) {
+            if (size <= this.table.length){
+                return;
+            }
+            int length = Integer.highestOneBit(size - 1) << 1;
+            this.table = new long[length];
+            this.sampleSize = 10 * length;
+            this.additions = 0;
+        }
+
+        private int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < 4; i++){
+                min = Math.min(min, this.counter(hash, i));
+            }
+            return min;
+        }
+
+        private void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++){
+                int index = this.index(hash, i);
+                int offset = this.offset(hash, i);
+                if (((this.table[index] >>> offset) & 0xfL) != 0xfL){
+                    this.table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++this.additions == this.sampleSize){
+                this.reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < this.table.length; i++){
+                this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+            }
+            this.additions /= 2;
+        }
+
+        private int counter(int hash, int i) {
+            return (int) ((this.table[this.index(hash, i)] >>> this.offset(hash, i)) & 0xfL);
+        }
+
+        private long mix(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[(i + 1) & 3];
+            return h ^ (h >>> 32);
+        }
+
+        private int index(int hash, int i) {
+            return (int) (this.mix(hash, i) & (this.table.length - 1));
+        }
+
+        private int offset(int hash, int i) {
+            //which of the 16 counters in the long
+            return (int) ((this.mix(hash, i) >>> 40) & 15) << 2;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Term to count map for a document's words. Terms and counts are kept in two parallel arrays with linear probing,
+ * so there is no entry object or boxed Integer per term.
+ * Through the Map interface it is read only (put and remove throw UnsupportedOperationException), which lets
+ * a document hand out the map itself instead of a copy; counts are only added with increment and add.
+ * A term is found by the same hash String.hashCode computes, so increment can look up a term that is still in a
+ * char buffer and only creates a String for a term it hasn't seen.
+ * Not thread safe.
+ */
+public class TermCountMap extends AbstractMap<String, Integer> {
+    private String[] terms;
+    private int[] counts;
+    private int size;
+
+    public TermCountMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedTerms how many terms the map should hold before it has to grow
+     */
+    public TermCountMap(int expectedTerms) {
+        if (expectedTerms < 0) {
+            throw new IllegalArgumentException("Invalid Size");
+        }
+        //keep the table at most 2/3 full
+        int capacity = Integer.highestOneBit(Math.max(4, expectedTerms * 3 / 2 + 1) - 1) << 1;
+        this.terms = new String[capacity];
+        this.counts = new int[capacity];
+    }
+
+    /**
+     * @param map
+     * @return map itself if it is a TermCountMap, otherwise a TermCountMap with the same counts; null if map is null
+     * @throws IllegalArgumentException if a term is null or a count is not positive
+     */
+    public static TermCountMap of(Map<String, Integer> map) {
+        if (map == null || map instanceof TermCountMap) {
+            return (TermCountMap) map;
+        }
+        TermCountMap copy = new TermCountMap(map.size());
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            copy.add(entry.getKey(), entry.getValue() == null ? 0 : entry.getValue());
+        }
+        return copy;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int slot(String term) {
+        int mask = this.terms.length - 1;
+        int i = spread(term.hashCode()) & mask;
+        while (this.terms[i] != null && !this.terms[i].equals(term)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @param term
+     * @return how many times term was counted, 0 if never
+     */
+    public int count(String term) {
+        if (term == null) {
+            return 0;
+        }
+        int i = this.slot(term);
+        return this.terms[i] == null ? 0 : this.counts[i];
+    }
+
+    /**
+     * add count to the term's count
+     * @param term
+     * @param count
+     * @throws IllegalArgumentException if term is null or count is not positive
+     */
+    public void add(String term, int count) {
+        if (term == null || count < 1) {
+            throw new IllegalArgumentException("Invalid Term Count");
+        }
+        int i = this.slot(term);
+        if (this.terms[i] == null) {
+            this.insert(i, term, count);
+        } else {
+            this.counts[i] += count;
+        }
+    }
+
+    /**
+     * count one more of the term held in the first length chars of buffer, e.g. from a Tokenizer.TermSink
+     * @param buffer
+     * @param length
+     */
+    public void increment(char[] buffer, int length) {
+        int hash = 0;
+        for (int j = 0; j < length; j++) {
+            hash = 31 * hash + buffer[j];
+        }
+        int mask = this.terms.length - 1;
+        int i = spread(hash) & mask;
+        while (this.terms[i] != null) {
+            String term = this.terms[i];
+            if (term.hashCode() == hash && matches(term, buffer, length)) {
+                this.counts[i]++;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        this.insert(i, new String(buffer, 0, length), 1);
+    }
+
+    private static boolean matches(String term, char[] buffer, int length) {
+        if (term.length() != length) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (term.charAt(j) != buffer[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int i, String term, int count) {
+        this.terms[i] = term;
+        this.counts[i] = count;
+        this.size++;
+        if (this.size * 3 > this.terms.length * 2) {
+            this.grow();
+        }
+    }
+
+    private void grow() {
+        String[] oldTerms = this.terms;
+        int[] oldCounts = this.counts;
+        this.terms = new String[oldTerms.length * 2];
+        this.counts = new int[oldTerms.length * 2];
+        for (int j = 0; j < oldTerms.length; j++) {
+            if (oldTerms[j] != null) {
+                int i = this.slot(oldTerms[j]);
+                this.terms[i] = oldTerms[j];
+                this.counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    /**
+     * Replace each term with the dictionary's String for it, adding terms the dictionary doesn't have yet,
+     * so documents share one String per term.
+     * @param dictionary
+     * @return the counts keyed by term id
+     */
+    public TermIdCounts intern(TermDictionary dictionary) {
+        long[] pairs = new long[this.size];
+        int n = 0;
+        for (int j = 0; j < this.terms.length; j++) {
+            if (this.terms[j] != null) {
+                int id = dictionary.add(this.terms[j]);
+                this.terms[j] = dictionary.term(id);
+                //ids and counts are both non-negative, so sorting the packed pairs sorts by id
+                pairs[n++] = ((long) id << 32) | this.counts[j];
+            }
+        }
+        Arrays.sort(pairs);
+        int[] ids = new int[n];
+        int[] idCounts = new int[n];
+        for (int j = 0; j < n; j++) {
+            ids[j] = (int) (pairs[j] >>> 32);
+            idCounts[j] = (int) pairs[j];
+        }
+        return new TermIdCounts(ids, idCounts);
+    }
+
+    /**
+     * Replace each term the dictionary has with the dictionary's String for it, leaving the rest as they are,
+     * without adding terms or building counts by id.
+     * @param dictionary
+     */
+    public void internTerms(TermDictionary dictionary) {
+        for (int j = 0; j < this.terms.length; j++) {
+            if (this.terms[j] != null) {
+                int id = dictionary.find(this.terms[j]);
+                if (id >= 0) {
+                    this.terms[j] = dictionary.term(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * call action with every term and its count, without boxing the counts
+     * @param action
+     */
+    public void forEachCount(ObjIntConsumer<String> action) {
+        String[] t = this.terms;
+        for (int j = 0; j < t.length; j++) {
+            if (t[j] != null) {
+                action.accept(t[j], this.counts[j]);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String term && this.terms[this.slot(term)] != null;
+    }
+
+    @Override
+    public Integer get(Object key) {
+        if (!(key instanceof String term)) {
+            return null;
+        }
+        int i = this.slot(term);
+        return this.terms[i] == null ? null : this.counts[i];
+    }
+
+    /**
+     * @return read-only view of the terms
+     */
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    String at(int slot) {
+                        return terms[slot];
+                    }
+                };
+            }
+            @Override
+            public int size() {
+                return size;
+            }
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+        };
+    }
+
+    /**
+     * @return read-only view of the terms and their counts
+     */
+    @Override
+    public Set<Map.Entry<String, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Integer>> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Map.Entry<String, Integer> at(int slot) {
+                        return new AbstractMap.SimpleImmutableEntry<>(terms[slot], counts[slot]);
+                    }
+                };
+            }
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private int next = this.skip(0);
+
+        private int skip(int slot) {
+            while (slot < terms.length && terms[slot] == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        abstract T at(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return this.next < terms.length;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T t = this.at(this.next);
+            this.next = this.skip(this.next + 1);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import java.util.Arrays;
+
+/**
+ * Store-wide dictionary that gives every term a dense int id and keeps one String instance per term.
+ * New terms get 0, 1, 2, ... in the order they are first added, except that the id of a released term is given
+ * to the next new one, so the ids stay below the most terms there have been at once.
+ * Lookups hash into an open-addressing table of ids, probing linearly; releasing a term shifts the probe chain
+ * after it back, so there are no tombstones.
+ * Not thread safe.
+ */
+public class TermDictionary {
+    //id + 1 of the term in each slot, 0 for an empty slot
+    private int[] table;
+    //term of each id, null for a released id
+    private String[] terms;
+    //ids handed out so far, released ones included
+    private int bound;
+    private int size;
+    private int[] freeIds;
+    private int freeCount;
+
+    public TermDictionary() {
+        this.table = new int[64];
+        this.terms = new String[32];
+        this.freeIds = new int[8];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int slot(String term) {
+        int mask = this.table.length - 1;
+        int i = spread(term.hashCode()) & mask;
+        while (this.table[i] != 0 && !this.terms[this.table[i] - 1].equals(term)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @param term
+     * @return the term's id, giving it a released id or else the next one if it is new
+     * @throws IllegalArgumentException if term is null
+     */
+    public int add(String term) {
+        if (term == null) {
+            throw new IllegalArgumentException("Invalid Term");
+        }
+        int i = this.slot(term);
+        if (this.table[i] != 0) {
+            return this.table[i] - 1;
+        }
+        int id;
+        if (this.freeCount > 0) {
+            id = this.freeIds[--this.freeCount];
+        } else {
+            if (this.bound == this.terms.length) {
+                this.terms = Arrays.copyOf(this.terms, this.bound * 2);
+            }
+            id = this.bound++;
+        }
+        this.terms[id] = term;
+        this.table[i] = id + 1;
+        this.size++;
+        if (this.size * 3 > this.table.length * 2) {
+            this.grow();
+        }
+        return id;
+    }
+
+    private void grow() {
+        this.table = new int[this.table.length * 2];
+        for (int id = 0; id < this.bound; id++) {
+            if (this.terms[id] != null) {
+                this.table[this.slot(this.terms[id])] = id + 1;
+            }
+        }
+    }
+
+    /**
+     * forget the term with the given id, e.g. once no document has it, so the id can be given to a new term
+     * @param id
+     * @throws IllegalArgumentException if no term has that id
+     */
+    public void release(int id) {
+        String term = this.term(id);
+        int mask = this.table.length - 1;
+        int hole = this.slot(term);
+        //move back every entry after the hole, up to the next empty slot, that can't be found past the hole any more
+        for (int j = (hole + 1) & mask; this.table[j] != 0; j = (j + 1) & mask) {
+            int home = spread(this.terms[this.table[j] - 1].hashCode()) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                this.table[hole] = this.table[j];
+                hole = j;
+            }
+        }
+        this.table[hole] = 0;
+        this.terms[id] = null;
+        this.size--;
+        if (this.freeCount == this.freeIds.length) {
+            this.freeIds = Arrays.copyOf(this.freeIds, this.freeCount * 2);
+        }
+        this.freeIds[this.freeCount++] = id;
+    }
+
+    /**
+     * @param term
+     * @return the term's id, or -1 if it has none
+     */
+    public int find(String term) {
+        if (term == null) {
+            return -1;
+        }
+        return this.table[this.slot(term)] - 1;
+    }
+
+    /**
+     * @param id
+     * @return the term with the given id
+     * @throws IllegalArgumentException if no term has that id
+     */
+    public String term(int id) {
+        if (id < 0 || id >= this.bound || this.terms[id] == null) {
+            throw new IllegalArgumentException("Invalid Term Id");
+        }
+        return this.terms[id];
+    }
+
+    /**
+     * @return how many terms have ids
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return one more than the largest id a term has had; every id is below it
+     */
+    public int idBound() {
+        return this.bound;
+    }
+}
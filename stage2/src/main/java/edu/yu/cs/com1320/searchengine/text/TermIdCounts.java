@@ -0,0 +1,49 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import java.util.Arrays;
+
+/**
+ * A document's term counts keyed by TermDictionary id: two int arrays sorted by id, 8 bytes a term.
+ * Made by TermCountMap.intern. Immutable.
+ */
+public class TermIdCounts {
+    private final int[] ids;
+    private final int[] counts;
+
+    TermIdCounts(int[] ids, int[] counts) {
+        this.ids = ids;
+        this.counts = counts;
+    }
+
+    /**
+     * @return how many terms there are
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * @param i 0 to size() - 1
+     * @return the i-th smallest term id
+     */
+    public int idAt(int i) {
+        return this.ids[i];
+    }
+
+    /**
+     * @param i 0 to size() - 1
+     * @return the count of the term idAt(i)
+     */
+    public int countAt(int i) {
+        return this.counts[i];
+    }
+
+    /**
+     * @param id
+     * @return the count of the term with that id, 0 if the document doesn't have it
+     */
+    public int count(int id) {
+        int i = Arrays.binarySearch(this.ids, id);
+        return i < 0 ? 0 : this.counts[i];
+    }
+}
@@ -0,0 +1,140 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits text into the terms that documents are indexed and searched by.
+ * Terms are separated by whitespace. Any other character that isn't a letter or digit is dropped without
+ * splitting the term, so "don't" is the term "dont".
+ * The text is scanned once, and each term is built in a char buffer that is reused for the next one.
+ * Text can also be given a chunk at a time, e.g. as it is read from a stream, with a term split between chunks
+ * held in the buffer until the next chunk or finish.
+ * Not thread safe; use one Tokenizer per thread.
+ */
+public class Tokenizer {
+
+    /**
+     * receives each term as the first length chars of buffer. The buffer is overwritten by the next term,
+     * so copy out anything that has to be kept.
+     */
+    @FunctionalInterface
+    public interface TermSink {
+        void term(char[] buffer, int length);
+    }
+
+    private char[] buffer;
+    //length of the term the last chunk ended in the middle of
+    private int pending;
+
+    public Tokenizer() {
+        this.buffer = new char[32];
+    }
+
+    /**
+     * @param text
+     * @param sink called once for every term in text, in order; a term left by tokenizing chunks is dropped
+     */
+    public void tokenize(CharSequence text, TermSink sink) {
+        if (text == null || sink == null) {
+            throw new IllegalArgumentException("Invalid Tokenizer Argument(s)");
+        }
+        this.pending = 0;
+        this.scan(text, 0, text.length(), sink);
+        this.finish(sink);
+    }
+
+    /**
+     * Tokenize the next chunk of a text, continuing the term the last chunk ended in.
+     * The last term of the text is only given to the sink by finish.
+     * @param chunk
+     * @param from index of the first char of the chunk
+     * @param to index after the last char of the chunk
+     * @param sink called once for every term completed in the chunk, in order
+     */
+    public void tokenize(char[] chunk, int from, int to, TermSink sink) {
+        if (chunk == null || sink == null || from < 0 || to > chunk.length || from > to) {
+            throw new IllegalArgumentException("Invalid Tokenizer Argument(s)");
+        }
+        this.scan(CharBuffer.wrap(chunk), from, to, sink);
+    }
+
+    /**
+     * give the sink every term completed in text[from, to), carrying the pending term in and the unfinished one out
+     */
+    private void scan(CharSequence text, int from, int to, TermSink sink) {
+        char[] buf = this.buffer;
+        int length = this.pending;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (length == buf.length) {
+                    buf = Arrays.copyOf(buf, length * 2);
+                    this.buffer = buf;
+                }
+                buf[length++] = c;
+            } else if (length > 0 && isSeparator(c)) {
+                sink.term(buf, length);
+                length = 0;
+            }
+        }
+        this.pending = length;
+    }
+
+    /**
+     * end a text given in chunks, giving the sink the term it ended with, if any
+     * @param sink
+     */
+    public void finish(TermSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Invalid Tokenizer Argument(s)");
+        }
+        if (this.pending > 0) {
+            sink.term(this.buffer, this.pending);
+        }
+        this.pending = 0;
+    }
+
+    /**
+     * @param text
+     * @return how many times each term appears in text
+     */
+    public TermCountMap countTerms(CharSequence text) {
+        TermCountMap counts = new TermCountMap();
+        this.tokenize(text, counts::increment);
+        return counts;
+    }
+
+    /**
+     * Turn a single word, e.g. a search keyword or trie key, into the term it is indexed by:
+     * every character that isn't a letter or digit is dropped.
+     * @param word
+     * @return the term, which is word itself if nothing had to be dropped
+     */
+    public static String normalize(String word) {
+        int i = 0;
+        int n = word.length();
+        while (i < n && Character.isLetterOrDigit(word.charAt(i))) {
+            i++;
+        }
+        if (i == n) {
+            return word;
+        }
+        StringBuilder term = new StringBuilder(n - 1);
+        term.append(word, 0, i);
+        for (i++; i < n; i++) {
+            char c = word.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            }
+        }
+        return term.toString();
+    }
+
+    /**
+     * @return true if c ends a term
+     */
+    public static boolean isSeparator(char c) {
+        return Character.isSpaceChar(c) || Character.isWhitespace(c);
+    }
+}
@@ -0,0 +1,46 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.datastructures.impl.BTreeImpl;
+
+import java.net.URI;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time to build a BTreeImpl of sorted URIs with one put per key against BTreeImpl.bulkLoad, at growing sizes.
+ * Not run by surefire; args: [largest key count]
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        for (int warmup = 0; warmup < 2; warmup++){
+            for (int keys = largest / 8; keys <= largest; keys *= 2){
+                run(keys, warmup == 1);
+            }
+        }
+    }
+
+    private static void run(int keys, boolean report) {
+        List<Map.Entry<URI, String>> sorted = new ArrayList<>(keys);
+        for (int i = 0; i < keys; i++){
+            sorted.add(new AbstractMap.SimpleEntry<>(URI.create(String.format("http://www.yu.edu/doc%09d", i)), "value"));
+        }
+        long start = System.nanoTime();
+        BTreeImpl<URI, String> puts = new BTreeImpl<>();
+        for (Map.Entry<URI, String> entry : sorted){
+            puts.put(entry.getKey(), entry.getValue());
+        }
+        long putNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        BTreeImpl<URI, String> loaded = new BTreeImpl<>();
+        loaded.bulkLoad(sorted.iterator());
+        long loadNanos = System.nanoTime() - start;
+        if (report){
+            System.out.printf("%,10d keys  put %,7d ms (%,5d ns/key)  bulkLoad %,6d ms (%,4d ns/key)%n", keys,
+                    putNanos / 1_000_000, putNanos / keys, loadNanos / 1_000_000, loadNanos / keys);
+        }
+    }
+}
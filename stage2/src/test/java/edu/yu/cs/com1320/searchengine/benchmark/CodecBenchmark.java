@@ -0,0 +1,85 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentCodec;
+import edu.yu.cs.com1320.searchengine.core.impl.BinaryDocumentCodec;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentImpl;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentPersistenceManager;
+import edu.yu.cs.com1320.searchengine.core.impl.JsonDocumentCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Reload latency of an evicted document, i.e. DocumentPersistenceManager.deserialize, with each codec.
+ * Half the documents are text and half binary. Reports bytes on disk and latency percentiles.
+ * Not run by surefire; args: [documents] [document size in bytes]
+ */
+public class CodecBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 4_000;
+        int docSize = args.length > 1 ? Integer.parseInt(args[1]) : 4_000;
+        Document[] docs = documents(documents, docSize);
+        System.out.printf("%,d documents of ~%,d bytes%n", documents, docSize);
+        for (int warmup = 0; warmup < 2; warmup++){
+            run("JSON", new JsonDocumentCodec(), docs, warmup == 1);
+            run("binary", new BinaryDocumentCodec(), docs, warmup == 1);
+        }
+    }
+
+    private static Document[] documents(int documents, int docSize) {
+        Random random = new Random(3);
+        Document[] docs = new Document[documents];
+        for (int i = 0; i < documents; i++){
+            URI uri = URI.create("http://www.yu.edu/section" + (i % 50) + "/doc" + i);
+            if (i % 2 == 0){
+                StringBuilder text = new StringBuilder();
+                while (text.length() < docSize){
+                    text.append("word").append(random.nextInt(5_000)).append(' ');
+                }
+                docs[i] = new DocumentImpl(uri, text.toString(), null);
+            } else {
+                byte[] data = new byte[docSize];
+                random.nextBytes(data);
+                docs[i] = new DocumentImpl(uri, data);
+            }
+            docs[i].setMetadataValue("author", "author" + (i % 7));
+        }
+        return docs;
+    }
+
+    private static void run(String name, DocumentCodec codec, Document[] docs, boolean report) throws IOException {
+        Path dir = Files.createTempDirectory("codec");
+        try {
+            DocumentPersistenceManager pm = new DocumentPersistenceManager(dir.toFile(), codec);
+            long bytes = 0;
+            for (Document d : docs){
+                pm.serialize(d.getKey(), d);
+                bytes += codec.encode(d).length;
+            }
+            long[] latencies = new long[docs.length];
+            for (int i = 0; i < docs.length; i++){
+                long start = System.nanoTime();
+                pm.deserialize(docs[i].getKey());
+                latencies[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(latencies);
+            if (report){
+                System.out.printf("%-7s %,12d bytes on disk  reload p50 %,7d ns  p99 %,8d ns  max %,9d ns%n", name, bytes,
+                        latencies[latencies.length / 2], latencies[latencies.length * 99 / 100], latencies[latencies.length - 1]);
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)){
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
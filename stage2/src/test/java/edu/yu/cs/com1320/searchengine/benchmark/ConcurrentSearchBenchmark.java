@@ -0,0 +1,118 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.core.DocumentStore;
+import edu.yu.cs.com1320.searchengine.core.DocumentStore.DocumentFormat;
+import edu.yu.cs.com1320.searchengine.core.impl.ConcurrentDocumentStoreImpl;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentStoreImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Search throughput with 1, 2, 4, ... threads, up to the number of processors by default, for a DocumentStoreImpl behind one
+ * global lock and for a ConcurrentDocumentStoreImpl. Each search asks for the top 10 documents with a random word,
+ * and one operation in every writeEvery is a put instead. The query cache is off, so every search is run.
+ * Not run by surefire; args: [documents] [seconds per run] [writeEvery, 0 for none] [most threads]
+ */
+public class ConcurrentSearchBenchmark {
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS_PER_DOC = 100;
+
+    private interface Op {
+        void run(int i) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+        int writeEvery = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("%,d documents, %d processors, a put every %s operations%n",
+                documents, Runtime.getRuntime().availableProcessors(), writeEvery == 0 ? "no" : "" + writeEvery);
+
+        DocumentStoreImpl plain = new DocumentStoreImpl();
+        plain.setQueryCacheSize(0);
+        fill(plain, documents);
+        Object global = new Object();
+        ConcurrentDocumentStoreImpl concurrent = new ConcurrentDocumentStoreImpl();
+        concurrent.setQueryCacheSize(0);
+        fill(concurrent, documents);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double locked = run(threads, seconds, writeEvery, documents, i -> {
+                synchronized (global) {
+                    op(plain, i, writeEvery, documents);
+                }
+            });
+            double shared = run(threads, seconds, writeEvery, documents, i -> op(concurrent, i, writeEvery, documents));
+            System.out.printf("%3d threads  global lock %,12.0f ops/s  read/write lock %,12.0f ops/s  %5.2fx%n",
+                    threads, locked, shared, shared / locked);
+        }
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < WORDS_PER_DOC; w++) {
+            text.append('w').append(random.nextInt(VOCABULARY)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static void fill(DocumentStore store, int documents) throws IOException {
+        Random random = new Random(1);
+        for (int d = 0; d < documents; d++) {
+            store.put(new ByteArrayInputStream(text(random).getBytes()), URI.create("http://www.yu.edu/doc" + d), DocumentFormat.TXT);
+        }
+    }
+
+    private static void op(DocumentStore store, int i, int writeEvery, int documents) {
+        Random random = new Random(i);
+        try {
+            if (writeEvery > 0 && i % writeEvery == 0) {
+                store.put(new ByteArrayInputStream(text(random).getBytes()), URI.create("http://www.yu.edu/doc" + random.nextInt(documents)), DocumentFormat.TXT);
+            } else {
+                store.search("w" + random.nextInt(VOCABULARY), 0, 10);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return operations per second over all the threads
+     */
+    private static double run(int threads, double seconds, int writeEvery, int documents, Op op) throws InterruptedException {
+        AtomicLong done = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers[t] = new Thread(() -> {
+                int i = seed;
+                try {
+                    start.await();
+                    while (System.nanoTime() < deadline[0]) {
+                        op.run(i);
+                        i += threads;
+                        done.incrementAndGet();
+                    }
+                } catch (InterruptedException | IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + (long) (seconds * 1e9);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return done.get() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
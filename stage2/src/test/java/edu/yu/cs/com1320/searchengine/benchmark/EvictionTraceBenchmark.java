@@ -0,0 +1,110 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.datastructures.EvictionPolicy;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.ClockEvictionPolicy;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.LruEvictionPolicy;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.WTinyLfuEvictionPolicy;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Replays one synthetic access trace against each eviction policy with the same memory limit,
+ * the way DocumentStoreImpl drives it: a miss pages the document in (one disk read), then the policy evicts
+ * until the store is back under its document limit.
+ * The trace is zipfian keyword/get traffic with periodic scans over a block of cold documents,
+ * like a searchByMetadata that matches thousands of documents.
+ * Not run by surefire; args: [documents] [memory limit] [accesses] [scan length]
+ */
+public class EvictionTraceBenchmark {
+
+    private static class Doc implements Comparable<Doc> {
+        private final int id;
+        private long lastUseTime;
+        private boolean inMemory;
+        private Doc(int id) {
+            this.id = id;
+        }
+        @Override
+        public int compareTo(Doc o) {
+            return Long.compare(this.lastUseTime, o.lastUseTime);
+        }
+        @Override
+        public int hashCode() {
+            return this.id;
+        }
+    }
+
+    public static void main(String[] args) {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int accesses = args.length > 2 ? Integer.parseInt(args[2]) : 500_000;
+        int scanLength = args.length > 3 ? Integer.parseInt(args[3]) : 3_000;
+        int[] trace = trace(documents, accesses, scanLength, 11);
+        System.out.printf("%,d documents, limit %,d in memory, %,d accesses, scans of %,d%n",
+                documents, limit, trace.length, scanLength);
+        replay("LRU", LruEvictionPolicy::new, trace, documents, limit);
+        replay("CLOCK", ClockEvictionPolicy::new, trace, documents, limit);
+        replay("W-TinyLFU", WTinyLfuEvictionPolicy::new, trace, documents, limit);
+    }
+
+    /**
+     * zipf(0.9) over the documents, with a scan of scanLength consecutive cold documents every 50k accesses
+     */
+    static int[] trace(int documents, int accesses, int scanLength, long seed) {
+        double[] cdf = new double[documents];
+        double sum = 0;
+        for (int i = 0; i < documents; i++) {
+            sum += 1 / Math.pow(i + 1, 0.9);
+            cdf[i] = sum;
+        }
+        Random random = new Random(seed);
+        int scans = accesses / 50_000;
+        int[] trace = new int[accesses + scans * scanLength];
+        int t = 0;
+        for (int i = 0; i < accesses; i++) {
+            if (i > 0 && i % 50_000 == 0) {
+                int start = documents / 2 + random.nextInt(Math.max(1, documents / 2 - scanLength));
+                for (int s = 0; s < scanLength; s++) {
+                    trace[t++] = Math.min(documents - 1, start + s);
+                }
+            }
+            int at = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            trace[t++] = Math.min(documents - 1, at < 0 ? -(at + 1) : at);
+        }
+        return Arrays.copyOf(trace, t);
+    }
+
+    private static void replay(String name, Supplier<EvictionPolicy<Doc>> factory, int[] trace, int documents, int limit) {
+        EvictionPolicy<Doc> policy = factory.get();
+        Doc[] docs = new Doc[documents];
+        for (int i = 0; i < documents; i++) {
+            docs[i] = new Doc(i);
+        }
+        long clock = 0;
+        long hits = 0;
+        long diskReads = 0;
+        long diskWrites = 0;
+        long start = System.nanoTime();
+        for (int id : trace) {
+            Doc d = docs[id];
+            d.lastUseTime = ++clock;
+            if (d.inMemory) {
+                hits++;
+                policy.recordAccess(d);
+                continue;
+            }
+            diskReads++;
+            d.inMemory = true;
+            policy.add(d);
+            while (policy.size() > limit) {
+                policy.evict().inMemory = false;
+                diskWrites++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-10s hit ratio %6.2f%%  disk reads %,9d  disk writes %,9d  %,6d ms%n",
+                name, 100.0 * hits / trace.length, diskReads, diskWrites, elapsed / 1_000_000);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.datastructures.MinHeap;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.IndexedMinHeapImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.MinHeapImpl;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Touches every document of a usage heap in random order, the way the store does on get and search:
+ * set a new last use time, then reHeapify.
+ * The linear-scan MinHeapImpl is run on a smaller heap since it is quadratic over a full pass.
+ * Not run by surefire; args: [documents] [documents for MinHeapImpl]
+ */
+public class HeapTouchBenchmark {
+
+    private static class Doc implements Comparable<Doc> {
+        private long lastUseTime;
+        private Doc(long lastUseTime) {
+            this.lastUseTime = lastUseTime;
+        }
+        @Override
+        public int compareTo(Doc o) {
+            return Long.compare(this.lastUseTime, o.lastUseTime);
+        }
+    }
+
+    public static void main(String[] args) {
+        int docs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int linearDocs = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        run("IndexedMinHeapImpl", IndexedMinHeapImpl::new, docs);
+        run("MinHeapImpl", MinHeapImpl::new, linearDocs);
+    }
+
+    private static void run(String name, Supplier<MinHeap<Doc>> factory, int size) {
+        MinHeap<Doc> heap = factory.get();
+        Doc[] docs = new Doc[size];
+        long clock = 0;
+        for (int i = 0; i < size; i++) {
+            docs[i] = new Doc(clock++);
+            heap.insert(docs[i]);
+        }
+        //random permutation so every document is touched exactly once
+        Random random = new Random(1);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Doc temp = docs[i];
+            docs[i] = docs[j];
+            docs[j] = temp;
+        }
+        long start = System.nanoTime();
+        for (Doc d : docs) {
+            d.lastUseTime = clock++;
+            heap.reHeapify(d);
+        }
+        long elapsed = System.nanoTime() - start;
+        //the first document touched is now the least recently used
+        boolean ordered = heap.peek() == docs[0];
+        System.out.printf("%-20s %,10d touches  %,8d ms  %,10.0f ns/touch  lru ok: %b%n",
+                name, size, elapsed / 1_000_000, (double) elapsed / size, ordered);
+    }
+}
@@ -0,0 +1,93 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
+import edu.yu.cs.com1320.searchengine.datastructures.BTree;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.BPlusTreeImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.BTreeImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.UriKeyCodec;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Heap left in use by the document index once every value has been moved to disk, for BTreeImpl and BPlusTreeImpl,
+ * and the time for random lookups afterwards. The persistence manager throws values away, so only the index is measured.
+ * Not run by surefire; args: [keys] [lookups]
+ */
+public class IndexFootprintBenchmark {
+
+    private static class DiscardingManager implements PersistenceManager<URI, String> {
+        @Override
+        public void serialize(URI uri, String val) {
+        }
+        @Override
+        public String deserialize(URI uri) throws IOException {
+            throw new FileNotFoundException();
+        }
+        @Override
+        public boolean delete(URI uri) {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        System.out.printf("%,d URIs, %,d lookups%n", keys, lookups);
+        measure("BTreeImpl", new BTreeImpl<>(), keys, lookups);
+        File file = Files.createTempFile("index", ".bpt").toFile();
+        try (BPlusTreeImpl<URI, String> tree = new BPlusTreeImpl<>(file, new UriKeyCodec())){
+            measure("BPlusTreeImpl", tree, keys, lookups);
+            System.out.printf("%-14s %,14d bytes on disk%n", "", file.length());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static URI uri(int i) {
+        return URI.create("http://www.yu.edu/section" + (i % 1000) + "/document" + i);
+    }
+
+    private static void measure(String name, BTree<URI, String> tree, int keys, int lookups) throws IOException {
+        tree.setPersistenceManager(new DiscardingManager());
+        long before = usedHeap();
+        long start = System.nanoTime();
+        Random random = new Random(1);
+        for (int i = 0; i < keys; i++){
+            URI key = uri(random.nextInt(Integer.MAX_VALUE));
+            tree.put(key, "value");
+            tree.moveToDisk(key);
+        }
+        long insertNanos = System.nanoTime() - start;
+        long after = usedHeap();
+        random = new Random(1);
+        URI[] probes = new URI[lookups];
+        for (int i = 0; i < lookups; i++){
+            probes[i] = uri(random.nextInt(Integer.MAX_VALUE));
+        }
+        start = System.nanoTime();
+        for (URI probe : probes){
+            tree.get(probe);
+        }
+        long lookupNanos = System.nanoTime() - start;
+        System.out.printf("%-14s %,14d bytes on heap  %,6.1f bytes/key  insert %,6d ms  lookup %,6d ns%n", name,
+                after - before, (double) (after - before) / keys, insertNanos / 1_000_000, lookupNanos / lookups);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,108 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
+import edu.yu.cs.com1320.searchengine.core.impl.BinaryDocumentCodec;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentImpl;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentPersistenceManager;
+import edu.yu.cs.com1320.searchengine.core.impl.SegmentPersistenceManager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Eviction churn against each persistence manager, driven the way BTreeImpl drives it:
+ * an eviction is serialize, a reload is deserialize followed by delete unless the manager keeps its copy on load.
+ * Every round evicts all documents and then reloads a random half of them, so the on-disk set keeps turning over.
+ * Reloaded documents are only read, so with the memory-mapped segment manager evicting them again is free.
+ * Not run by surefire; args: [documents] [rounds] [document size in bytes]
+ */
+public class PersistenceBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int docSize = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        Document[] docs = documents(documents, docSize);
+        System.out.printf("%,d documents of ~%,d bytes, %d rounds%n", documents, docSize, rounds);
+        Path perFile = Files.createTempDirectory("perfile");
+        Path segments = Files.createTempDirectory("segments");
+        Path mapped = Files.createTempDirectory("mapped");
+        try {
+            run("per-file JSON", new DocumentPersistenceManager(perFile.toFile()), docs, rounds);
+            run("segments", new SegmentPersistenceManager(segments.toFile()), docs, rounds);
+            run("mapped", new SegmentPersistenceManager(mapped.toFile(), new BinaryDocumentCodec(),
+                    SegmentPersistenceManager.DEFAULT_SEGMENT_BYTES, SegmentPersistenceManager.DEFAULT_COMPACTION_THRESHOLD, true), docs, rounds);
+        } finally {
+            deleteAll(perFile);
+            deleteAll(segments);
+            deleteAll(mapped);
+        }
+    }
+
+    private static Document[] documents(int documents, int docSize) {
+        Random random = new Random(5);
+        Document[] docs = new Document[documents];
+        for (int i = 0; i < documents; i++){
+            StringBuilder text = new StringBuilder();
+            while (text.length() < docSize){
+                text.append("word").append(random.nextInt(5_000)).append(' ');
+            }
+            URI uri = URI.create("http://www.yu.edu/section" + (i % 50) + "/doc" + i);
+            docs[i] = new DocumentImpl(uri, text.toString(), null);
+        }
+        return docs;
+    }
+
+    private static void run(String name, PersistenceManager<URI, Document> pm, Document[] original, int rounds) throws IOException {
+        Document[] docs = original.clone();
+        Random random = new Random(7);
+        boolean[] onDisk = new boolean[docs.length];
+        long evictions = 0;
+        long reloads = 0;
+        long evictNanos = 0;
+        long reloadNanos = 0;
+        for (int r = 0; r < rounds; r++){
+            long start = System.nanoTime();
+            for (int i = 0; i < docs.length; i++){
+                if (!onDisk[i]){
+                    pm.serialize(docs[i].getKey(), docs[i]);
+                    onDisk[i] = true;
+                    evictions++;
+                }
+            }
+            evictNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < docs.length; i++){
+                if (random.nextBoolean()){
+                    docs[i] = pm.deserialize(docs[i].getKey());
+                    if (!pm.keepsCopyOnLoad()){
+                        pm.delete(docs[i].getKey());
+                    }
+                    onDisk[i] = false;
+                    reloads++;
+                }
+            }
+            reloadNanos += System.nanoTime() - start;
+        }
+        String written = pm instanceof SegmentPersistenceManager spm ? String.format("%,d MB written", spm.getBytesWritten() >> 20) : "";
+        if (pm instanceof Closeable c){
+            c.close();
+        }
+        System.out.printf("%-14s evictions %,9.0f/s  reloads %,9.0f/s  %s%n",
+                name, evictions * 1e9 / evictNanos, reloads * 1e9 / reloadNanos, written);
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)){
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package edu.yu.cs.com1320.searchengine.benchmark;
+
+import edu.yu.cs.com1320.searchengine.datastructures.Trie;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.RadixTrieImpl;
+import edu.yu.cs.com1320.searchengine.datastructures.impl.TrieImpl;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap used by TrieImpl and RadixTrieImpl on the same synthetic vocabulary.
+ * Not run by surefire; run it with
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=edu.yu.cs.com1320.searchengine.benchmark.TrieFootprintBenchmark -Dexec.args="20000"
+ * args: [distinct words] [documents per word]
+ */
+public class TrieFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int words = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int docsPerWord = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        String[] vocabulary = vocabulary(words, 42);
+        System.out.printf("%d distinct words, %d values each%n", words, docsPerWord);
+        long radix = footprint("RadixTrieImpl", RadixTrieImpl::new, vocabulary, docsPerWord);
+        long classic = footprint("TrieImpl", TrieImpl::new, vocabulary, docsPerWord);
+        System.out.printf("TrieImpl / RadixTrieImpl = %.1fx%n", (double) classic / radix);
+    }
+
+    /**
+     * random words of 3 to 12 letters, upper and lower case, so that common prefixes occur
+     */
+    static String[] vocabulary(int size, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[size];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sb.setLength(0);
+            int len = 3 + random.nextInt(10);
+            for (int c = 0; c < len; c++) {
+                //skewed toward the first letters so prefixes are shared
+                int letter = (int) (26 * Math.pow(random.nextDouble(), 2));
+                sb.append((char) ((random.nextInt(8) == 0 ? 'A' : 'a') + letter));
+            }
+            words[i] = sb.toString();
+        }
+        return words;
+    }
+
+    private static long footprint(String name, Supplier<Trie<Integer>> factory, String[] vocabulary, int docsPerWord) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        Trie<Integer> trie = factory.get();
+        for (int d = 0; d < docsPerWord; d++) {
+            for (int w = 0; w < vocabulary.length; w++) {
+                trie.put(vocabulary[w], (w * 31 + d) % 100000);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long after = usedHeap();
+        //keep the trie reachable until after the measurement
+        int hits = trie.get(vocabulary[0]).size();
+        long bytes = after - before;
+        System.out.printf("%-14s %,14d bytes  %,8.1f bytes/word  put %,6d ms  (%d)%n",
+                name, bytes, (double) bytes / vocabulary.length, elapsed / 1_000_000, hits);
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
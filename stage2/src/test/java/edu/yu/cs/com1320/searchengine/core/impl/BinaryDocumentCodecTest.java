@@ -0,0 +1,93 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryDocumentCodecTest {
+    private BinaryDocumentCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        this.codec = new BinaryDocumentCodec();
+    }
+
+    @Test
+    void textDocument() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/documents/doc1");
+        Document doc = new DocumentImpl(uri, "Hello World hello helloworld help Hello über ÜBER 42", null);
+        HashMap<String, String> metadata = new HashMap<>();
+        metadata.put("Author", "Me");
+        metadata.put("Date", "Pesach Sheini");
+        metadata.put("Removed", null);
+        doc.setMetadata(metadata);
+        Document decoded = this.codec.decode(this.codec.encode(doc));
+        assertEquals(doc, decoded);
+        assertEquals(doc.getDocumentTxt(), decoded.getDocumentTxt());
+        assertNull(decoded.getDocumentBinaryData());
+        assertEquals(doc.getWordMap(), decoded.getWordMap());
+        assertEquals(2, decoded.wordCount("Hello"));
+        assertEquals(1, decoded.wordCount("über"));
+        assertEquals(doc.getMetadata(), decoded.getMetadata());
+        assertTrue(decoded.getMetadata().containsKey("Removed"));
+    }
+
+    @Test
+    void binaryDocument() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/documents/img");
+        byte[] data = new byte[5000];
+        for (int i = 0; i < data.length; i++){
+            data[i] = (byte) (i * 31);
+        }
+        Document doc = new DocumentImpl(uri, data);
+        byte[] encoded = this.codec.encode(doc);
+        //raw payload, no Base64
+        assertTrue(encoded.length < data.length + 64);
+        Document decoded = this.codec.decode(encoded);
+        assertEquals(doc, decoded);
+        assertArrayEquals(data, decoded.getDocumentBinaryData());
+        assertNull(decoded.getDocumentTxt());
+        assertTrue(decoded.getMetadata().isEmpty());
+    }
+
+    @Test
+    void noWords() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/punctuation");
+        Document doc = new DocumentImpl(uri, "?! ...", null);
+        Document decoded = this.codec.decode(this.codec.encode(doc));
+        assertEquals("?! ...", decoded.getDocumentTxt());
+        assertTrue(decoded.getWords().isEmpty());
+    }
+
+    @Test
+    void smallerThanJson() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/documents/doc1");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++){
+            text.append("word").append(i % 97).append(' ');
+        }
+        Document doc = new DocumentImpl(uri, text.toString(), null);
+        assertTrue(this.codec.encode(doc).length * 2 < new JsonDocumentCodec().encode(doc).length);
+        Document image = new DocumentImpl(uri, new byte[3000]);
+        assertTrue(this.codec.encode(image).length * 4 < new JsonDocumentCodec().encode(image).length * 3);
+    }
+
+    @Test
+    void corrupt() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/documents/doc1");
+        byte[] encoded = this.codec.encode(new DocumentImpl(uri, "Hello World", null));
+        byte[] newer = encoded.clone();
+        newer[0] = 99;
+        assertThrows(IOException.class, () -> this.codec.decode(newer));
+        assertThrows(IOException.class, () -> this.codec.decode(Arrays.copyOf(encoded, encoded.length - 3)));
+        assertThrows(IOException.class, () -> this.codec.decode(Arrays.copyOf(encoded, encoded.length + 1)));
+        assertThrows(IOException.class, () -> this.codec.decode(new byte[0]));
+    }
+}
@@ -0,0 +1,201 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentStore.DocumentFormat;
+import edu.yu.cs.com1320.searchengine.core.Query;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentDocumentStoreImplTest {
+
+    private static URI uri(int doc) {
+        return URI.create("http://www.yu.edu/doc" + doc);
+    }
+
+    private static void put(ConcurrentDocumentStoreImpl store, int doc, String text) throws IOException {
+        store.put(new ByteArrayInputStream(text.getBytes()), uri(doc), DocumentFormat.TXT);
+    }
+
+    @Test
+    void behavesLikeTheStore(@TempDir File dir) throws IOException {
+        ConcurrentDocumentStoreImpl store = new ConcurrentDocumentStoreImpl(dir);
+        put(store, 0, "apple pie");
+        put(store, 1, "apple apple banana");
+        put(store, 2, "cherry pie");
+        store.setMetadata(uri(2), "Author", "Me");
+        store.setMaxDocumentCount(1);
+        //doc0 and doc1 are on disk now, so these are run again with the store to themselves
+        assertEquals(List.of(uri(1), uri(0)), store.search("apple").stream().map(Document::getKey).toList());
+        assertEquals("apple pie", store.get(uri(0)).getDocumentTxt());
+        assertEquals("Me", store.getMetadata(uri(2), "Author"));
+        assertEquals(List.of(uri(2)), store.searchQuery(Query.and(Query.term("pie"), Query.metadata("Author", "Me"))).stream().map(Document::getKey).toList());
+        assertEquals(List.of(uri(0), uri(1), uri(2)), store.listUrisWithPrefix("http://www.yu.edu/"));
+        assertEquals(3, store.streamWithUriPrefix("http://www.yu.edu/").count());
+        assertTrue(store.delete(uri(1)));
+        assertEquals(List.of(uri(0)), store.search("apple").stream().map(Document::getKey).toList());
+        store.undo();
+        assertEquals(2, store.searchByPrefix("app").size());
+        assertEquals(Set.of(uri(0), uri(2)), store.deleteAll("pie"));
+        assertNull(store.get(uri(0)));
+        store.undo();
+        assertNotNull(store.get(uri(0)));
+        assertThrows(IllegalArgumentException.class, () -> store.search(null));
+        assertThrows(IllegalStateException.class, () -> store.undo(uri(7)));
+    }
+
+    @Test
+    void putAll(@TempDir File dir) throws IOException {
+        ConcurrentDocumentStoreImpl store = new ConcurrentDocumentStoreImpl(dir);
+        put(store, 0, "apple pie");
+        Map<URI, InputStream> batch = new LinkedHashMap<>();
+        batch.put(uri(1), new ByteArrayInputStream("apple apple banana".getBytes()));
+        batch.put(uri(0), null);
+        Map<URI, Integer> old = store.putAll(batch, DocumentFormat.TXT);
+        assertEquals(List.of(uri(1), uri(0)), new ArrayList<>(old.keySet()));
+        assertEquals(0, old.get(uri(1)));
+        assertEquals(List.of(uri(1)), store.search("apple").stream().map(Document::getKey).toList());
+        store.undo();
+        assertEquals(List.of(uri(0)), store.search("apple").stream().map(Document::getKey).toList());
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(null, DocumentFormat.TXT));
+    }
+
+    @Test
+    void inputsAreLimitedBeforeTheLock(@TempDir File dir) throws IOException {
+        ConcurrentDocumentStoreImpl store = new ConcurrentDocumentStoreImpl(dir);
+        store.setMaxDocumentBytes(1_000);
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 'a';
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> store.put(endless, uri(0), DocumentFormat.TXT));
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(Map.of(uri(0), endless), DocumentFormat.BINARY));
+        assertNull(store.get(uri(0)));
+        put(store, 0, "a".repeat(1_000));
+        assertEquals(1, store.search("a".repeat(1_000)).size());
+    }
+
+    /**
+     * an input that blocks until it is let go, saying when it is first read
+     */
+    private static InputStream stalled(String text, CountDownLatch reading, CountDownLatch go) {
+        return new ByteArrayInputStream(text.getBytes()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                reading.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.read(b, off, len);
+            }
+        };
+    }
+
+    @Test
+    void putsAreReadOutsideTheLock(@TempDir File dir) throws Exception {
+        ConcurrentDocumentStoreImpl store = new ConcurrentDocumentStoreImpl(dir);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch go = new CountDownLatch(1);
+        InputStream slow = stalled("slow put", reading, go);
+        Thread putter = new Thread(() -> {
+            try {
+                store.put(slow, uri(1), DocumentFormat.TXT);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        putter.start();
+        reading.await();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> put(store, 0, "fast"));
+        go.countDown();
+        putter.join();
+        assertEquals(List.of(uri(1)), store.search("slow").stream().map(Document::getKey).toList());
+        store.undo();
+        assertEquals(Collections.emptyList(), store.search("slow"));
+        assertEquals(1, store.search("fast").size());
+    }
+
+    @Test
+    void batchesAreReadOutsideTheLock(@TempDir File dir) throws Exception {
+        ConcurrentDocumentStoreImpl store = new ConcurrentDocumentStoreImpl(dir);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch go = new CountDownLatch(1);
+        Map<URI, InputStream> batch = Map.of(uri(1), stalled("slow batch", reading, go));
+        Thread batcher = new Thread(() -> {
+            try {
+                store.putAll(batch, DocumentFormat.TXT);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        batcher.start();
+        reading.await();
+        //the batch is still being read, and other writes go ahead meanwhile
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> put(store, 0, "fast"));
+        go.countDown();
+        batcher.join();
+        assertEquals(1, store.search("slow").size());
+        assertEquals(1, store.search("fast").size());
+    }
+
+    @Test
+    void readersAndWritersAtOnce(@TempDir File dir) throws Exception {
+        ConcurrentDocumentStoreImpl store = new ConcurrentDocumentStoreImpl(dir);
+        for (int doc = 0; doc < 200; doc++){
+            put(store, doc, "common word" + doc + (doc % 2 == 0 ? " even" : " odd"));
+        }
+        store.setMaxDocumentCount(150);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++){
+            int seed = t;
+            Thread reader = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    while (writing.get()){
+                        //documents 0 to 99 are never changed
+                        int doc = random.nextInt(100);
+                        assertEquals(List.of(uri(doc)), store.search("word" + doc).stream().map(Document::getKey).toList());
+                        assertNotNull(store.get(uri(doc)));
+                        assertTrue(store.search("even", 0, 10).size() <= 10);
+                        assertTrue(store.searchByPrefix("word1").size() >= 11);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int round = 0; round < 20; round++){
+            for (int doc = 100; doc < 200; doc++){
+                put(store, doc, "common word" + doc + " changed" + round);
+            }
+            store.deleteAll("changed" + round);
+        }
+        writing.set(false);
+        for (Thread reader : readers){
+            reader.join();
+        }
+        assertEquals(List.of(), new ArrayList<>(failures));
+        assertEquals(100, store.search("common").size());
+        assertEquals(50, store.search("even").size());
+    }
+}
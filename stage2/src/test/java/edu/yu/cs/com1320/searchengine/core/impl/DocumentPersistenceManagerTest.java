@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
@@ -99,4 +100,27 @@ class DocumentPersistenceManagerTest {
         fileName = this.defaultBaseDir.getPath() + "/" + uri.getHost() + uri.getPath() + ".json";
         assertFalse(new File(fileName).exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    void binaryCodec() throws IOException {
+        DocumentPersistenceManager binary = new DocumentPersistenceManager(this.baseDir, new BinaryDocumentCodec());
+        URI uri1 = URI.create("http://www.yu.edu/documents/doc1");
+        Document byteDoc = new DocumentImpl(uri1, "This is a test document.".getBytes());
+        URI uri2 = URI.create("http://www.yu.edu/documents/doc2");
+        Document wordDoc = new DocumentImpl(uri2, "Hello World", null);
+        wordDoc.setMetadataValue("Author", "Me");
+        binary.serialize(uri1, byteDoc);
+        binary.serialize(uri2, wordDoc);
+        String fileName = this.baseDir.getPath() + "/" + uri2.getHost() + uri2.getPath() + ".bin";
+        assertTrue(new File(fileName).exists());
+        Document deserializedByteDoc = binary.deserialize(uri1);
+        Document deserializedWordDoc = binary.deserialize(uri2);
+        assertTrue(binary.delete(uri1));
+        assertTrue(binary.delete(uri2));
+        assertFalse(new File(fileName).exists());
+        this.docEqualityTester(byteDoc, deserializedByteDoc, wordDoc, deserializedWordDoc);
+        //BTreeImpl relies on this to know the document is gone
+        assertThrows(FileNotFoundException.class, () -> binary.deserialize(uri1));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentPersistenceManager(this.baseDir, null));
+    }
+}
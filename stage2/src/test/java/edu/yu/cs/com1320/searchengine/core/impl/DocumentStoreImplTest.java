@@ -2,15 +2,21 @@ package edu.yu.cs.com1320.searchengine.core.impl;
 
 import edu.yu.cs.com1320.searchengine.core.Document;
 import edu.yu.cs.com1320.searchengine.core.DocumentStore.DocumentFormat;
+import edu.yu.cs.com1320.searchengine.core.DocumentStore.Ranking;
+import edu.yu.cs.com1320.searchengine.core.Query;
+import edu.yu.cs.com1320.searchengine.text.Tokenizer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -86,6 +92,129 @@ class DocumentStoreImplTest {
         assertTrue(sample.delete(URI.create("Img")));
     }
 
+    @Test
+    void uriPrefix(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        String[] paths = {"a/1", "a/2", "a/b/3", "a0", "ab/4", "b/5"};
+        for (String path : paths){
+            store.put(new ByteArrayInputStream(("text " + path).getBytes()), URI.create("http://www.yu.edu/" + path), DocumentFormat.TXT);
+        }
+        store.put(new ByteArrayInputStream("other host".getBytes()), URI.create("http://www.yu.edu.example/a/1"), DocumentFormat.TXT);
+        store.setMaxDocumentCount(2);
+        List<URI> underA = List.of(URI.create("http://www.yu.edu/a/1"), URI.create("http://www.yu.edu/a/2"), URI.create("http://www.yu.edu/a/b/3"));
+        assertEquals(underA, store.listUrisWithPrefix("http://www.yu.edu/a/"));
+        assertEquals(5, store.listUrisWithPrefix("http://www.yu.edu/a").size());
+        assertEquals(7, store.listUrisWithPrefix("http://www.yu.edu").size());
+        assertEquals(7, store.listUrisWithPrefix("").size());
+        assertEquals(Collections.emptyList(), store.listUrisWithPrefix("http://www.yu.edu/c"));
+        assertEquals(List.of("text a/1", "text a/2", "text a/b/3"),
+                store.streamWithUriPrefix("http://www.yu.edu/a/").map(Document::getDocumentTxt).collect(Collectors.toList()));
+        store.delete(URI.create("http://www.yu.edu/a/2"));
+        assertEquals(2, store.streamWithUriPrefix("http://www.yu.edu/a/").count());
+        assertThrows(IllegalArgumentException.class, () -> store.listUrisWithPrefix(null));
+        assertThrows(IllegalArgumentException.class, () -> store.streamWithUriPrefix(null));
+    }
+
+    @Test
+    void bulkImport(@TempDir File dir) throws IOException {
+        DocumentPersistenceManager pm = new DocumentPersistenceManager(dir);
+        List<Map.Entry<URI, Document>> sorted = new ArrayList<>();
+        for (int i = 0; i < 20; i++){
+            URI uri = URI.create("http://www.yu.edu/doc" + (10 + i));
+            Document doc = new DocumentImpl(uri, "document number " + i + (i % 2 == 0 ? " even" : ""), null);
+            doc.setMetadataValue("index", "" + i);
+            if (i % 3 == 0){
+                pm.serialize(uri, doc);
+                sorted.add(new AbstractMap.SimpleEntry<>(uri, null));
+            } else {
+                sorted.add(new AbstractMap.SimpleEntry<>(uri, doc));
+            }
+        }
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        store.setMaxDocumentCount(5);
+        store.bulkImport(sorted.iterator());
+        assertEquals(10, store.search("even").size());
+        assertEquals(20, store.searchByPrefix("doc").size());
+        assertEquals(List.of(URI.create("http://www.yu.edu/doc12")), store.searchByMetadata(Map.of("index", "2")).stream().map(Document::getKey).collect(Collectors.toList()));
+        assertEquals("document number 3", store.get(URI.create("http://www.yu.edu/doc13")).getDocumentTxt());
+        assertEquals(20, store.listUrisWithPrefix("http://www.yu.edu/").size());
+        assertThrows(IllegalStateException.class, () -> store.bulkImport(Collections.emptyIterator()));
+        assertThrows(IllegalStateException.class, () -> this.sample.bulkImport(Collections.emptyIterator()));
+        DocumentStoreImpl unsorted = new DocumentStoreImpl(dir);
+        List<Map.Entry<URI, Document>> reversed = new ArrayList<>(sorted.subList(1, 3));
+        Collections.reverse(reversed);
+        assertThrows(IllegalArgumentException.class, () -> unsorted.bulkImport(reversed.iterator()));
+        assertThrows(IllegalArgumentException.class, () -> unsorted.bulkImport(List.of(Map.entry(URI.create("x"), sorted.get(1).getValue())).iterator()));
+    }
+
+    @Test
+    void wordsAreSharedAcrossDocuments() throws IOException {
+        String first = null;
+        for (String word : sample.get(URI.create("HW")).getWordMap().keySet()){
+            if (word.equals("World")){
+                first = word;
+            }
+        }
+        for (String word : sample.get(URI.create("HIII")).getWordMap().keySet()){
+            if (word.equals("World")){
+                assertSame(first, word);
+            }
+        }
+        //a word can come back after every document with it is gone
+        assertEquals(2, sample.deleteAll("World").size());
+        assertEquals(Collections.emptyList(), sample.search("World"));
+        assertEquals(Collections.emptyList(), sample.searchByPrefix("Wor"));
+        sample.undo();
+        assertEquals(2, sample.search("World").size());
+        assertEquals(2, sample.searchByPrefix("Wor").size());
+    }
+
+    @Test
+    void reloadedWordsAreShared(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        URI first = URI.create("http://www.yu.edu/first");
+        URI second = URI.create("http://www.yu.edu/second");
+        store.put(new ByteArrayInputStream("shared shared once".getBytes()), first, DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream("shared".getBytes()), second, DocumentFormat.TXT);
+        store.setMaxDocumentCount(1);
+        //first went to disk; reading it back must not change its counts or leave it with its own strings
+        Document reloaded = store.search("once").get(0);
+        assertEquals(2, reloaded.wordCount("shared"));
+        assertEquals(1, reloaded.wordCount("once"));
+        String word = null;
+        for (String w : store.get(second).getWordMap().keySet()){
+            word = w;
+        }
+        store.setMaxDocumentCount(2);
+        for (String w : store.get(first).getWordMap().keySet()){
+            if (w.equals("shared")){
+                assertSame(word, w);
+            }
+        }
+        List<Document> ranked = store.search("shared");
+        assertEquals(first, ranked.get(0).getKey());
+        assertEquals(second, ranked.get(1).getKey());
+    }
+
+    @Test
+    void releasedTermIdsAreReused() throws IOException {
+        URI alpha = URI.create("alpha");
+        URI beta = URI.create("beta");
+        sample.put(new ByteArrayInputStream("alpha alpha".getBytes()), alpha, DocumentFormat.TXT);
+        sample.delete(alpha);
+        //beta gets the id alpha let go of, and must not find alpha's document or be found as alpha
+        sample.put(new ByteArrayInputStream("beta".getBytes()), beta, DocumentFormat.TXT);
+        assertEquals(Collections.emptyList(), sample.search("alpha"));
+        assertEquals(1, sample.search("beta").size());
+        assertEquals(1, sample.searchByPrefix("be").size());
+        assertEquals(Collections.emptyList(), sample.searchByPrefix("al"));
+        sample.undo();
+        sample.undo();
+        assertEquals(Collections.emptyList(), sample.search("beta"));
+        assertEquals("alpha alpha", sample.search("alpha").get(0).getDocumentTxt());
+        assertEquals(2, sample.search("alpha").get(0).wordCount("alpha"));
+    }
+
     @Test
     void undoLastSingle() throws IOException {
         sample.undo();
@@ -199,6 +328,17 @@ class DocumentStoreImplTest {
         assertThrows(IndexOutOfBoundsException.class, () -> hello.get(2));
     }
 
+    @Test
+    void searchRanksOnDiskDocsByCount() throws IOException {
+        sample.put(new ByteArrayInputStream("Hello Hello Hello".getBytes()), URI.create("H3"), DocumentFormat.TXT);
+        sample.setMaxDocumentCount(1);
+        List<Document> hello = sample.search("Hello");
+        assertEquals(URI.create("H3"), hello.get(0).getKey());
+        assertEquals(URI.create("HIII"), hello.get(1).getKey());
+        assertEquals(URI.create("HW"), hello.get(2).getKey());
+        assertEquals(3, hello.size());
+    }
+
     @Test
     void searchByPrefix() throws IOException {
         String s4 = "H H H";
@@ -224,6 +364,215 @@ class DocumentStoreImplTest {
         assertThrows(IndexOutOfBoundsException.class, () -> hello2.get(4));
     }
 
+    @Test
+    void searchPages(@TempDir File dir) throws IOException {
+        int[] loads = new int[1];
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        store.setPersistenceManager(new DocumentPersistenceManager(dir) {
+            @Override
+            public Document deserialize(URI uri) throws IOException {
+                loads[0]++;
+                return super.deserialize(uri);
+            }
+        });
+        for (int i = 0; i < 40; i++){
+            //counts 1 to 8, so plenty of ties to break by URI
+            String text = "word ".repeat(1 + i % 8) + "wordy other";
+            store.put(new ByteArrayInputStream(text.getBytes()), URI.create("http://www.yu.edu/doc" + i), DocumentFormat.TXT);
+            store.setMetadata(URI.create("http://www.yu.edu/doc" + i), "parity", "" + i % 2);
+        }
+        store.setMaxDocumentCount(3);
+        List<Document> all = store.search("word");
+        List<Document> allPrefix = store.searchByPrefix("wor");
+        assertEquals(40, all.size());
+        List<Document> pages = new ArrayList<>();
+        List<Document> prefixPages = new ArrayList<>();
+        for (int offset = 0; offset < 40; offset += 7){
+            loads[0] = 0;
+            List<Document> page = store.search("word", offset, 7);
+            assertTrue(loads[0] <= 7);
+            pages.addAll(page);
+            prefixPages.addAll(store.searchByPrefix("wor", offset, 7));
+        }
+        assertEquals(all, pages);
+        assertEquals(allPrefix, prefixPages);
+        assertEquals(all.subList(0, 5), store.search("word", 0, 5));
+        assertEquals(all.subList(38, 40), store.search("word", 38, 10));
+        assertEquals(Collections.emptyList(), store.search("word", 40, 10));
+        assertEquals(all.subList(0, 40), store.search("word", 0, Integer.MAX_VALUE));
+        assertEquals(Collections.emptyList(), store.search("nothing", 0, 10));
+        Map<String, String> odd = Map.of("parity", "1");
+        List<Document> oddDocs = store.searchByKeywordAndMetadata("word", odd);
+        assertEquals(20, oddDocs.size());
+        assertEquals(oddDocs.subList(3, 6), store.searchByKeywordAndMetadata("word", odd, 3, 3));
+        assertEquals(store.searchByPrefixAndMetadata("wor", odd).subList(0, 4), store.searchByPrefixAndMetadata("wor", odd, 0, 4));
+        List<Document> oddByMetadata = store.searchByMetadata(odd);
+        loads[0] = 0;
+        assertEquals(oddByMetadata.subList(15, 20), store.searchByMetadata(odd, 15, 10));
+        assertTrue(loads[0] <= 5);
+        assertEquals(Collections.emptyList(), store.searchByMetadata(Map.of(), 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> store.searchByMetadata(odd, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> store.search("word", -1, 5));
+        assertThrows(IllegalArgumentException.class, () -> store.searchByPrefix("wor", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> store.searchByKeywordAndMetadata("word", null, 0, 5));
+    }
+
+    @Test
+    void searchQuery(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        String[] texts = {
+                "the quick brown fox jumps over the lazy dog",
+                "quick quick brown dogs",
+                "the brown fox is quick",
+                "a lazy dog sleeps, the quick brown fox jumps over the lazy dog again",
+                "nothing to see here"};
+        for (int i = 0; i < texts.length; i++){
+            URI uri = URI.create("http://www.yu.edu/doc" + i);
+            store.put(new ByteArrayInputStream(texts[i].getBytes()), uri, DocumentFormat.TXT);
+            store.setMetadata(uri, "even", "" + (i % 2 == 0));
+        }
+        store.put(new ByteArrayInputStream(new byte[]{1, 2, 3}), URI.create("http://www.yu.edu/binary"), DocumentFormat.BINARY);
+        store.setMetadata(URI.create("http://www.yu.edu/binary"), "even", "true");
+        //phrases are checked against the text, so have most documents on disk
+        store.setMaxDocumentCount(2);
+        assertEquals(uris(0, 3), uris(store.searchQuery(QueryParser.parse("\"brown fox jumps\""))));
+        assertEquals(uris(3, 0), uris(store.searchQuery(QueryParser.parse("\"lazy dog\""))));
+        assertEquals(uris(2), uris(store.searchQuery(QueryParser.parse("fox -jumps"))));
+        //ranked by the total count of quick and brown
+        assertEquals(uris(1, 0, 2, 3), uris(store.searchQuery(QueryParser.parse("quick brown"))));
+        assertEquals(uris(1, 0, 2, 3), uris(store.searchQuery(QueryParser.parse("quick OR nothing"))).subList(0, 4));
+        assertEquals(uris(0, 2), uris(store.searchQuery(QueryParser.parse("fox even:true"))));
+        assertEquals(uris(3, 1), uris(store.searchQuery(QueryParser.parse("dog* NOT even:true"))));
+        //equal counts are ordered by URI
+        assertEquals(List.of(URI.create("http://www.yu.edu/binary"), URI.create("http://www.yu.edu/doc4")),
+                uris(store.searchQuery(QueryParser.parse("NOT brown even:true"))));
+        List<URI> notBrown = uris(store.searchQuery(QueryParser.parse("NOT brown")));
+        assertEquals(Set.of(URI.create("http://www.yu.edu/doc4"), URI.create("http://www.yu.edu/binary")), new HashSet<>(notBrown));
+        assertEquals(uris(0, 3), uris(store.searchQuery(Query.and(Query.phrase("the", "quick"), Query.prefix("jum")))));
+        assertEquals(uris(3), uris(store.searchQuery(QueryParser.parse("\"the quick\" jumps"), 1, 5)));
+        assertEquals(Collections.emptyList(), store.searchQuery(QueryParser.parse("\"dog quick\"")));
+        assertEquals(Collections.emptyList(), store.searchQuery(QueryParser.parse("missing OR gone*")));
+        assertThrows(IllegalArgumentException.class, () -> store.searchQuery(null));
+        assertThrows(IllegalArgumentException.class, () -> store.searchQuery(Query.term("quick"), 0, 0));
+    }
+
+    @Test
+    void phrasesPeekAtDocumentsOnDisk(@TempDir File dir) throws IOException {
+        List<URI> written = new ArrayList<>();
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        store.setPersistenceManager(new DocumentPersistenceManager(dir) {
+            @Override
+            public void serialize(URI uri, Document val) throws IOException {
+                written.add(uri);
+                super.serialize(uri, val);
+            }
+        });
+        for (int i = 0; i < 10; i++){
+            String text = i % 2 == 0 ? "the quick brown fox " + i : "quick the fox " + i;
+            store.put(new ByteArrayInputStream(text.getBytes()), uris(i).get(0), DocumentFormat.TXT);
+        }
+        store.setMaxDocumentCount(1);
+        written.clear();
+        //every document is a candidate, but only the one returned is brought back, pushing out the one in memory
+        assertEquals(uris(0), uris(store.searchQuery(QueryParser.parse("\"the quick\""), 0, 1)));
+        assertEquals(uris(9), written);
+        assertEquals(uris(0, 2, 4, 6, 8), uris(store.searchQuery(QueryParser.parse("\"quick brown\" OR missing"))));
+    }
+
+    @Test
+    void bm25Ranking(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        String filler = "filler ".repeat(200);
+        //doc0 is short, doc1 has apple more often but is long; banana is only in doc2
+        store.put(new ByteArrayInputStream("apple pie".getBytes()), uris(0).get(0), DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream(("apple apple " + filler).getBytes()), uris(1).get(0), DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream(("apple pie banana " + filler).getBytes()), uris(2).get(0), DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream("pie".getBytes()), uris(3).get(0), DocumentFormat.TXT);
+        store.setMaxDocumentCount(1);
+        assertEquals(uris(1, 0, 2), uris(store.search("apple", 0, 10)));
+        assertEquals(uris(1, 0, 2), uris(store.search("apple", 0, 10, Ranking.COUNT)));
+        assertEquals(uris(0, 1, 2), uris(store.search("apple", 0, 10, Ranking.BM25)));
+        assertEquals(uris(0, 1), uris(store.searchByPrefix("app", 0, 2, Ranking.BM25)));
+        //the rare word outweighs the common one
+        assertEquals(uris(1, 2, 0), uris(store.searchQuery(QueryParser.parse("apple OR banana"))));
+        assertEquals(uris(2, 0, 1), uris(store.searchQuery(QueryParser.parse("apple OR banana"), 0, 10, Ranking.BM25)));
+        assertEquals(uris(0, 2), uris(store.searchQuery(QueryParser.parse("\"apple pie\""), 0, 10, Ranking.BM25)));
+        //the statistics follow deletes and undos
+        store.delete(uris(1).get(0));
+        assertEquals(uris(0, 2), uris(store.search("apple", 0, 10, Ranking.BM25)));
+        store.undo();
+        assertEquals(uris(0, 1, 2), uris(store.search("apple", 0, 10, Ranking.BM25)));
+        assertThrows(IllegalArgumentException.class, () -> store.search("apple", 0, 10, null));
+        assertThrows(IllegalArgumentException.class, () -> store.searchQuery(Query.term("apple"), 0, 10, null));
+    }
+
+    @Test
+    void queryCache() throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl();
+        store.put(new ByteArrayInputStream("apple pie".getBytes()), uris(0).get(0), DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream("apple apple banana".getBytes()), uris(1).get(0), DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream("cherry pie".getBytes()), uris(2).get(0), DocumentFormat.TXT);
+        assertEquals(uris(1, 0), uris(store.search("apple")));
+        assertEquals(uris(1, 0), uris(store.search("apple")));
+        assertEquals(1, store.getQueryCacheHits());
+        assertEquals(1, store.getQueryCacheMisses());
+        //a page within a cached ranking is a hit, one past the end of a partial ranking isn't
+        assertEquals(uris(0), uris(store.searchByPrefix("ap", 1, 1)));
+        assertEquals(uris(1), uris(store.searchByPrefix("ap", 0, 1)));
+        assertEquals(2, store.getQueryCacheHits());
+        //putting a document with another word leaves the result cached
+        store.put(new ByteArrayInputStream("durian".getBytes()), uris(3).get(0), DocumentFormat.TXT);
+        assertEquals(uris(1, 0), uris(store.search("apple")));
+        assertEquals(3, store.getQueryCacheHits());
+        //a word with the prefix only drops the prefix search
+        store.put(new ByteArrayInputStream("apples".getBytes()), uris(4).get(0), DocumentFormat.TXT);
+        assertEquals(uris(1, 0), uris(store.search("apple")));
+        assertEquals(uris(1, 0, 4), uris(store.searchByPrefix("ap")));
+        assertEquals(4, store.getQueryCacheHits());
+        //deleting a document with the word, and undoing it, drop it
+        store.delete(uris(1).get(0));
+        assertEquals(uris(0), uris(store.search("apple")));
+        store.undo();
+        assertEquals(uris(1, 0), uris(store.search("apple")));
+        assertEquals(4, store.getQueryCacheHits());
+        //only changes to the pair drop a search by metadata
+        Map<String, String> byMe = Map.of("Author", "Me");
+        store.setMetadata(uris(0).get(0), "Author", "Me");
+        assertEquals(uris(0), uris(store.searchByKeywordAndMetadata("apple", byMe)));
+        store.setMetadata(uris(2).get(0), "Author", "You");
+        assertEquals(uris(0), uris(store.searchByKeywordAndMetadata("apple", byMe)));
+        assertEquals(5, store.getQueryCacheHits());
+        long hits = store.getQueryCacheHits();
+        store.setMetadata(uris(1).get(0), "Author", "Me");
+        assertEquals(uris(1, 0), uris(store.searchByKeywordAndMetadata("apple", byMe)));
+        store.undo();
+        assertEquals(uris(0), uris(store.searchByMetadata(byMe)));
+        assertEquals(hits, store.getQueryCacheHits());
+        //NOT depends on every document in the store
+        Query notApple = Query.not(Query.term("apple"));
+        assertEquals(uris(2, 3, 4), uris(store.searchQuery(notApple)));
+        store.put(new ByteArrayInputStream("elderberry".getBytes()), uris(5).get(0), DocumentFormat.TXT);
+        assertEquals(uris(2, 3, 4, 5), uris(store.searchQuery(notApple)));
+        //turning the cache off
+        store.setQueryCacheSize(0);
+        store.search("apple");
+        store.search("apple");
+        assertEquals(hits, store.getQueryCacheHits());
+        assertThrows(IllegalArgumentException.class, () -> store.setQueryCacheSize(-1));
+    }
+
+    private static List<URI> uris(int... docs) {
+        List<URI> uris = new ArrayList<>();
+        for (int doc : docs){
+            uris.add(URI.create("http://www.yu.edu/doc" + doc));
+        }
+        return uris;
+    }
+
+    private static List<URI> uris(List<Document> docs) {
+        return docs.stream().map(Document::getKey).collect(Collectors.toList());
+    }
+
     // @Test
     // void deleteAll() {
     // }
@@ -264,6 +613,62 @@ class DocumentStoreImplTest {
         assertEquals(Collections.emptyList(), sample.searchByPrefixAndMetadata("", metaMap));
     }
 
+    @Test
+    void metadataIndexFollowsChanges() throws IOException {
+        URI hw = URI.create("HW");
+        URI hiii = URI.create("HIII");
+        Map<String, String> byMe = Map.of("Author", "Me");
+        Map<String, String> byMeIn2020 = Map.of("Author", "Me", "Year", "2020");
+        sample.setMetadata(hw, "Author", "Me");
+        sample.setMetadata(hiii, "Author", "Me");
+        sample.setMetadata(hiii, "Year", "2020");
+        assertEquals(2, sample.searchByMetadata(byMe).size());
+        assertEquals(List.of(sample.get(hiii)), sample.searchByMetadata(byMeIn2020));
+        //overwriting a value moves the document to the new pair
+        sample.setMetadata(hw, "Author", "You");
+        assertEquals(List.of(sample.get(hiii)), sample.searchByMetadata(byMe));
+        assertEquals(List.of(sample.get(hw)), sample.searchByMetadata(Map.of("Author", "You")));
+        sample.undo(hw);
+        assertEquals(2, sample.searchByMetadata(byMe).size());
+        assertEquals(Collections.emptyList(), sample.searchByMetadata(Map.of("Author", "You")));
+        //a null value is the same as not having the key
+        sample.setMetadata(hiii, "Year", null);
+        assertEquals(Collections.emptyList(), sample.searchByMetadata(byMeIn2020));
+        sample.undo(hiii);
+        assertEquals(1, sample.searchByMetadata(byMeIn2020).size());
+        //deleted and re-put documents leave and rejoin the index
+        assertEquals(Set.of(hiii), sample.deleteAllWithMetadata(byMeIn2020));
+        assertEquals(List.of(sample.get(hw)), sample.searchByMetadata(byMe));
+        sample.undo();
+        assertEquals(List.of(sample.get(hiii)), sample.searchByKeywordAndMetadata("Hello", byMeIn2020));
+        sample.put(new ByteArrayInputStream("Hello again".getBytes()), hiii, DocumentFormat.TXT);
+        assertEquals(List.of(sample.get(hw)), sample.searchByMetadata(byMe));
+        sample.undo();
+        assertEquals(Set.of(hiii), sample.deleteAllWithPrefixAndMetadata("He", byMeIn2020));
+        assertEquals(Collections.emptyList(), sample.searchByMetadata(Map.of("Missing", "key")));
+    }
+
+    @Test
+    void reusedDocumentIdsDontLeakMatches() throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl();
+        for (int i = 0; i < 100; i++){
+            URI uri = URI.create("http://www.yu.edu/doc" + i);
+            store.put(new ByteArrayInputStream(("common " + (i % 2 == 0 ? "even" : "odd")).getBytes()), uri, DocumentFormat.TXT);
+            store.setMetadata(uri, "parity", i % 2 == 0 ? "even" : "odd");
+        }
+        assertEquals(50, store.deleteAll("even").size());
+        //the new documents take the freed ids
+        for (int i = 0; i < 50; i++){
+            store.put(new ByteArrayInputStream("common fresh".getBytes()), URI.create("http://www.yu.edu/new" + i), DocumentFormat.TXT);
+        }
+        assertEquals(Collections.emptyList(), store.search("even"));
+        assertEquals(Collections.emptyList(), store.searchByMetadata(Map.of("parity", "even")));
+        assertEquals(50, store.searchByMetadata(Map.of("parity", "odd")).size());
+        assertEquals(50, store.searchByKeywordAndMetadata("common", Map.of("parity", "odd")).size());
+        assertEquals(100, store.search("common").size());
+        assertEquals(50, store.searchByPrefix("fr").size());
+    }
+
     @Test
     void deleteAllWithMetadata() throws IOException {
         assertNull(sample.setMetadata(URI.create("HW"), "Author", "Me"));
@@ -397,6 +802,188 @@ class DocumentStoreImplTest {
         assertNotNull(sample.get(URI.create("Img")));
     }
 
+    @Test
+    void evictionStrategies() throws IOException {
+        for (DocumentStoreImpl.EvictionStrategy strategy : DocumentStoreImpl.EvictionStrategy.values()) {
+            DocumentStoreImpl store = new DocumentStoreImpl(null, strategy);
+            for (int i = 0; i < 10; i++) {
+                String text = "Hello " + "World ".repeat(i);
+                store.put(new ByteArrayInputStream(text.getBytes()), URI.create("D" + i), DocumentFormat.TXT);
+            }
+            store.setMaxDocumentCount(3);
+            List<Document> world = store.search("World");
+            assertEquals(9, world.size());
+            assertEquals(URI.create("D9"), world.get(0).getKey());
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(store.get(URI.create("D" + i)));
+            }
+            store.setMaxDocumentBytes(70);
+            assertEquals(10, store.searchByPrefix("Hel").size());
+            assertEquals(10, store.deleteAll("Hello").size());
+            assertEquals(Collections.emptyList(), store.search("World"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new DocumentStoreImpl(null, null));
+    }
+
+    @Test
+    void putAll(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        store.put(new ByteArrayInputStream("apple pie".getBytes()), uris(0).get(0), DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream("cherry pie".getBytes()), uris(1).get(0), DocumentFormat.TXT);
+        int oldHash = store.get(uris(0).get(0)).hashCode();
+        store.setMaxDocumentCount(2);
+        Map<URI, InputStream> batch = new LinkedHashMap<>();
+        batch.put(uris(2).get(0), new ByteArrayInputStream("apple apple banana".getBytes()));
+        batch.put(uris(0).get(0), new ByteArrayInputStream("apple tart".getBytes()));
+        batch.put(uris(1).get(0), null);
+        batch.put(uris(3).get(0), new ByteArrayInputStream("banana bread".getBytes()));
+        Map<URI, Integer> old = store.putAll(batch, DocumentFormat.TXT);
+        assertEquals(uris(2, 0, 1, 3), new ArrayList<>(old.keySet()));
+        assertEquals(0, old.get(uris(2).get(0)));
+        assertEquals(oldHash, old.get(uris(0).get(0)));
+        assertNotEquals(0, old.get(uris(1).get(0)));
+        //two of the three are on disk now, and still found
+        assertEquals(uris(2, 0), uris(store.search("apple")));
+        assertEquals(uris(2, 3), uris(store.search("banana")));
+        assertNull(store.get(uris(1).get(0)));
+        //undoing one document leaves the rest of the batch
+        store.undo(uris(3).get(0));
+        assertEquals(uris(2), uris(store.search("banana")));
+        store.undo();
+        assertEquals(uris(0), uris(store.search("apple")));
+        assertEquals("apple pie", store.get(uris(0).get(0)).getDocumentTxt());
+        assertEquals(uris(0, 1), uris(store.search("pie")));
+        //the next undo is the put before the batch
+        store.undo();
+        assertNull(store.get(uris(1).get(0)));
+        //a failed read puts nothing, and every input is closed anyway
+        Set<Integer> closed = new HashSet<>();
+        batch = new LinkedHashMap<>();
+        for (int i = 4; i < 20; i++) {
+            int doc = i;
+            batch.put(uris(doc).get(0), new ByteArrayInputStream(("durian" + doc).getBytes()) {
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (doc == 5) {
+                        throw new IllegalStateException("Unreadable");
+                    }
+                    return super.read(b, off, len);
+                }
+                @Override
+                public void close() {
+                    synchronized (closed) {
+                        closed.add(doc);
+                    }
+                }
+            });
+        }
+        Map<URI, InputStream> failing = batch;
+        assertThrows(IllegalStateException.class, () -> store.putAll(failing, DocumentFormat.TXT));
+        assertEquals(16, closed.size());
+        assertEquals(Collections.emptyList(), store.searchByPrefix("durian"));
+        batch = new LinkedHashMap<>();
+        batch.put(uris(4).get(0), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Unreadable");
+            }
+        });
+        Map<URI, InputStream> unreadable = batch;
+        assertThrows(IOException.class, () -> store.putAll(unreadable, DocumentFormat.TXT));
+        batch = new HashMap<>();
+        batch.put(null, new ByteArrayInputStream("durian".getBytes()));
+        Map<URI, InputStream> nullUri = batch;
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(nullUri, DocumentFormat.TXT));
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(null, DocumentFormat.TXT));
+        assertThrows(IllegalArgumentException.class, () -> store.putAll(Map.of(), null));
+        assertEquals(Collections.emptyMap(), store.putAll(Map.of(), DocumentFormat.TXT));
+    }
+
+    @Test
+    void batchIsCheckedBeforeItIsPut(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        store.put(new ByteArrayInputStream("kept".getBytes()), uris(0).get(0), DocumentFormat.TXT);
+        Map<URI, InputStream> batch = new LinkedHashMap<>();
+        batch.put(uris(1).get(0), new ByteArrayInputStream("tiny".getBytes()));
+        batch.put(uris(0).get(0), new ByteArrayInputStream("far too long to fit".getBytes()));
+        List<URI> keys = new ArrayList<>(batch.keySet());
+        List<DocumentStoreImpl.ReadDocument> read = store.batchReader(keys, batch, DocumentFormat.TXT);
+        assertEquals(19, read.get(1).byteCount());
+        //the limit is lowered between reading the batch and putting it, as another thread could
+        store.setMaxDocumentBytes(5);
+        assertThrows(IllegalArgumentException.class, () -> store.batchPutter(keys, read));
+        assertNull(store.get(uris(1).get(0)));
+        assertEquals("kept", store.get(uris(0).get(0)).getDocumentTxt());
+        //nothing of the batch is on the undo stack, only the put before it
+        store.undo();
+        assertNull(store.get(uris(0).get(0)));
+        assertThrows(IllegalStateException.class, store::undo);
+    }
+
+    @Test
+    void streamedPuts(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        //long enough that words are split between the chunks the text is read in
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            text.append("word").append(i % 7).append(' ');
+        }
+        text.append("last");
+        store.put(new ByteArrayInputStream(text.toString().getBytes()), uris(0).get(0), DocumentFormat.TXT);
+        Document doc = store.get(uris(0).get(0));
+        assertEquals(text.toString(), doc.getDocumentTxt());
+        assertEquals(new Tokenizer().countTerms(text), doc.getWordMap());
+        assertEquals(uris(0), uris(store.search("last")));
+        //a stream that can't say how much is left is read the same way, a little at a time
+        InputStream trickle = new ByteArrayInputStream(text.toString().getBytes()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 100));
+            }
+
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        };
+        store.put(trickle, uris(0).get(0), DocumentFormat.TXT);
+        assertEquals(text.toString(), store.get(uris(0).get(0)).getDocumentTxt());
+        //an input that never ends is given up on once it passes the limit
+        store.setMaxDocumentBytes(100_000);
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 'a';
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> store.put(endless, uris(1).get(0), DocumentFormat.TXT));
+        assertThrows(IllegalArgumentException.class, () -> store.put(endless, uris(1).get(0), DocumentFormat.BINARY));
+        assertNull(store.get(uris(1).get(0)));
+        byte[] limit = new byte[100_000];
+        Arrays.fill(limit, (byte) 'a');
+        store.put(new ByteArrayInputStream(limit), uris(1).get(0), DocumentFormat.BINARY);
+        assertArrayEquals(limit, store.get(uris(1).get(0)).getDocumentBinaryData());
+        //text with no words is still a document
+        store.put(new ByteArrayInputStream("?!".getBytes()), uris(2).get(0), DocumentFormat.TXT);
+        assertEquals("?!", store.get(uris(2).get(0)).getDocumentTxt());
+    }
+
+    @Test
+    void undoKeepsTheCountedSize(@TempDir File dir) throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(dir);
+        URI uri = uris(1).get(0);
+        store.put(new ByteArrayInputStream("twelve bytes".getBytes()), uri, DocumentFormat.TXT);
+        store.put(new ByteArrayInputStream("four".getBytes()), uri, DocumentFormat.TXT);
+        store.delete(uri);
+        store.setMaxDocumentBytes(10);
+        //the delete is undone with the size counted when "four" was read
+        store.undo();
+        assertEquals("four", store.get(uri).getDocumentTxt());
+        //and the old text, counted as twelve bytes, no longer fits, so undoing the second put changes nothing
+        store.undo();
+        assertEquals("four", store.get(uri).getDocumentTxt());
+    }
+
     @Test
     void timeUpdater() throws IOException {
         sample.search("World");
@@ -435,4 +1022,4 @@ class DocumentStoreImplTest {
         assertNotNull(sample.get(URI.create("Img")));
         assertNotNull(sample.get(URI.create("HIII")));
     }
-}
\ No newline at end of file
+}
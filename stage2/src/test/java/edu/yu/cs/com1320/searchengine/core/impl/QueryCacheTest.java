@@ -0,0 +1,77 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    private static final List<URI> RANKED = List.of(URI.create("a"), URI.create("b"));
+
+    private static QueryCache.Dependencies term(String term) {
+        QueryCache.Dependencies dependencies = new QueryCache.Dependencies();
+        dependencies.term(term);
+        return dependencies;
+    }
+
+    @Test
+    void leastRecentlyUsedIsDropped() {
+        QueryCache cache = new QueryCache(2);
+        cache.put("one", RANKED, true, term("one"));
+        cache.put("two", RANKED, true, term("two"));
+        assertEquals(RANKED, cache.get("one", 10));
+        cache.put("three", RANKED, true, term("three"));
+        assertNull(cache.get("two", 1));
+        assertEquals(RANKED, cache.get("one", 1));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        cache.setCapacity(1);
+        assertEquals(1, cache.size());
+        assertNull(cache.get("three", 1));
+        cache.setCapacity(0);
+        cache.put("one", RANKED, true, term("one"));
+        assertTrue(cache.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new QueryCache(-1));
+    }
+
+    @Test
+    void partialRankings() {
+        QueryCache cache = new QueryCache(10);
+        cache.put("partial", RANKED, false, term("x"));
+        assertEquals(RANKED, cache.get("partial", 2));
+        assertNull(cache.get("partial", 3));
+        cache.put("complete", RANKED, true, term("x"));
+        assertEquals(RANKED, cache.get("complete", Integer.MAX_VALUE));
+    }
+
+    @Test
+    void invalidation() {
+        QueryCache cache = new QueryCache(10);
+        QueryCache.Dependencies prefix = new QueryCache.Dependencies();
+        prefix.prefix("ap");
+        QueryCache.Dependencies pair = new QueryCache.Dependencies();
+        pair.pair("Author", "Me");
+        QueryCache.Dependencies everything = term("apple");
+        everything.everything();
+        cache.put("term", RANKED, true, term("apple"));
+        cache.put("prefix", RANKED, true, prefix);
+        cache.put("pair", RANKED, true, pair);
+        cache.put("everything", RANKED, true, everything);
+        cache.termChanged("a");
+        cache.pairChanged("Author", "You");
+        assertEquals(4, cache.size());
+        cache.termChanged("apricot");
+        assertNull(cache.get("prefix", 1));
+        assertEquals(3, cache.size());
+        cache.pairChanged("Author", "Me");
+        assertNull(cache.get("pair", 1));
+        cache.documentsChanged();
+        assertNull(cache.get("everything", 1));
+        assertEquals(RANKED, cache.get("term", 1));
+        cache.termChanged("apple");
+        assertTrue(cache.isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Query;
+import org.junit.jupiter.api.Test;
+
+import static edu.yu.cs.com1320.searchengine.core.Query.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryParserTest {
+
+    @Test
+    void clauses() {
+        assertEquals(term("Hello"), QueryParser.parse("Hello"));
+        assertEquals(term("dont"), QueryParser.parse("  don't "));
+        assertEquals(prefix("Hel"), QueryParser.parse("Hel*"));
+        assertEquals(phrase("Hello", "World"), QueryParser.parse("\"Hello, World!\""));
+        assertEquals(term("Hello"), QueryParser.parse("\"Hello\""));
+        assertEquals(metadata("Author", "Me"), QueryParser.parse("Author:Me"));
+        assertEquals(metadata("Title", "Two Words"), QueryParser.parse("Title:\"Two Words\""));
+        assertEquals(not(term("Hello")), QueryParser.parse("-Hello"));
+        assertEquals(not(term("Hello")), QueryParser.parse("NOT Hello"));
+    }
+
+    @Test
+    void precedence() {
+        assertEquals(and(term("a"), term("b")), QueryParser.parse("a b"));
+        assertEquals(and(term("a"), term("b")), QueryParser.parse("a AND b"));
+        //operators are only upper case
+        assertEquals(and(term("a"), term("and"), term("b")), QueryParser.parse("a and b"));
+        assertEquals(or(and(term("a"), term("b")), and(term("c"), not(term("d")))), QueryParser.parse("a b OR c -d"));
+        assertEquals(and(term("a"), or(term("b"), term("c"))), QueryParser.parse("a (b OR c)"));
+        assertEquals(and(not(or(term("a"), prefix("b"))), metadata("k", "v")), QueryParser.parse("NOT (a OR b*) k:v"));
+        assertEquals(and(term("a"), phrase("b", "c"), term("d")), QueryParser.parse("a\"b c\"d"));
+    }
+
+    @Test
+    void errors() {
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("  "));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("(a OR b"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("a OR b)"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("a OR"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("AND a"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("\"unclosed"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("\"!!\""));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("key:"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("&&"));
+        assertThrows(IllegalArgumentException.class, () -> QueryParser.parse("NOT"));
+        assertThrows(IllegalArgumentException.class, () -> Query.and());
+        assertThrows(IllegalArgumentException.class, () -> Query.phrase("a", null));
+    }
+}
@@ -0,0 +1,286 @@
+package edu.yu.cs.com1320.searchengine.core.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentStore.DocumentFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentPersistenceManagerTest {
+    @TempDir
+    File baseDir;
+    private SegmentPersistenceManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.manager = new SegmentPersistenceManager(this.baseDir);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.manager.close();
+    }
+
+    @Test
+    void serialize() throws IOException {
+        URI uri1 = URI.create("http://www.yu.edu/documents/doc1");
+        Document byteDoc = new DocumentImpl(uri1, "This is a test document.".getBytes());
+        URI uri2 = URI.create("http://www.yu.edu/documents/doc2");
+        Document wordDoc = new DocumentImpl(uri2, "Hello World", null);
+        HashMap<String, String> metadata = new HashMap<>();
+        metadata.put("Author", "Me");
+        metadata.put("Date", "Pesach Sheini");
+        wordDoc.setMetadata(metadata);
+        this.manager.serialize(uri1, byteDoc);
+        this.manager.serialize(uri2, wordDoc);
+        Document deserializedByteDoc = this.manager.deserialize(uri1);
+        Document deserializedWordDoc = this.manager.deserialize(uri2);
+        assertEquals(byteDoc, deserializedByteDoc);
+        assertArrayEquals(byteDoc.getDocumentBinaryData(), deserializedByteDoc.getDocumentBinaryData());
+        assertEquals(wordDoc, deserializedWordDoc);
+        assertEquals(wordDoc.getDocumentTxt(), deserializedWordDoc.getDocumentTxt());
+        assertEquals(wordDoc.getMetadata(), deserializedWordDoc.getMetadata());
+        //one file no matter how many documents
+        assertEquals(1, this.baseDir.listFiles().length);
+        assertThrows(IllegalArgumentException.class, () -> this.manager.serialize(null, wordDoc));
+        assertThrows(IllegalArgumentException.class, () -> this.manager.serialize(uri2, null));
+    }
+
+    @Test
+    void overwrite() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/documents/doc1");
+        this.manager.serialize(uri, new DocumentImpl(uri, "first", null));
+        this.manager.serialize(uri, new DocumentImpl(uri, "second", null));
+        assertEquals("second", this.manager.deserialize(uri).getDocumentTxt());
+        assertEquals(1, this.manager.size());
+    }
+
+    @Test
+    void delete() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/documents/doc1");
+        this.manager.serialize(uri, new DocumentImpl(uri, "This is a test document.".getBytes()));
+        assertTrue(this.manager.delete(uri));
+        assertFalse(this.manager.delete(uri));
+        //BTreeImpl relies on this to know the document is gone
+        assertThrows(FileNotFoundException.class, () -> this.manager.deserialize(uri));
+        assertThrows(FileNotFoundException.class, () -> this.manager.deserialize(URI.create("never")));
+    }
+
+    @Test
+    void recovery() throws IOException {
+        URI kept = URI.create("http://www.yu.edu/kept");
+        URI deleted = URI.create("http://www.yu.edu/deleted");
+        URI overwritten = URI.create("http://www.yu.edu/overwritten");
+        this.manager.serialize(kept, new DocumentImpl(kept, "kept", null));
+        this.manager.serialize(deleted, new DocumentImpl(deleted, "deleted", null));
+        this.manager.serialize(overwritten, new DocumentImpl(overwritten, "old", null));
+        this.manager.delete(deleted);
+        this.manager.serialize(overwritten, new DocumentImpl(overwritten, "new", null));
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir);
+        assertEquals(2, this.manager.size());
+        assertEquals("kept", this.manager.deserialize(kept).getDocumentTxt());
+        assertEquals("new", this.manager.deserialize(overwritten).getDocumentTxt());
+        assertThrows(FileNotFoundException.class, () -> this.manager.deserialize(deleted));
+    }
+
+    @Test
+    void tornWrite() throws IOException {
+        URI uri = URI.create("http://www.yu.edu/doc");
+        this.manager.serialize(uri, new DocumentImpl(uri, "intact", null));
+        this.manager.close();
+        File segment = this.baseDir.listFiles()[0];
+        long intactLength = segment.length();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")){
+            //the start of a second record that never finished
+            raf.seek(intactLength);
+            raf.writeInt(500);
+            raf.writeInt(12345);
+            raf.write(new byte[10]);
+        }
+        this.manager = new SegmentPersistenceManager(this.baseDir);
+        assertEquals("intact", this.manager.deserialize(uri).getDocumentTxt());
+        assertEquals(intactLength, segment.length());
+        URI next = URI.create("http://www.yu.edu/next");
+        this.manager.serialize(next, new DocumentImpl(next, "next", null));
+        assertEquals("next", this.manager.deserialize(next).getDocumentTxt());
+    }
+
+    @Test
+    void compaction() throws IOException {
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 1024, 0.5);
+        URI[] uris = new URI[200];
+        for (int i = 0; i < uris.length; i++){
+            uris[i] = URI.create("http://www.yu.edu/doc" + i);
+            this.manager.serialize(uris[i], new DocumentImpl(uris[i], "document number " + i, null));
+        }
+        int before = this.manager.segmentCount();
+        assertTrue(before > 5);
+        //churn: read back and delete most documents the way BTreeImpl pages them in
+        for (int i = 0; i < uris.length; i++){
+            if (i % 10 != 0){
+                assertEquals("document number " + i, this.manager.deserialize(uris[i]).getDocumentTxt());
+                this.manager.delete(uris[i]);
+            }
+        }
+        this.manager.compact();
+        assertTrue(this.manager.segmentCount() < before);
+        assertEquals(this.manager.segmentCount(), this.baseDir.listFiles().length);
+        for (int i = 0; i < uris.length; i += 10){
+            assertEquals("document number " + i, this.manager.deserialize(uris[i]).getDocumentTxt());
+        }
+        //compaction must not bring deleted documents back after a restart
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 1024, 0.5);
+        assertEquals(20, this.manager.size());
+        assertThrows(FileNotFoundException.class, () -> this.manager.deserialize(uris[1]));
+        assertEquals("document number 190", this.manager.deserialize(uris[190]).getDocumentTxt());
+    }
+
+    @Test
+    void closed() throws IOException {
+        this.manager.close();
+        URI uri = URI.create("http://www.yu.edu/doc");
+        assertThrows(IllegalStateException.class, () -> this.manager.serialize(uri, new DocumentImpl(uri, "text", null)));
+    }
+
+    @Test
+    void documentStoreEviction() throws IOException {
+        DocumentStoreImpl store = new DocumentStoreImpl(this.baseDir);
+        store.setPersistenceManager(this.manager);
+        for (int i = 0; i < 10; i++){
+            store.put(new ByteArrayInputStream(("text of document " + i).getBytes()), URI.create("http://www.yu.edu/d" + i), DocumentFormat.TXT);
+        }
+        store.setMaxDocumentCount(3);
+        assertEquals(7, this.manager.size());
+        assertEquals(1, this.baseDir.listFiles().length);
+        assertEquals("text of document 0", store.get(URI.create("http://www.yu.edu/d0")).getDocumentTxt());
+        assertEquals(7, this.manager.size());
+        assertEquals(10, store.search("document").size());
+        assertThrows(IllegalStateException.class, () -> store.setPersistenceManager(this.manager));
+    }
+
+    @Test
+    void memoryMapped() throws IOException {
+        this.manager.close();
+        //each document fills a segment, which is then mapped
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 4096, 0.5, true);
+        assertTrue(this.manager.keepsCopyOnLoad());
+        URI small = URI.create("http://www.yu.edu/small");
+        URI uri = URI.create("http://www.yu.edu/img");
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++){
+            data[i] = (byte) i;
+        }
+        //a segment that can still grow isn't mapped
+        this.manager.serialize(small, new DocumentImpl(small, new byte[]{1, 2, 3, 4}));
+        assertFalse(this.manager.deserialize(small).getDocumentBinaryView().isDirect());
+        this.manager.serialize(uri, new DocumentImpl(uri, data));
+        long written = this.manager.getBytesWritten();
+        Document loaded = this.manager.deserialize(uri);
+        //the content is read straight out of the mapping
+        assertTrue(loaded.getDocumentBinaryView().isDirect());
+        assertTrue(loaded.getDocumentBinaryView().isReadOnly());
+        assertEquals(2, this.manager.size());
+        //evicting it again unchanged costs nothing
+        this.manager.serialize(uri, loaded);
+        assertEquals(written, this.manager.getBytesWritten());
+        loaded = this.manager.deserialize(uri);
+        loaded.setMetadataValue("Author", "Me");
+        this.manager.serialize(uri, loaded);
+        assertTrue(this.manager.getBytesWritten() > written);
+        Document reloaded = this.manager.deserialize(uri);
+        assertEquals("Me", reloaded.getMetadataValue("Author"));
+        assertArrayEquals(data, reloaded.getDocumentBinaryData());
+        //a peeked copy isn't remembered as loaded, so serializing it writes it again
+        written = this.manager.getBytesWritten();
+        Document peeked = this.manager.peek(uri);
+        assertEquals("Me", peeked.getMetadataValue("Author"));
+        this.manager.serialize(uri, peeked);
+        assertTrue(this.manager.getBytesWritten() > written);
+        assertEquals(new DocumentImpl(uri, data).hashCode(), new DocumentImpl(uri, reloaded.getDocumentBinaryView()).hashCode());
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 4096, 0.5, true);
+        assertArrayEquals(data, this.manager.deserialize(uri).getDocumentBinaryData());
+    }
+
+    @Test
+    void memoryMappedCompaction() throws Exception {
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 4096, 0.5, true);
+        URI[] uris = new URI[4];
+        byte[] data = new byte[4096];
+        for (int i = 0; i < uris.length; i++){
+            uris[i] = URI.create("http://www.yu.edu/img" + i);
+            data[0] = (byte) i;
+            this.manager.serialize(uris[i], new DocumentImpl(uris[i], data.clone()));
+        }
+        Document viewing = this.manager.deserialize(uris[0]);
+        assertTrue(viewing.getDocumentBinaryView().isDirect());
+        this.manager.delete(uris[0]);
+        int files = this.baseDir.listFiles().length;
+        this.manager.compact();
+        //the compacted segment's file stays while a document is viewing its mapping, and the view still reads
+        assertEquals(files, this.baseDir.listFiles().length);
+        assertEquals(0, viewing.getDocumentBinaryView().get(0));
+        viewing = null;
+        for (int i = 0; i < 50 && this.baseDir.listFiles().length == files; i++){
+            System.gc();
+            Thread.sleep(20);
+            this.manager.compact();
+        }
+        assertEquals(files - 1, this.baseDir.listFiles().length);
+        assertEquals(3, this.manager.deserialize(uris[3]).getDocumentBinaryView().get(0));
+        //the tombstone outlives the deleted put's segment only while that file is still around
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 4096, 0.5, true);
+        assertThrows(FileNotFoundException.class, () -> this.manager.deserialize(uris[0]));
+        assertEquals(1, this.manager.deserialize(uris[1]).getDocumentBinaryView().get(0));
+    }
+
+    @Test
+    void memoryMappedDocumentStore() throws IOException {
+        this.manager.close();
+        this.manager = new SegmentPersistenceManager(this.baseDir, new BinaryDocumentCodec(), 1024 * 1024, 0.5, true);
+        DocumentStoreImpl store = new DocumentStoreImpl(this.baseDir);
+        store.setPersistenceManager(this.manager);
+        store.setMaxDocumentCount(2);
+        URI[] uris = new URI[6];
+        for (int i = 0; i < uris.length; i++){
+            uris[i] = URI.create("http://www.yu.edu/d" + i);
+            store.put(new ByteArrayInputStream(("text of document " + i).getBytes()), uris[i], DocumentFormat.TXT);
+        }
+        //the documents still in memory since they were put are written the first time they are evicted
+        for (URI uri : uris){
+            store.get(uri);
+        }
+        long written = this.manager.getBytesWritten();
+        //after that, cycling through documents that are only read writes nothing
+        for (int round = 0; round < 3; round++){
+            for (URI uri : uris){
+                assertNotNull(store.get(uri));
+            }
+        }
+        assertEquals(written, this.manager.getBytesWritten());
+        assertEquals(6, this.manager.size());
+        //deleting a document also deletes the copy left on disk
+        store.get(uris[0]);
+        assertTrue(store.delete(uris[0]));
+        assertEquals(5, this.manager.size());
+        assertNull(store.get(uris[0]));
+        store.undo();
+        assertEquals("text of document 0", store.get(uris[0]).getDocumentTxt());
+    }
+}
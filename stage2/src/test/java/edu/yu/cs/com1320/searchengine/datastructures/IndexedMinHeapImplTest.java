@@ -0,0 +1,134 @@
+package edu.yu.cs.com1320.searchengine.datastructures;
+
+import edu.yu.cs.com1320.searchengine.datastructures.impl.IndexedMinHeapImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedMinHeapImplTest {
+    IndexedMinHeapImpl<Spl> sample = new IndexedMinHeapImpl<>();
+    Spl one = new Spl(1);
+    Spl three = new Spl(3);
+    Spl five = new Spl(5);
+
+    class Spl implements Comparable<Spl> {
+        Integer value;
+        Spl(int v){
+            this.value = v;
+        }
+        @Override
+        public int compareTo(Spl o) {
+            return this.value.compareTo(o.value);
+        }
+    }
+
+    //getArrayIndex is only visible through the abstract class from this package
+    private static MinHeap<Spl> asMinHeap(IndexedMinHeapImpl<Spl> heap) {
+        return heap;
+    }
+
+    @BeforeEach
+    void setUp() {
+        sample.insert(one);
+        sample.insert(five);
+        sample.insert(three);
+    }
+
+    @Test
+    void reHeapify() {
+        one.value = 6;
+        sample.reHeapify(one);
+        assertEquals(three, sample.peek());
+        five.value = 0;
+        sample.reHeapify(five);
+        assertEquals(five, sample.peek());
+        assertEquals(five, sample.remove());
+        assertEquals(three, sample.remove());
+        assertEquals(one, sample.remove());
+        assertThrows(NoSuchElementException.class, () -> sample.remove());
+    }
+
+    @Test
+    void getArrayIndex() {
+        assertEquals(1, asMinHeap(sample).getArrayIndex(one));
+        assertEquals(3, asMinHeap(sample).getArrayIndex(three));
+        assertEquals(2, asMinHeap(sample).getArrayIndex(five));
+        assertThrows(NoSuchElementException.class, () -> asMinHeap(sample).getArrayIndex(new Spl(1)));
+    }
+
+    @Test
+    void removeElement() {
+        sample.remove(one);
+        assertFalse(sample.contains(one));
+        assertEquals(2, sample.size());
+        assertEquals(three, sample.peek());
+        assertThrows(NoSuchElementException.class, () -> sample.remove(one));
+        sample.remove(five);
+        assertEquals(three, sample.remove());
+        assertEquals(0, sample.size());
+    }
+
+    @Test
+    void insertTwice() {
+        assertThrows(IllegalArgumentException.class, () -> sample.insert(one));
+    }
+
+    @Test
+    void doubleArraySize() {
+        for (int i = 0; i < 20; i++) {
+            sample.insert(new Spl(10 + i));
+        }
+        assertEquals(23, sample.size());
+        assertEquals(one, sample.peek());
+        assertEquals(3, asMinHeap(sample).getArrayIndex(three));
+    }
+
+    /**
+     * random inserts, key changes and removals checked against a brute force minimum
+     */
+    @Test
+    void stress() {
+        Random random = new Random(7);
+        IndexedMinHeapImpl<Spl> heap = new IndexedMinHeapImpl<>();
+        List<Spl> inHeap = new ArrayList<>();
+        for (int op = 0; op < 50000; op++) {
+            int choice = random.nextInt(10);
+            if (inHeap.isEmpty() || choice < 4) {
+                Spl s = new Spl(random.nextInt(1000));
+                heap.insert(s);
+                inHeap.add(s);
+            } else if (choice < 7) {
+                Spl s = inHeap.get(random.nextInt(inHeap.size()));
+                s.value = random.nextInt(1000);
+                heap.reHeapify(s);
+            } else if (choice < 9) {
+                Spl s = inHeap.remove(random.nextInt(inHeap.size()));
+                heap.remove(s);
+            } else {
+                Spl min = heap.remove();
+                assertTrue(inHeap.remove(min));
+                for (Spl s : inHeap) {
+                    assertTrue(min.value <= s.value);
+                }
+            }
+            assertEquals(inHeap.size(), heap.size());
+            if (!inHeap.isEmpty()) {
+                int smallest = Integer.MAX_VALUE;
+                for (Spl s : inHeap) {
+                    smallest = Math.min(smallest, s.value);
+                }
+                assertEquals(smallest, heap.peek().value);
+            }
+        }
+        Comparable[] heapEls = asMinHeap(heap).elements;
+        for (Spl s : inHeap) {
+            assertEquals(s, heapEls[asMinHeap(heap).getArrayIndex(s)]);
+        }
+    }
+}
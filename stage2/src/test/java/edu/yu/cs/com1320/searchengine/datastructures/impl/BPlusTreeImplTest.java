@@ -0,0 +1,223 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.DocumentStore.DocumentFormat;
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentImpl;
+import edu.yu.cs.com1320.searchengine.core.impl.DocumentStoreImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BPlusTreeImplTest {
+    @TempDir
+    File dir;
+    private File file;
+    private BPlusTreeImpl<URI, String> tree;
+    private MapManager disk;
+
+    /**
+     * keeps "disk" values in a map
+     */
+    private static class MapManager implements PersistenceManager<URI, String> {
+        private final HashMap<URI, String> values = new HashMap<>();
+        @Override
+        public void serialize(URI uri, String val) {
+            this.values.put(uri, val);
+        }
+        @Override
+        public String deserialize(URI uri) throws IOException {
+            String val = this.values.get(uri);
+            if (val == null){
+                throw new FileNotFoundException();
+            }
+            return val;
+        }
+        @Override
+        public boolean delete(URI uri) {
+            return this.values.remove(uri) != null;
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.file = new File(this.dir, "index.bpt");
+        //small pages and pool so that splits and pool evictions happen early
+        this.tree = new BPlusTreeImpl<>(this.file, new UriKeyCodec(), 8, 512, 8);
+        this.disk = new MapManager();
+        this.tree.setPersistenceManager(this.disk);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.tree.close();
+    }
+
+    private static URI uri(int i) {
+        return URI.create("http://www.yu.edu/doc" + i);
+    }
+
+    @Test
+    void putAndGet() {
+        assertNull(this.tree.get(uri(1)));
+        assertNull(this.tree.put(uri(1), "one"));
+        assertEquals("one", this.tree.get(uri(1)));
+        assertEquals("one", this.tree.put(uri(1), "uno"));
+        assertEquals("uno", this.tree.get(uri(1)));
+        assertEquals(1, this.tree.size());
+        assertEquals("uno", this.tree.put(uri(1), null));
+        assertNull(this.tree.get(uri(1)));
+        assertNull(this.tree.put(uri(1), null));
+        assertEquals(0, this.tree.size());
+        assertThrows(IllegalArgumentException.class, () -> this.tree.get(null));
+        assertThrows(IllegalArgumentException.class, () -> this.tree.put(null, "x"));
+    }
+
+    @Test
+    void matchesTreeMap() {
+        TreeMap<URI, String> expected = new TreeMap<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 20_000; i++){
+            URI key = uri(random.nextInt(3_000));
+            String val = random.nextInt(5) == 0 ? null : "v" + i;
+            assertEquals(expected.get(key), this.tree.put(key, val));
+            if (val == null){
+                expected.remove(key);
+            } else {
+                expected.put(key, val);
+            }
+        }
+        assertEquals(expected.size(), this.tree.size());
+        for (int i = 0; i < 3_000; i++){
+            assertEquals(expected.get(uri(i)), this.tree.get(uri(i)));
+        }
+    }
+
+    @Test
+    void longKeysSplitByBytes() {
+        StringBuilder path = new StringBuilder();
+        //about 100 bytes a key, so a 512 byte page fills up long before it has 8 keys
+        for (int i = 0; i < 80; i++){
+            path.append('x');
+        }
+        for (int i = 0; i < 500; i++){
+            this.tree.put(URI.create("http://www.yu.edu/" + path + i), "v" + i);
+        }
+        for (int i = 0; i < 500; i++){
+            assertEquals("v" + i, this.tree.get(URI.create("http://www.yu.edu/" + path + i)));
+        }
+        for (int i = 0; i < 30; i++){
+            path.append("yyyyyyyyyy");
+        }
+        URI tooLong = URI.create("http://www.yu.edu/" + path);
+        assertThrows(IllegalArgumentException.class, () -> this.tree.put(tooLong, "v"));
+    }
+
+    @Test
+    void moveToDisk() throws IOException {
+        this.tree.put(uri(1), "one");
+        this.tree.moveToDisk(uri(1));
+        assertEquals("one", this.disk.values.get(uri(1)));
+        assertEquals("one", this.tree.get(uri(1)));
+        assertTrue(this.disk.values.isEmpty());
+        this.tree.moveToDisk(uri(1));
+        //replacing a value that is on disk returns it and removes it from disk
+        assertEquals("one", this.tree.put(uri(1), "uno"));
+        assertTrue(this.disk.values.isEmpty());
+        this.tree.moveToDisk(uri(1));
+        assertEquals("uno", this.tree.put(uri(1), null));
+        assertNull(this.tree.get(uri(1)));
+        assertThrows(IllegalArgumentException.class, () -> this.tree.moveToDisk(uri(2)));
+        this.tree.setPersistenceManager(null);
+        this.tree.put(uri(3), "three");
+        assertThrows(IllegalStateException.class, () -> this.tree.moveToDisk(uri(3)));
+    }
+
+    @Test
+    void reopen() throws IOException {
+        for (int i = 0; i < 2_000; i++){
+            this.tree.put(uri(i), "v" + i);
+            this.tree.moveToDisk(uri(i));
+        }
+        this.tree.put(uri(7), null);
+        this.tree.close();
+        this.tree = new BPlusTreeImpl<>(this.file, new UriKeyCodec());
+        this.tree.setPersistenceManager(this.disk);
+        assertEquals(1_999, this.tree.size());
+        assertNull(this.tree.get(uri(7)));
+        for (int i = 0; i < 2_000; i += 37){
+            assertEquals(i == 7 ? null : "v" + i, this.tree.get(uri(i)));
+        }
+        assertNull(this.tree.put(uri(5_000), "new"));
+        assertEquals("new", this.tree.get(uri(5_000)));
+    }
+
+    @Test
+    void rangeAndIteration() throws IOException {
+        TreeMap<URI, String> expected = new TreeMap<>();
+        for (int i = 0; i < 3_000; i++){
+            this.tree.put(uri(i), "v" + i);
+            expected.put(uri(i), "v" + i);
+            if (i % 2 == 0){
+                this.tree.moveToDisk(uri(i));
+            }
+        }
+        //deleting whole runs of keys leaves empty leaves for the iterator to step over
+        for (int i = 100; i < 400; i++){
+            this.tree.put(uri(i), null);
+            expected.remove(uri(i));
+        }
+        Iterator<Map.Entry<URI, String>> all = this.tree.iterator();
+        for (Map.Entry<URI, String> e : expected.entrySet()){
+            Map.Entry<URI, String> entry = all.next();
+            assertEquals(e.getKey(), entry.getKey());
+        }
+        assertFalse(all.hasNext());
+        assertThrows(NoSuchElementException.class, all::next);
+        //values on disk are only read when asked for
+        int onDisk = this.disk.values.size();
+        Iterator<Map.Entry<URI, String>> range = this.tree.range(uri(1000), uri(1100));
+        List<Map.Entry<URI, String>> entries = new ArrayList<>();
+        range.forEachRemaining(entries::add);
+        assertEquals(onDisk, this.disk.values.size());
+        assertEquals(expected.subMap(uri(1000), uri(1100)).size(), entries.size());
+        for (Map.Entry<URI, String> entry : entries){
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+        }
+        assertTrue(this.disk.values.size() < onDisk);
+        assertThrows(UnsupportedOperationException.class, () -> entries.get(0).setValue("x"));
+        //bounds that aren't keys
+        range = this.tree.range(URI.create("http://www.yu.edu/doc1000a"), URI.create("http://www.yu.edu/doc1001a"));
+        assertEquals(expected.subMap(URI.create("http://www.yu.edu/doc1000a"), URI.create("http://www.yu.edu/doc1001a")).firstKey(), range.next().getKey());
+        assertFalse(this.tree.range(URI.create("http://www.yu.edu/e"), null).hasNext());
+    }
+
+    @Test
+    void documentStore() throws IOException {
+        BPlusTreeImpl<URI, Document> index = new BPlusTreeImpl<>(new File(this.dir, "docs.bpt"), new UriKeyCodec());
+        DocumentStoreImpl store = new DocumentStoreImpl(this.dir, DocumentStoreImpl.EvictionStrategy.LRU, index);
+        for (int i = 0; i < 20; i++){
+            store.put(new ByteArrayInputStream(("text of document " + i).getBytes()), uri(i), DocumentFormat.TXT);
+        }
+        store.setMaxDocumentCount(5);
+        assertEquals(20, index.size());
+        assertEquals(20, store.search("document").size());
+        assertTrue(store.delete(uri(3)));
+        assertNull(store.get(uri(3)));
+        assertEquals(19, index.size());
+        Document doc = new DocumentImpl(uri(4), "text of document 4", null);
+        assertEquals(doc, store.get(uri(4)));
+        assertThrows(IllegalArgumentException.class, () -> new DocumentStoreImpl(this.dir, DocumentStoreImpl.EvictionStrategy.LRU, null));
+        index.close();
+    }
+}
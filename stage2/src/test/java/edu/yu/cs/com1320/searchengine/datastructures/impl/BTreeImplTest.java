@@ -1,12 +1,18 @@
 package edu.yu.cs.com1320.searchengine.datastructures.impl;
 
 import edu.yu.cs.com1320.searchengine.core.Document;
+import edu.yu.cs.com1320.searchengine.core.PersistenceManager;
 import edu.yu.cs.com1320.searchengine.core.impl.DocumentImpl;
 import edu.yu.cs.com1320.searchengine.core.impl.DocumentPersistenceManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URI;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class BTreeImplTest {
     private BTreeImpl<URI, Document> bTree;
@@ -36,4 +42,177 @@ class BTreeImplTest {
     // @Test
     // void setPersistenceManager() {
     // }
-}
\ No newline at end of file
+
+    /**
+     * keeps values in a map and counts calls
+     */
+    private static class CountingManager implements PersistenceManager<URI, Document> {
+        private final HashMap<URI, Document> disk = new HashMap<>();
+        private final boolean keepsCopy;
+        private int writes;
+        private int deletes;
+        private CountingManager(boolean keepsCopy) {
+            this.keepsCopy = keepsCopy;
+        }
+        @Override
+        public void serialize(URI uri, Document val) {
+            this.writes++;
+            this.disk.put(uri, val);
+        }
+        @Override
+        public Document deserialize(URI uri) throws IOException {
+            Document doc = this.disk.get(uri);
+            if (doc == null){
+                throw new FileNotFoundException();
+            }
+            return doc;
+        }
+        @Override
+        public boolean delete(URI uri) {
+            this.deletes++;
+            return this.disk.remove(uri) != null;
+        }
+        @Override
+        public boolean keepsCopyOnLoad() {
+            return this.keepsCopy;
+        }
+    }
+
+    @Test
+    void moveToDiskAndBack() throws IOException {
+        CountingManager pm = new CountingManager(false);
+        this.bTree.setPersistenceManager(pm);
+        this.bTree.put(this.sampleDoc.getKey(), this.sampleDoc);
+        this.bTree.moveToDisk(this.sampleDoc.getKey());
+        assertEquals(1, pm.writes);
+        assertSame(this.sampleDoc, this.bTree.get(this.sampleDoc.getKey()));
+        //loading removes the copy on disk
+        assertTrue(pm.disk.isEmpty());
+        assertNull(this.bTree.get(URI.create("missing")));
+    }
+
+    @Test
+    void keepsCopyOnLoad() throws IOException {
+        CountingManager pm = new CountingManager(true);
+        this.bTree.setPersistenceManager(pm);
+        URI uri = this.sampleDoc.getKey();
+        this.bTree.put(uri, this.sampleDoc);
+        this.bTree.moveToDisk(uri);
+        assertSame(this.sampleDoc, this.bTree.get(uri));
+        assertEquals(0, pm.deletes);
+        assertTrue(pm.disk.containsKey(uri));
+        //replacing the value makes the copy on disk stale
+        Document replacement = new DocumentImpl(uri, "Goodbye World", null);
+        assertSame(this.sampleDoc, this.bTree.put(uri, replacement));
+        assertFalse(pm.disk.containsKey(uri));
+        this.bTree.moveToDisk(uri);
+        this.bTree.get(uri);
+        //and so does deleting it
+        assertSame(replacement, this.bTree.put(uri, null));
+        assertFalse(pm.disk.containsKey(uri));
+        assertNull(this.bTree.get(uri));
+    }
+
+    @Test
+    void rangeAndIteration() throws IOException {
+        CountingManager pm = new CountingManager(false);
+        this.bTree.setPersistenceManager(pm);
+        TreeMap<URI, Document> expected = new TreeMap<>();
+        for (int i = 0; i < 200; i++){
+            URI uri = URI.create("http://www.yu.edu/doc" + (1000 + i));
+            Document doc = new DocumentImpl(uri, "text " + i, null);
+            this.bTree.put(uri, doc);
+            expected.put(uri, doc);
+            if (i % 3 == 0){
+                this.bTree.moveToDisk(uri);
+            }
+        }
+        for (int i = 0; i < 200; i += 7){
+            URI uri = URI.create("http://www.yu.edu/doc" + (1000 + i));
+            this.bTree.put(uri, null);
+            expected.remove(uri);
+        }
+        List<URI> keys = new ArrayList<>();
+        for (Map.Entry<URI, Document> entry : this.bTree){
+            keys.add(entry.getKey());
+        }
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+        //values on disk are only read when getValue is called
+        int onDisk = pm.disk.size();
+        URI from = URI.create("http://www.yu.edu/doc1050");
+        URI to = URI.create("http://www.yu.edu/doc1100");
+        Iterator<Map.Entry<URI, Document>> range = this.bTree.range(from, to);
+        for (Map.Entry<URI, Document> e : expected.subMap(from, to).entrySet()){
+            assertTrue(range.hasNext());
+            Map.Entry<URI, Document> entry = range.next();
+            assertEquals(e.getKey(), entry.getKey());
+            assertEquals(onDisk, pm.disk.size());
+            assertSame(e.getValue(), entry.getValue());
+            onDisk = pm.disk.size();
+        }
+        assertFalse(range.hasNext());
+        assertThrows(NoSuchElementException.class, range::next);
+        assertFalse(this.bTree.range(URI.create("http://www.yu.edu/e"), null).hasNext());
+        assertEquals(expected.headMap(to).size(), count(this.bTree.range(null, to)));
+        assertEquals(expected.tailMap(from).size(), count(this.bTree.range(from, null)));
+    }
+
+    @Test
+    void bulkLoad() throws IOException {
+        for (int n : new int[]{0, 1, 2, 3, 4, 5, 17, 1_000}){
+            CountingManager pm = new CountingManager(false);
+            BTreeImpl<URI, Document> tree = new BTreeImpl<>();
+            tree.setPersistenceManager(pm);
+            List<Map.Entry<URI, Document>> sorted = new ArrayList<>();
+            for (int i = 0; i < n; i++){
+                URI uri = URI.create("http://www.yu.edu/doc" + (10_000 + 2 * i));
+                Document doc = new DocumentImpl(uri, "text " + i, null);
+                if (i % 4 == 0){
+                    //already on disk
+                    pm.disk.put(uri, doc);
+                    sorted.add(new AbstractMap.SimpleEntry<>(uri, null));
+                } else {
+                    sorted.add(new AbstractMap.SimpleEntry<>(uri, doc));
+                }
+            }
+            tree.bulkLoad(sorted.iterator());
+            assertEquals(n, count(tree.iterator()));
+            for (int i = 0; i < n; i++){
+                URI uri = URI.create("http://www.yu.edu/doc" + (10_000 + 2 * i));
+                assertEquals("text " + i, tree.get(uri).getDocumentTxt());
+                assertNull(tree.get(URI.create("http://www.yu.edu/doc" + (10_001 + 2 * i))));
+            }
+            assertTrue(pm.disk.isEmpty());
+            //the loaded tree takes ordinary puts and deletes
+            for (int i = 0; i < n; i++){
+                URI uri = URI.create("http://www.yu.edu/doc" + (10_001 + 2 * i));
+                assertNull(tree.put(uri, new DocumentImpl(uri, "odd", null)));
+            }
+            assertEquals(2 * n, count(tree.iterator()));
+            if (n > 0){
+                URI first = URI.create("http://www.yu.edu/doc10000");
+                assertNotNull(tree.put(first, null));
+                assertNull(tree.get(first));
+                assertThrows(IllegalStateException.class, () -> tree.bulkLoad(Collections.emptyIterator()));
+            }
+        }
+        //a tree whose keys were all deleted counts as empty
+        this.bTree.put(this.sampleDoc.getKey(), this.sampleDoc);
+        this.bTree.put(this.sampleDoc.getKey(), null);
+        List<Map.Entry<URI, Document>> unsorted = List.of(Map.entry(URI.create("b"), this.sampleDoc), Map.entry(URI.create("a"), this.sampleDoc));
+        assertThrows(IllegalArgumentException.class, () -> this.bTree.bulkLoad(unsorted.iterator()));
+        assertThrows(IllegalArgumentException.class, () -> this.bTree.bulkLoad(null));
+        this.bTree.bulkLoad(List.of(Map.entry(this.sampleImg.getKey(), (Document) this.sampleImg)).iterator());
+        assertSame(this.sampleImg, this.bTree.get(this.sampleImg.getKey()));
+        assertNull(this.bTree.get(this.sampleDoc.getKey()));
+    }
+
+    private static int count(Iterator<?> iterator) {
+        int count = 0;
+        while (iterator.hasNext()){
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,57 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClockEvictionPolicyTest {
+    private ClockEvictionPolicy<String> sample;
+
+    @BeforeEach
+    void setUp() {
+        sample = new ClockEvictionPolicy<>();
+        sample.add("a");
+        sample.add("b");
+        sample.add("c");
+    }
+
+    @Test
+    void evict() {
+        assertEquals("a", sample.evict());
+        sample.recordAccess("b");
+        assertEquals("c", sample.evict());
+        assertEquals("b", sample.evict());
+        assertThrows(NoSuchElementException.class, () -> sample.evict());
+    }
+
+    @Test
+    void secondChanceForEveryone() {
+        sample.recordAccess("a");
+        sample.recordAccess("b");
+        sample.recordAccess("c");
+        assertEquals("a", sample.evict());
+        assertEquals(2, sample.size());
+    }
+
+    @Test
+    void removeAndReuseSlots() {
+        sample.remove("b");
+        assertThrows(NoSuchElementException.class, () -> sample.recordAccess("b"));
+        assertThrows(IllegalArgumentException.class, () -> sample.add("a"));
+        for (int i = 0; i < 20; i++) {
+            sample.add("x" + i);
+        }
+        assertEquals(22, sample.size());
+        Set<String> evicted = new HashSet<>();
+        while (sample.size() > 0) {
+            assertTrue(evicted.add(sample.evict()));
+        }
+        assertEquals(22, evicted.size());
+        assertFalse(evicted.contains("b"));
+    }
+}
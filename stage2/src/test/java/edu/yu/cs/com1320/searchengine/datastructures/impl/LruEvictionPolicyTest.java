@@ -0,0 +1,57 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruEvictionPolicyTest {
+    private LruEvictionPolicy<Use> sample;
+    private long clock;
+    private Use a;
+    private Use b;
+    private Use c;
+
+    class Use implements Comparable<Use> {
+        long lastUse;
+        Use(){
+            this.lastUse = clock++;
+        }
+        @Override
+        public int compareTo(Use o) {
+            return Long.compare(this.lastUse, o.lastUse);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        sample = new LruEvictionPolicy<>();
+        a = new Use();
+        b = new Use();
+        c = new Use();
+        sample.add(a);
+        sample.add(b);
+        sample.add(c);
+    }
+
+    @Test
+    void evict() {
+        a.lastUse = clock++;
+        sample.recordAccess(a);
+        assertEquals(b, sample.evict());
+        assertEquals(c, sample.evict());
+        assertEquals(a, sample.evict());
+        assertThrows(NoSuchElementException.class, () -> sample.evict());
+    }
+
+    @Test
+    void remove() {
+        sample.remove(a);
+        assertEquals(2, sample.size());
+        assertEquals(b, sample.evict());
+        assertThrows(NoSuchElementException.class, () -> sample.remove(a));
+        assertThrows(IllegalArgumentException.class, () -> sample.add(c));
+    }
+}
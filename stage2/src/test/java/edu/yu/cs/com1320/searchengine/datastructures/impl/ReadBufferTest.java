@@ -0,0 +1,90 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadBufferTest {
+
+    @Test
+    void drainsAtThreshold() {
+        List<Integer> applied = new ArrayList<>();
+        ReadBuffer<Integer> buffer = new ReadBuffer<>(10, 3, applied::add);
+        buffer.record(1);
+        buffer.record(2);
+        assertEquals(List.of(), applied);
+        assertEquals(2, buffer.size());
+        buffer.record(3);
+        assertEquals(List.of(1, 2, 3), applied);
+        assertEquals(0, buffer.size());
+        buffer.record(4);
+        buffer.drain();
+        assertEquals(List.of(1, 2, 3, 4), applied);
+        assertThrows(IllegalArgumentException.class, () -> buffer.record(null));
+        assertThrows(IllegalArgumentException.class, () -> new ReadBuffer<Integer>(2, 3, applied::add));
+        assertThrows(IllegalArgumentException.class, () -> new ReadBuffer<Integer>(2, 1, null));
+    }
+
+    @Test
+    void dropsWhenFull() throws InterruptedException {
+        List<Integer> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch draining = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReadBuffer<Integer> buffer = new ReadBuffer<>(2, 1, event -> {
+            applied.add(event);
+            if (event == 0) {
+                draining.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        Thread drainer = new Thread(() -> buffer.record(0));
+        drainer.start();
+        draining.await();
+        //another thread is draining, so these wait, and the third doesn't fit
+        buffer.record(1);
+        buffer.record(2);
+        buffer.record(3);
+        assertFalse(buffer.tryDrain());
+        assertEquals(1, buffer.getDropped());
+        release.countDown();
+        drainer.join();
+        assertEquals(List.of(0, 1, 2), applied);
+    }
+
+    @Test
+    void manyThreads() throws InterruptedException {
+        AtomicInteger applied = new AtomicInteger();
+        int[] unsynchronized = new int[1];
+        ReadBuffer<Integer> buffer = new ReadBuffer<>(1 << 20, 16, event -> {
+            applied.incrementAndGet();
+            //only one thread drains at a time
+            unsynchronized[0]++;
+        });
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    buffer.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        buffer.drain();
+        assertEquals(80_000, applied.get());
+        assertEquals(80_000, unsynchronized[0]);
+        assertEquals(0, buffer.getDropped());
+    }
+}
@@ -0,0 +1,91 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * values spread over a few containers, with the first one dense enough to be a bitmap container
+     */
+    private static void fill(Random random, RoaringBitmap bitmap, TreeSet<Integer> expected, int count) {
+        for (int i = 0; i < count; i++){
+            int value = random.nextBoolean() ? random.nextInt(10_000) : random.nextInt(300_000);
+            bitmap.add(value);
+            expected.add(value);
+        }
+    }
+
+    @Test
+    void addRemoveContains() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        assertTrue(bitmap.isEmpty());
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(3);
+        fill(random, bitmap, expected, 20_000);
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertArrayEquals(toArray(expected), bitmap.toArray());
+        for (int i = 0; i < 30_000; i++){
+            int value = random.nextInt(300_000);
+            assertEquals(expected.contains(value), bitmap.contains(value));
+            bitmap.remove(value);
+            expected.remove(value);
+        }
+        //removing most of a bitmap container turns it back into an array container
+        for (int value = 0; value < 9_900; value++){
+            bitmap.remove(value);
+            expected.remove(value);
+        }
+        assertArrayEquals(toArray(expected), bitmap.toArray());
+        for (int value : toArray(expected)){
+            bitmap.remove(value);
+        }
+        assertTrue(bitmap.isEmpty());
+        assertFalse(bitmap.contains(-1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+        assertArrayEquals(new int[]{0, 65_535, 65_536, Integer.MAX_VALUE}, RoaringBitmap.of(Integer.MAX_VALUE, 65_536, 0, 65_535, 0).toArray());
+    }
+
+    @Test
+    void setOperations() {
+        Random random = new Random(8);
+        for (int round = 0; round < 10; round++){
+            RoaringBitmap a = new RoaringBitmap();
+            RoaringBitmap b = new RoaringBitmap();
+            TreeSet<Integer> setA = new TreeSet<>();
+            TreeSet<Integer> setB = new TreeSet<>();
+            //sizes on both sides of the array/bitmap container cutoff
+            fill(random, a, setA, random.nextInt(20_000));
+            fill(random, b, setB, random.nextInt(20_000));
+            TreeSet<Integer> and = new TreeSet<>(setA);
+            and.retainAll(setB);
+            TreeSet<Integer> or = new TreeSet<>(setA);
+            or.addAll(setB);
+            TreeSet<Integer> andNot = new TreeSet<>(setA);
+            andNot.removeAll(setB);
+            assertArrayEquals(toArray(and), a.and(b).toArray());
+            assertArrayEquals(toArray(and), b.and(a).toArray());
+            assertArrayEquals(toArray(or), a.or(b).toArray());
+            assertArrayEquals(toArray(or), b.or(a).toArray());
+            assertArrayEquals(toArray(andNot), a.andNot(b).toArray());
+            assertEquals(or.size(), a.or(b).cardinality());
+            //the operands are left alone
+            assertArrayEquals(toArray(setA), a.toArray());
+            assertArrayEquals(toArray(setB), b.toArray());
+        }
+        RoaringBitmap a = RoaringBitmap.of(1, 2, 3);
+        RoaringBitmap copy = a.copy();
+        copy.add(4);
+        assertArrayEquals(new int[]{1, 2, 3}, a.toArray());
+        assertTrue(a.andNot(copy).isEmpty());
+        assertTrue(a.and(new RoaringBitmap()).isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package edu.yu.cs.com1320.searchengine.datastructures.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WTinyLfuEvictionPolicyTest {
+    private WTinyLfuEvictionPolicy<String> sample;
+
+    @BeforeEach
+    void setUp() {
+        sample = new WTinyLfuEvictionPolicy<>();
+    }
+
+    @Test
+    void evictsEverythingOnce() {
+        for (int i = 0; i < 50; i++) {
+            sample.add("d" + i);
+        }
+        Set<String> evicted = new HashSet<>();
+        while (sample.size() > 0) {
+            assertTrue(evicted.add(sample.evict()));
+        }
+        assertEquals(50, evicted.size());
+        assertThrows(NoSuchElementException.class, () -> sample.evict());
+    }
+
+    /**
+     * a hot set that is used over and over should survive a scan of cold elements
+     */
+    @Test
+    void scanResistant() {
+        int capacity = 100;
+        for (int i = 0; i < capacity; i++) {
+            sample.add("hot" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < capacity; i++) {
+                sample.recordAccess("hot" + i);
+            }
+        }
+        int hotEvicted = 0;
+        for (int i = 0; i < 1000; i++) {
+            sample.add("cold" + i);
+            if (sample.evict().startsWith("hot")) {
+                hotEvicted++;
+            }
+        }
+        assertEquals(capacity, sample.size());
+        assertTrue(hotEvicted < capacity / 10, "hot elements evicted: " + hotEvicted);
+    }
+
+    @Test
+    void remove() {
+        sample.add("a");
+        sample.add("b");
+        sample.recordAccess("a");
+        sample.remove("a");
+        assertEquals(1, sample.size());
+        assertThrows(NoSuchElementException.class, () -> sample.recordAccess("a"));
+        assertThrows(IllegalArgumentException.class, () -> sample.add("b"));
+        assertEquals("b", sample.evict());
+    }
+}
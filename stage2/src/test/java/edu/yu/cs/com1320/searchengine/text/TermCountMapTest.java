@@ -0,0 +1,107 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermCountMapTest {
+
+    @Test
+    void addAndCount() {
+        TermCountMap map = new TermCountMap();
+        assertEquals(0, map.count("a"));
+        assertNull(map.get("a"));
+        map.add("a", 2);
+        map.add("a", 3);
+        map.add("b", 1);
+        assertEquals(5, map.count("a"));
+        assertEquals(5, map.get("a"));
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey("b"));
+        assertFalse(map.containsKey("c"));
+        assertFalse(map.containsKey(7));
+        assertEquals(0, map.count(null));
+        assertThrows(IllegalArgumentException.class, () -> map.add("c", 0));
+        assertThrows(IllegalArgumentException.class, () -> map.add(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TermCountMap(-1));
+    }
+
+    @Test
+    void incrementMatchesHashMap() {
+        HashMap<String, Integer> expected = new HashMap<>();
+        TermCountMap map = new TermCountMap(0);
+        Random random = new Random(4);
+        char[] buffer = new char[8];
+        for (int i = 0; i < 50_000; i++){
+            int length = 1 + random.nextInt(3);
+            for (int j = 0; j < length; j++){
+                buffer[j] = (char) ('a' + random.nextInt(20));
+            }
+            map.increment(buffer, length);
+            expected.merge(new String(buffer, 0, length), 1, Integer::sum);
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected.keySet(), map.keySet());
+        Map<String, Integer> seen = new HashMap<>();
+        map.forEachCount(seen::put);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void readOnlyThroughMap() {
+        TermCountMap map = TermCountMap.of(Map.of("a", 1, "b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("c", 1));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+        assertThrows(UnsupportedOperationException.class, () -> map.keySet().remove("a"));
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(5));
+        Iterator<String> terms = map.keySet().iterator();
+        terms.next();
+        terms.next();
+        assertThrows(NoSuchElementException.class, terms::next);
+        assertSame(map, TermCountMap.of(map));
+        assertNull(TermCountMap.of(null));
+    }
+
+    @Test
+    void intern() {
+        TermDictionary dictionary = new TermDictionary();
+        dictionary.add("zebra");
+        TermCountMap map = new Tokenizer().countTerms("apple zebra apple mango");
+        TermIdCounts ids = map.intern(dictionary);
+        assertEquals(3, ids.size());
+        assertEquals(3, dictionary.size());
+        for (int i = 1; i < ids.size(); i++){
+            assertTrue(ids.idAt(i - 1) < ids.idAt(i));
+        }
+        assertEquals(2, ids.count(dictionary.find("apple")));
+        assertEquals(1, ids.count(0));
+        assertEquals(0, ids.count(99));
+        for (String term : map.keySet()){
+            assertSame(dictionary.term(dictionary.find(term)), term);
+        }
+        assertEquals(2, map.count("apple"));
+    }
+
+    @Test
+    void internTerms() {
+        TermDictionary dictionary = new TermDictionary();
+        String apple = new String("apple");
+        dictionary.add(apple);
+        TermCountMap map = new Tokenizer().countTerms("apple zebra apple");
+        map.internTerms(dictionary);
+        assertEquals(1, dictionary.size());
+        for (String term : map.keySet()){
+            if (term.equals("apple")){
+                assertSame(apple, term);
+            } else {
+                assertEquals(-1, dictionary.find(term));
+            }
+        }
+        assertEquals(2, map.count("apple"));
+        assertEquals(1, map.count("zebra"));
+    }
+}
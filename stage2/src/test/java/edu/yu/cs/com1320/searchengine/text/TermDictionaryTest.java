@@ -0,0 +1,86 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermDictionaryTest {
+
+    @Test
+    void denseIds() {
+        TermDictionary dictionary = new TermDictionary();
+        assertEquals(-1, dictionary.find("a"));
+        assertEquals(0, dictionary.add("a"));
+        assertEquals(1, dictionary.add("b"));
+        assertEquals(0, dictionary.add("a"));
+        assertEquals(1, dictionary.find("b"));
+        assertEquals("b", dictionary.term(1));
+        assertEquals(2, dictionary.size());
+        assertEquals(-1, dictionary.find(null));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.add(null));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.term(2));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.term(-1));
+    }
+
+    @Test
+    void growsAndKeepsOneInstance() {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < 10_000; i++){
+            assertEquals(i, dictionary.add("term" + i));
+        }
+        for (int i = 0; i < 10_000; i++){
+            String copy = new String("term" + i);
+            assertEquals(i, dictionary.find(copy));
+            assertNotSame(copy, dictionary.term(i));
+            assertSame(dictionary.term(i), dictionary.term(dictionary.add(copy)));
+        }
+        assertEquals(10_000, dictionary.size());
+    }
+
+    @Test
+    void releasedIdsAreReused() {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < 1000; i++){
+            dictionary.add("term" + i);
+        }
+        for (int i = 0; i < 1000; i += 2){
+            dictionary.release(i);
+        }
+        assertEquals(500, dictionary.size());
+        assertThrows(IllegalArgumentException.class, () -> dictionary.term(0));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.release(0));
+        for (int i = 0; i < 1000; i++){
+            //the terms left must still be found past the slots that were emptied
+            assertEquals(i % 2 == 0 ? -1 : i, dictionary.find("term" + i));
+        }
+        Set<Integer> reused = new HashSet<>();
+        for (int i = 0; i < 500; i++){
+            int id = dictionary.add("new" + i);
+            assertEquals(0, id % 2);
+            reused.add(id);
+        }
+        assertEquals(500, reused.size());
+        assertEquals(1000, dictionary.idBound());
+        assertEquals(1000, dictionary.add("more"));
+    }
+
+    @Test
+    void churnKeepsIdsBounded() {
+        TermDictionary dictionary = new TermDictionary();
+        for (int i = 0; i < 100_000; i++){
+            int id = dictionary.add("word" + i);
+            assertEquals(id, dictionary.find("word" + i));
+            if (i >= 10){
+                dictionary.release(dictionary.find("word" + (i - 10)));
+            }
+        }
+        assertEquals(10, dictionary.size());
+        assertTrue(dictionary.idBound() <= 11);
+        for (int i = 100_000 - 10; i < 100_000; i++){
+            assertEquals("word" + i, dictionary.term(dictionary.find("word" + i)));
+        }
+    }
+}
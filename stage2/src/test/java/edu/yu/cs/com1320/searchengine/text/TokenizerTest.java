@@ -0,0 +1,77 @@
+package edu.yu.cs.com1320.searchengine.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenizerTest {
+
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        new Tokenizer().tokenize(text, (buffer, length) -> terms.add(new String(buffer, 0, length)));
+        return terms;
+    }
+
+    @Test
+    void tokenize() {
+        assertEquals(List.of("Hello", "World"), terms("Hello World"));
+        assertEquals(List.of("Hello", "World"), terms("  Hello,\t\nWorld!  "));
+        //punctuation inside a word is dropped without splitting it
+        assertEquals(List.of("dont", "stop", "34"), terms("don't stop 3.4"));
+        assertEquals(List.of("a"), terms("a"));
+        assertEquals(List.of(), terms(""));
+        assertEquals(List.of(), terms(" ?! - "));
+        //non-breaking space separates too
+        assertEquals(List.of("a", "b"), terms("a\u00a0b"));
+        assertThrows(IllegalArgumentException.class, () -> terms(null));
+    }
+
+    @Test
+    void longTermsGrowTheBuffer() {
+        String longWord = "x".repeat(1_000);
+        assertEquals(List.of("a", longWord, "b"), terms("a " + longWord + " b"));
+    }
+
+    @Test
+    void chunksGiveTheSameTerms() {
+        String text = "  Hello,\t\nWorld! don't stop " + "x".repeat(100) + " 3.4";
+        for (int size = 1; size <= text.length(); size++) {
+            List<String> terms = new ArrayList<>();
+            Tokenizer.TermSink sink = (buffer, length) -> terms.add(new String(buffer, 0, length));
+            Tokenizer tokenizer = new Tokenizer();
+            char[] chars = text.toCharArray();
+            for (int from = 0; from < chars.length; from += size) {
+                tokenizer.tokenize(chars, from, Math.min(from + size, chars.length), sink);
+            }
+            tokenizer.finish(sink);
+            assertEquals(terms(text), terms, "chunks of " + size);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Tokenizer().tokenize(new char[2], 1, 3, (b, l) -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new Tokenizer().finish(null));
+    }
+
+    @Test
+    void countTerms() {
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("Hello", 2);
+        expected.put("World", 1);
+        expected.put("hello", 1);
+        assertEquals(expected, new Tokenizer().countTerms("Hello World, Hello hello."));
+        assertTrue(new Tokenizer().countTerms("...").isEmpty());
+    }
+
+    @Test
+    void normalize() {
+        String clean = "Hello";
+        assertSame(clean, Tokenizer.normalize(clean));
+        assertEquals("dont", Tokenizer.normalize("don't"));
+        assertEquals("ab", Tokenizer.normalize("a b"));
+        assertEquals("", Tokenizer.normalize("?!"));
+        assertEquals("", Tokenizer.normalize(""));
+    }
+}